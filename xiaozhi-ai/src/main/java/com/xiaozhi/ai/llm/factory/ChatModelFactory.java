@@ -12,6 +12,8 @@ import org.springframework.util.Assert;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -23,6 +25,10 @@ import lombok.extern.slf4j.Slf4j;
  * - 通过ChatModelProvider接口定义统一的创建策略
  * - 每个LLM提供商实现独立的Provider
  * - 工厂类通过Spring自动注入所有Provider,自动路由到对应实现
+ *
+ * 可共享的ChatModel按有效配置（provider、地址、模型、密钥、推理开关、温度、topP）缓存，
+ * 不同会话、不同角色只要有效配置相同就复用同一实例，设备重连不再重建HTTP客户端。
+ * 配置变更和角色属性变更的广播通过 {@link #removeCache(Integer)} / {@link #removeCacheByRole(Integer)} 失效缓存。
  */
 @Slf4j
 @Component
@@ -38,6 +44,25 @@ public class ChatModelFactory {
 
     @Autowired
     private ObservationRegistry registry;
+
+    /**
+     * 已创建的ChatModel，key为有效配置
+     */
+    private final Map<ModelKey, CachedModel> chatModelCache = new ConcurrentHashMap<>();
+
+    /**
+     * 决定ChatModel行为的全部配置项，任一项不同都视为不同的模型实例
+     */
+    private record ModelKey(String provider, Integer configId, String apiUrl, String model,
+                            String apiKey, String apiSecret, Boolean enableThinking,
+                            Double temperature, Double topP) {
+    }
+
+    /**
+     * 缓存的ChatModel及使用过它的角色，用于按角色失效
+     */
+    private record CachedModel(ChatModel chatModel, Set<Integer> roleIds) {
+    }
     /**
      * 构造函数,自动注入所有ChatModelProvider
      * @param providers 所有的Provider实现
@@ -58,19 +83,19 @@ public class ChatModelFactory {
         Assert.notNull(modelId, "配置ID不能为空");
         // 根据配置ID查询配置
         ConfigBO config = configLookup.getConfig(modelId);
-        return createChatModel(config, effectiveRole);
+        return getOrCreateChatModel(config, effectiveRole);
     }
 
     public ChatModel getVisionModel() {
         ConfigBO config = configLookup.getDefaultConfig("llm", ConfigBO.ModelType.vision.getValue());
         Assert.notNull(config, "未配置多模态模型");
-        return createChatModel(config, new RoleBO());
+        return getOrCreateChatModel(config, new RoleBO());
     }
 
     public ChatModel getIntentModel() {
         ConfigBO config = configLookup.getDefaultConfig("llm", ConfigBO.ModelType.intent.getValue());
         Assert.notNull(config, "未配置意图识别模型");
-        return createChatModel(config, new RoleBO());
+        return getOrCreateChatModel(config, new RoleBO());
     }
 
     public EmbeddingModel getEmbeddingModel(Integer configId) {
@@ -96,34 +121,81 @@ public class ChatModelFactory {
     }
 
     /**
-     * 创建ChatModel
+     * 清除某个模型配置对应的所有ChatModel缓存
      *
-     * @param config 模型配置
-     * @param role 角色配置
-     * @return ChatModel实例
+     * @param configId 配置ID
      */
-    private ChatModel createChatModel(ConfigBO config, RoleBO role) {
+    public void removeCache(Integer configId) {
+        if (configId == null) {
+            return;
+        }
+        int before = chatModelCache.size();
+        chatModelCache.keySet().removeIf(key -> configId.equals(key.configId()));
+        int removed = before - chatModelCache.size();
+        if (removed > 0) {
+            log.info("已清除ChatModel缓存 - configId: {}, 数量: {}", configId, removed);
+        }
+    }
+
+    /**
+     * 清除某个角色使用过的ChatModel缓存，角色的温度/topP等参数变更后下次获取时重建
+     *
+     * @param roleId 角色ID
+     */
+    public void removeCacheByRole(Integer roleId) {
+        if (roleId == null) {
+            return;
+        }
+        int before = chatModelCache.size();
+        chatModelCache.values().removeIf(cached -> cached.roleIds().contains(roleId));
+        int removed = before - chatModelCache.size();
+        if (removed > 0) {
+            log.info("已清除ChatModel缓存 - roleId: {}, 数量: {}", roleId, removed);
+        }
+    }
+
+    /**
+     * 优先返回缓存中有效配置相同的ChatModel，不可共享的Provider每次新建
+     */
+    private ChatModel getOrCreateChatModel(ConfigBO config, RoleBO role) {
+        ChatModelProvider provider = resolveProvider(config);
+        if (!provider.isShareable()) {
+            return provider.createChatModel(config, role);
+        }
+        ModelKey key = new ModelKey(
+                provider.getProviderName(),
+                config.getConfigId(),
+                config.getApiUrl(),
+                config.getConfigName(),
+                config.getApiKey(),
+                config.getApiSecret(),
+                config.getEnableThinking(),
+                role.getTemperature(),
+                role.getTopP());
+        CachedModel cached = chatModelCache.computeIfAbsent(key,
+                k -> new CachedModel(provider.createChatModel(config, role), ConcurrentHashMap.newKeySet()));
+        if (role.getRoleId() != null) {
+            cached.roleIds().add(role.getRoleId());
+        }
+        return cached.chatModel();
+    }
+
+    /**
+     * 查找配置对应的Provider，找不到时使用OpenAI Provider（兼容OpenAI协议）
+     */
+    private ChatModelProvider resolveProvider(ConfigBO config) {
         String providerName = config.getProvider().toLowerCase();
-        
-        // 从providers Map中获取对应的Provider
         ChatModelProvider provider = providers.get(providerName);
-        
-        if (provider != null) {
-            return provider.createChatModel(config, role);
+        if (provider == null) {
+            provider = providers.get("openai");
         }
-        
-        // 如果没有找到对应的Provider,尝试使用OpenAI Provider作为默认(兼容OpenAI协议)
-        provider = providers.get("openai");
-        
-        if (provider != null) {
-            return provider.createChatModel(config, role);
+        if (provider == null) {
+            throw new IllegalArgumentException(
+                    String.format("不支持的Provider: %s, 可用的Providers: %s",
+                            providerName,
+                            providers.keySet())
+            );
         }
-        
-        // 如果连OpenAI Provider都没有,抛出异常
-        throw new IllegalArgumentException(
-                String.format("不支持的Provider: %s, 可用的Providers: %s", 
-                        providerName, 
-                        providers.keySet())
-        );
+        return provider;
     }
 }
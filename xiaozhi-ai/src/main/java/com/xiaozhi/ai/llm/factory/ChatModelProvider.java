@@ -34,6 +34,15 @@ public interface ChatModelProvider {
         throw new UnsupportedOperationException(getProviderName() + " 不支持 Embedding 模型");
     }
 
+    /**
+     * 创建出的ChatModel能否按有效配置在会话间共享。
+     * 依赖额外查询（如 agent 配置、会过期的 Token）的提供商应返回 false，每次新建
+     * @return true表示可共享
+     */
+    default boolean isShareable() {
+        return true;
+    }
+
     /**
      * 是否支持该提供商
      * @param provider 提供商名称(小写)
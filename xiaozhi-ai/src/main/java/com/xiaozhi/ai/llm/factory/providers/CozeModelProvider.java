@@ -30,6 +30,14 @@ public class CozeModelProvider implements ChatModelProvider {
     public String getProviderName() {
         return "coze";
     }
+
+    /**
+     * Token 来自 agent 配置且会过期，配置变更广播无法覆盖，不参与共享
+     */
+    @Override
+    public boolean isShareable() {
+        return false;
+    }
     
     @Override
     public ChatModel createChatModel(ConfigBO config, RoleBO role) {
@@ -26,8 +26,11 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.net.URI;
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 /**
@@ -46,6 +49,11 @@ public class OpenAiModelProvider implements ChatModelProvider {
 
     @Autowired
     private ObservationRegistry observationRegistry;
+
+    /**
+     * 按服务端地址共享的 HttpClient，key 为 scheme://host:port
+     */
+    private final Map<String, HttpClient> httpClients = new ConcurrentHashMap<>();
     
     @Override
     public String getProviderName() {
@@ -63,20 +71,16 @@ public class OpenAiModelProvider implements ChatModelProvider {
         MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
         headers.add("Content-Type", "application/json");
         
-        // LM Studio不支持Http/2，所以需要强制使用HTTP/1.1
+        HttpClient httpClient = getHttpClient(endpoint);
         var openAiApi = OpenAiApi.builder()
                 .apiKey(StringUtils.hasText(apiKey) ? new SimpleApiKey(apiKey) : new NoopApiKey())
                 .baseUrl(endpoint)
                 .completionsPath("/chat/completions")
                 .headers(headers)
                 .webClientBuilder(WebClient.builder()
-                        // Force HTTP/1.1 for streaming
-                        .clientConnector(new JdkClientHttpConnector(HttpClient.newBuilder()
-                                .version(HttpClient.Version.HTTP_1_1)
-                                .connectTimeout(Duration.ofSeconds(30))
-                                .build())))
+                        .clientConnector(new JdkClientHttpConnector(httpClient)))
                 .restClientBuilder(RestClient.builder()
-                        .requestFactory(createRequestFactory()))
+                        .requestFactory(createRequestFactory(httpClient)))
                 .build();
         
         boolean enableThinking = Boolean.TRUE.equals(config.getEnableThinking());
@@ -111,29 +115,48 @@ public class OpenAiModelProvider implements ChatModelProvider {
         MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
         headers.add("Content-Type", "application/json");
 
+        HttpClient httpClient = getHttpClient(config.getApiUrl());
         var openAiApi = OpenAiApi.builder()
                 .apiKey(StringUtils.hasText(config.getApiKey()) ? new SimpleApiKey(config.getApiKey()) : new NoopApiKey())
                 .baseUrl(config.getApiUrl())
                 .embeddingsPath("/embeddings")
                 .headers(headers)
                 .webClientBuilder(WebClient.builder()
-                        .clientConnector(new JdkClientHttpConnector(HttpClient.newBuilder()
-                                .version(HttpClient.Version.HTTP_1_1)
-                                .connectTimeout(Duration.ofSeconds(30))
-                                .build())))
+                        .clientConnector(new JdkClientHttpConnector(httpClient)))
                 .restClientBuilder(RestClient.builder()
-                        .requestFactory(createRequestFactory()))
+                        .requestFactory(createRequestFactory(httpClient)))
                 .build();
         var options = OpenAiEmbeddingOptions.builder().model(config.getConfigName()).build();
         log.debug("创建 OpenAI EmbeddingModel: model={}, endpoint={}", config.getConfigName(), config.getApiUrl());
         return new OpenAiEmbeddingModel(openAiApi, MetadataMode.EMBED, options);
     }
 
-    private JdkClientHttpRequestFactory createRequestFactory() {
-        var factory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+    /**
+     * 同一服务端（scheme + host + port）的所有模型共用一个 HttpClient，
+     * 复用其 keep-alive 连接池，设备重连或新建 Persona 时不再重新建连和 TLS 握手。
+     * LM Studio不支持Http/2，所以需要强制使用HTTP/1.1
+     */
+    private HttpClient getHttpClient(String endpoint) {
+        return httpClients.computeIfAbsent(originOf(endpoint), origin -> HttpClient.newBuilder()
                 .version(HttpClient.Version.HTTP_1_1)
                 .connectTimeout(Duration.ofSeconds(30))
                 .build());
+    }
+
+    private static String originOf(String endpoint) {
+        try {
+            URI uri = URI.create(endpoint);
+            if (uri.getScheme() != null && uri.getHost() != null) {
+                return uri.getScheme().toLowerCase() + "://" + uri.getHost().toLowerCase() + ":" + uri.getPort();
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("无法解析模型地址，按原始字符串区分连接池: {}", endpoint);
+        }
+        return String.valueOf(endpoint);
+    }
+
+    private JdkClientHttpRequestFactory createRequestFactory(HttpClient httpClient) {
+        var factory = new JdkClientHttpRequestFactory(httpClient);
         factory.setReadTimeout(Duration.ofSeconds(30));
         return factory;
     }
@@ -0,0 +1,38 @@
+package com.xiaozhi.ai.llm.factory.providers;
+
+import com.xiaozhi.ai.llm.factory.ChatModelProvider;
+import com.xiaozhi.ai.llm.providers.StubChatModel;
+import com.xiaozhi.common.model.bo.ConfigBO;
+import com.xiaozhi.common.model.bo.RoleBO;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+/**
+ * 压测用的本地模型提供者，配置 provider 为 stub 时使用，不访问任何外部服务
+ */
+@Slf4j
+@Component
+public class StubModelProvider implements ChatModelProvider {
+
+    @Value("${xiaozhi.stub.llm.first-token-ms:400}")
+    private long firstTokenMs;
+
+    @Value("${xiaozhi.stub.llm.token-interval-ms:30}")
+    private long tokenIntervalMs;
+
+    @Value("${xiaozhi.stub.llm.reply:今天北京多云转晴，气温十二到二十三度，午后有三级左右的东南风。早晚温差比较大，出门记得带一件薄外套。}")
+    private String reply;
+
+    @Override
+    public String getProviderName() {
+        return "stub";
+    }
+
+    @Override
+    public ChatModel createChatModel(ConfigBO config, RoleBO role) {
+        log.info("Created Stub ChatModel: firstTokenMs={}, tokenIntervalMs={}", firstTokenMs, tokenIntervalMs);
+        return new StubChatModel(reply, firstTokenMs, tokenIntervalMs);
+    }
+}
@@ -26,6 +26,14 @@ public class XingChenModelProvider implements ChatModelProvider {
     public String getProviderName() {
         return "xingchen";
     }
+
+    /**
+     * 密钥来自 agent 配置，配置变更广播无法覆盖，不参与共享
+     */
+    @Override
+    public boolean isShareable() {
+        return false;
+    }
     
     @Override
     public ChatModel createChatModel(ConfigBO config, RoleBO role) {
@@ -17,6 +17,11 @@ import java.util.*;
  *
  * Conversation 也不再负责消息的存储持久化。
  *
+ * 消息保存两份：原始消息（裸文本 + 结构化 metadata）和经 {@link UserMessageAssembler} 装配后的副本，
+ * 都用双端队列按相同顺序维护。装配只在消息加入时做一次，窗口裁剪和摘要从队首同步移除，
+ * 构建每轮 Prompt 时只复制已装配好的引用，不再把整段历史重新装配一遍。
+ * 因此消息加入 Conversation 前应写好 metadata，加入后视为不可变。
+ *
  */
 public class Conversation extends ConversationIdentifier {
 
@@ -26,7 +31,10 @@ public class Conversation extends ConversationIdentifier {
     private final Integer userId;
     private final String sessionId;
 
-    protected List<Message> messages = new ArrayList<>();
+    // 原始消息，文本保持"裸文本"
+    private final Deque<Message> messages = new ArrayDeque<>();
+    // 与 messages 一一对应的装配结果
+    private final Deque<Message> assembledMessages = new ArrayDeque<>();
 
     /**
      * @param ownerId   聊天参与者标识（设备场景: deviceId, Web 场景: userId）
@@ -82,12 +90,12 @@ public class Conversation extends ConversationIdentifier {
     /**
      * 带运行时上下文的消息列表（子类覆写此方法以注入系统提示词）。
      * <p>
-     * 对每条消息走一次 {@link UserMessageAssembler#assemble(Message)}：
+     * 每条消息在加入时已走过一次 {@link UserMessageAssembler#assemble(Message)}：
      * UserMessage 按其 metadata 装配带前缀的副本送给 LLM，非 UserMessage 原样透传。
      * in-memory 的消息始终是"裸文本 + 结构化 metadata"。
      */
     public synchronized List<Message> messages(ConversationContext context) {
-        return messages.stream().map(UserMessageAssembler::assemble).toList();
+        return List.copyOf(assembledMessages);
     }
 
     /**
@@ -98,11 +106,11 @@ public class Conversation extends ConversationIdentifier {
     }
 
     /**
-     * 返回原始消息列表（不触发任何投影副作用，文本保持"裸文本"，metadata 未拼前缀）。
+     * 返回原始消息列表的快照（不触发任何投影副作用，文本保持"裸文本"，metadata 未拼前缀）。
      * 用于工具路由的 FC 上下文检测。
      */
     public synchronized List<Message> rawMessages() {
-        return messages;
+        return List.copyOf(messages);
     }
 
     /**
@@ -111,31 +119,86 @@ public class Conversation extends ConversationIdentifier {
      */
     public synchronized void clear(){
         messages.clear();
+        assembledMessages.clear();
     }
 
     public synchronized void add(Message message) {
+        if (message instanceof UserMessage || message instanceof AssistantMessage
+                || message instanceof ToolResponseMessage) {
+            append(message);
+        }
+    }
+
+    /**
+     * 将工具调用链（模型的 tool_call 请求 + 工具执行结果）作为原子操作添加到消息列表
+     */
+    public synchronized void addToolCallChain(AssistantMessage toolCallMsg, ToolResponseMessage toolResponse) {
+        append(toolCallMsg);
+        append(toolResponse);
+    }
 
-        if(message instanceof UserMessage userMsg){
-            messages.add(userMsg);
-            return;
+    /**
+     * 在队尾追加一条消息，同时装配好送给 LLM 的副本
+     */
+    protected synchronized void append(Message message) {
+        messages.addLast(message);
+        assembledMessages.addLast(UserMessageAssembler.assemble(message));
+    }
+
+    protected synchronized void appendAll(Collection<? extends Message> history) {
+        for (Message message : history) {
+            append(message);
         }
+    }
 
-        if(message instanceof AssistantMessage assistantMessage){
-            messages.add(assistantMessage);
-            return;
+    /**
+     * 移除队首的一条消息
+     *
+     * @return 被移除的原始消息，没有消息时返回 null
+     */
+    protected synchronized Message removeFirst() {
+        assembledMessages.pollFirst();
+        return messages.pollFirst();
+    }
+
+    /**
+     * 队首依次与 prefix 是同一批对象时逐条移除，遇到不同的对象即停止（中途被清空等情况）
+     *
+     * @return 实际移除的条数
+     */
+    protected synchronized int removePrefix(List<Message> prefix) {
+        int removed = 0;
+        for (Message message : prefix) {
+            if (messages.peekFirst() != message) {
+                break;
+            }
+            removeFirst();
+            removed++;
         }
+        return removed;
+    }
 
-        if(message instanceof ToolResponseMessage toolResponseMessage){
-            messages.add(toolResponseMessage);
+    /**
+     * 队首最多 count 条原始消息的副本
+     */
+    protected synchronized List<Message> firstMessages(int count) {
+        List<Message> head = new ArrayList<>(Math.min(count, messages.size()));
+        Iterator<Message> iterator = messages.iterator();
+        while (head.size() < count && iterator.hasNext()) {
+            head.add(iterator.next());
         }
+        return head;
+    }
+
+    protected synchronized int messageCount() {
+        return messages.size();
     }
 
     /**
-     * 将工具调用链（模型的 tool_call 请求 + 工具执行结果）作为原子操作添加到消息列表
+     * 把已装配的消息依次追加到 target，子类先放入系统提示词再调用
      */
-    public synchronized void addToolCallChain(AssistantMessage toolCallMsg, ToolResponseMessage toolResponse) {
-        messages.add(toolCallMsg);
-        messages.add(toolResponse);
+    protected synchronized void collectAssembled(List<Message> target) {
+        target.addAll(assembledMessages);
     }
 
 }
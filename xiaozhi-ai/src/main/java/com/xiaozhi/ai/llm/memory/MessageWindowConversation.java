@@ -31,48 +31,47 @@ public class MessageWindowConversation extends Conversation {
                 : chatMemory.find(ownerId, roleId, maxMessages);
         log.info("加载对话历史: sessionScoped={}, ownerId={}, sessionId={}, size={}",
                 sessionScoped, ownerId, sessionId, history.size());
-        super.messages.addAll(history);
+        appendAll(history);
     }
 
     @Override
     public synchronized void add(Message message) {
         if (message instanceof UserMessage || message instanceof AssistantMessage || message instanceof ToolResponseMessage) {
-            messages.add(message);
+            append(message);
         } else {
             log.warn("不支持的消息类型：{}",message.getClass().getName());
         }
     }
 
     /**
-     * 返回带系统提示词的消息列表，接受运行时上下文（位置、声纹等）
+     * 返回带系统提示词的消息列表，接受运行时上下文（位置、声纹等）。
+     * 历史消息在加入时已装配，这里只从队首滑出超出窗口的对话组，再拼上系统提示词。
      */
     public synchronized List<Message> messages(ConversationContext context) {
         // 按对话组裁剪：简单组=[User,Assistant](2条)，工具组=[User,Assistant(toolCall),Tool,Assistant(final)](4条)
-        while (messages.size() > maxMessages + 1) {
-            if (messages.size() >= 2 && messages.get(1) instanceof AssistantMessage am
+        while (messageCount() > maxMessages + 1) {
+            List<Message> head = firstMessages(2);
+            if (head.size() >= 2 && head.get(1) instanceof AssistantMessage am
                     && am.getToolCalls() != null && !am.getToolCalls().isEmpty()
-                    && messages.size() >= 4) {
+                    && messageCount() >= 4) {
                 // 工具对话组：移除 4 条 [User, Assistant(toolCall), Tool, Assistant(final)]
-                for (int i = 0; i < 4 && !messages.isEmpty(); i++) {
-                    messages.remove(0);
+                for (int i = 0; i < 4; i++) {
+                    removeFirst();
                 }
             } else {
                 // 简单对话组：移除 2 条 [User, Assistant]
-                messages.remove(0);
-                if (!messages.isEmpty()) {
-                    messages.remove(0);
-                }
+                removeFirst();
+                removeFirst();
             }
         }
         // 新消息列表对象，避免使用过程中污染原始列表对象
-        List<Message> historyMessages = new ArrayList<>();
+        List<Message> historyMessages = new ArrayList<>(messageCount() + 1);
         var roleSystemMessage = roleSystemMessage(context);
         if(roleSystemMessage.isPresent()){
             historyMessages.add(roleSystemMessage.get());
         }
-        historyMessages.addAll(messages);
-        // UserMessage 按 metadata 装配带前缀的副本供 LLM 使用
-        return historyMessages.stream().map(UserMessageAssembler::assemble).toList();
+        collectAssembled(historyMessages);
+        return Collections.unmodifiableList(historyMessages);
     }
 
     @Override
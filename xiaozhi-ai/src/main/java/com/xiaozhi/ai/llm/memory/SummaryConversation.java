@@ -15,6 +15,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -47,6 +48,7 @@ public class SummaryConversation extends Conversation {
     private final PromptTemplate againSummarizerPromptTemplate ;
     private final ChatMemory chatMemory;
     private final ChatClient chatClient;
+    private final SummaryExecutor summaryExecutor;
     private final Object summaryLock = new Object();
     // 运行时不应该发生变化，避免计算错误
 
@@ -56,13 +58,18 @@ public class SummaryConversation extends Conversation {
 
     // 消息摘要
     private SummaryBO lastSummary = null;
-    private boolean summarizing = false;
+    // 有强制摘要的触发尚未执行（如距上次对话超过1小时），与普通触发合并后仍按强制处理
+    private boolean forcePending = false;
 
     @Builder
     public SummaryConversation(String ownerId, Integer roleId, String sessionId, String roleDesc, Integer userId,
                                PromptTemplate initSummarizerPromptTemplate, PromptTemplate againSummarizerPromptTemplate,
-                               ChatMemory chatMemory, ChatModel chatModel, int maxMessages, int batchSize){
+                               ChatMemory chatMemory, ChatModel chatModel, SummaryExecutor summaryExecutor,
+                               int maxMessages, int batchSize){
         super(ownerId, roleId, sessionId, roleDesc, userId);
+        Assert.notNull(summaryExecutor, "summaryExecutor must not be null");
+        this.summaryExecutor = summaryExecutor;
+
         Assert.notNull(initSummarizerPromptTemplate, "initSummarizerPromptTemplate must not be null");
         this.initSummarizerPromptTemplate = initSummarizerPromptTemplate;
 
@@ -89,7 +96,7 @@ public class SummaryConversation extends Conversation {
             List<Message> history = chatMemory.find(getOwnerId(), getRoleId(), maxMessages);
             log.info("当前{}还没有历史summary,加载{}条普通消息进入对话上下文", getOwnerId(), history.size());
             synchronized (summaryLock) {
-                super.messages.addAll(history);
+                appendAll(history);
             }
             // 如果最后一条消息距今超过1小时且消息数足够，则生成summary以压缩上下文
             if (history.size() >= 2) {
@@ -103,7 +110,7 @@ public class SummaryConversation extends Conversation {
             List<Message> history = chatMemory.find(getOwnerId(), getRoleId(), lastSummary.getLastMessageTimestamp());
             log.info("加载{}的{}条未被摘要的消息作为对话历史", getOwnerId(), history.size());
             synchronized (summaryLock) {
-                super.messages.addAll(history);
+                appendAll(history);
             }
             if (Duration.between(lastSummary.getLastMessageTimestamp(), Instant.now()).toHours() >= CONVERSATION_INTERVAL_HOURS
                     && history.size() >= 2) {
@@ -133,30 +140,48 @@ public class SummaryConversation extends Conversation {
         summarize(false);
     }
 
+    /**
+     * 触发摘要。摘要由 {@link SummaryExecutor} 在后台执行，同一设备和角色的触发会合并，
+     * 需要摘要的消息在真正执行时再读取。
+     */
     private void summarize(boolean force) {
-        List<Message> needSummaryMessages;
-        int size;
-        int actualBatchSize;
         synchronized (summaryLock) {
-            if (summarizing) {
+            forcePending |= force;
+            int size = messageCount();
+            if (size == 0 || (!forcePending && size < maxMessages)) {
                 return;
             }
-            size = messages.size();
-            if (size == 0 || (!force && size < maxMessages)) {
-                return;
+        }
+        summaryExecutor.submit(getOwnerId(), getRoleId(), this::summarizePending);
+    }
+
+    /**
+     * 按批摘要，直到剩余消息数低于阈值或摘要失败
+     */
+    private void summarizePending() {
+        while (true) {
+            List<Message> needSummaryMessages;
+            int size;
+            synchronized (summaryLock) {
+                size = messageCount();
+                boolean force = forcePending;
+                forcePending = false;
+                if (size == 0 || (!force && size < maxMessages)) {
+                    return;
+                }
+                needSummaryMessages = firstMessages(Math.min(batchSize, size));
             }
-            actualBatchSize = Math.min(batchSize, size);
-            if (actualBatchSize <= 0) {
+            log.info("current conversation message size:{}, batch size to summary:{}", size, needSummaryMessages.size());
+            if (!summaryMessages(needSummaryMessages)) {
                 return;
             }
-            needSummaryMessages = new ArrayList<>(messages.subList(0, actualBatchSize));
-            summarizing = true;
         }
-        log.info("current conversation message size:{}, batch size to summary:{}", size, actualBatchSize);
-        Thread.startVirtualThread(() -> summaryMessages(needSummaryMessages));
     }
 
-    protected void summaryMessages(List<Message> needSummaryMessages) {
+    /**
+     * @return 摘要是否成功
+     */
+    protected boolean summaryMessages(List<Message> needSummaryMessages) {
         // 1. Process memory messages as a string.
         String memory = MessageHistoryFormatter.format(needSummaryMessages);
 
@@ -198,40 +223,33 @@ public class SummaryConversation extends Conversation {
             chatMemory.save(newSummary);
 
             synchronized (summaryLock) {
-                // 5. 移除已处理的消息
-                messages.removeAll(needSummaryMessages);
+                // 5. 移除已处理的消息（仍在队首的那一批）
+                removePrefix(needSummaryMessages);
                 this.lastSummary = newSummary;
-                summarizing = false;
             }
-            summarize();
+            return true;
         } catch (Exception e) {
             log.error("{}对话摘要失败", getOwnerId(), e);
-            synchronized (summaryLock) {
-                summarizing = false;
-            }
+            return false;
         }
     }
 
     public List<Message> messages(ConversationContext context) {
-        List<Message> messageSnapshot;
-        SummaryBO summarySnapshot;
-        synchronized (summaryLock) {
-            messageSnapshot = new ArrayList<>(messages);
-            summarySnapshot = lastSummary;
-        }
         // 新消息列表对象，避免使用过程中污染原始列表对象
         List<Message> historyMessages = new ArrayList<>();
         var roleSystemMessage = roleSystemMessage(context);
         if(roleSystemMessage.isPresent()){
             historyMessages.add(roleSystemMessage.get());
         }
-        if(summarySnapshot != null && StringUtils.hasText(summarySnapshot.getSummary())){
-            // 多条SystemMessage在主流模型（OpenAI、Qwen、DeepSeek）中均已验证可用
-            historyMessages.add(new SystemMessage("下面是你与用户最近聊天内容的摘要：\n" + summarySnapshot.getSummary()));
+        synchronized (summaryLock) {
+            if(lastSummary != null && StringUtils.hasText(lastSummary.getSummary())){
+                // 多条SystemMessage在主流模型（OpenAI、Qwen、DeepSeek）中均已验证可用
+                historyMessages.add(new SystemMessage("下面是你与用户最近聊天内容的摘要：\n" + lastSummary.getSummary()));
+            }
+            // 消息在加入时已装配，这里只复制引用
+            collectAssembled(historyMessages);
         }
-        historyMessages.addAll(messageSnapshot);
-        // UserMessage 按 metadata 装配带前缀的副本供 LLM 使用
-        return historyMessages.stream().map(UserMessageAssembler::assemble).toList();
+        return Collections.unmodifiableList(historyMessages);
     }
 
     @Override
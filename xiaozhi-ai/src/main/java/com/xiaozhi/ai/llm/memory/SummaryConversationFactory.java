@@ -39,6 +39,9 @@ public class SummaryConversationFactory implements ConversationFactory{
     @Autowired
     private  ChatModelFactory chatModelFactory;
 
+    @Autowired
+    private SummaryExecutor summaryExecutor;
+
     @Value("${conversation.max-messages:8}")
     private int maxMessages;
     @Value("${conversation.batch-size:4}")
@@ -74,6 +77,7 @@ public class SummaryConversationFactory implements ConversationFactory{
                 .batchSize(batchSize)
                 .chatMemory(chatMemory)
                 .chatModel(chatModel)
+                .summaryExecutor(summaryExecutor)
                 .initSummarizerPromptTemplate(initSummarizerPromptTemplate)
                 .againSummarizerPromptTemplate(againSummarizerPromptTemplate)
                 .build();
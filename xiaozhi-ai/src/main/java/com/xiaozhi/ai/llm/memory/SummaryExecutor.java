@@ -0,0 +1,162 @@
+package com.xiaozhi.ai.llm.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话摘要的后台执行器。
+ *
+ * 摘要要调用一次大模型，耗时长、成本高，不能每次触发都新开线程：
+ * - 同时执行的摘要数不超过 max-concurrent，等待中的不超过 max-queue，队列满时放弃本次触发（下次添加消息会再触发）
+ * - 同一 (ownerId, roleId) 同一时刻只有一个任务：任务排队或执行期间的新触发合并为一次，在当前任务结束后接着执行
+ *
+ * 指标：
+ * - xiaozhi.summary.queued：排队等待执行的摘要任务数
+ * - xiaozhi.summary.active：正在执行的摘要任务数
+ * - xiaozhi.summary.wait：任务从提交到开始执行的等待时间
+ * - xiaozhi.summary.latency：单次摘要（调用大模型 + 入库）的耗时
+ * - xiaozhi.summary.coalesced：被合并到已有任务的触发次数
+ * - xiaozhi.summary.rejected：队列已满被放弃的触发次数
+ */
+@Slf4j
+@Component
+public class SummaryExecutor {
+
+    @Value("${conversation.summary.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${conversation.summary.max-queue:256}")
+    private int maxQueue;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    // 每个 key 最近一次尚未执行的触发，存在即表示该 key 有任务在排队或执行
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private Timer waitTimer;
+    private Timer latencyTimer;
+    private Counter coalesced;
+    private Counter rejected;
+
+    private static final class Job {
+        Runnable next;
+        long submittedAt;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueue), Thread.ofPlatform().name("summary-", 0).daemon(true).factory());
+        executor.allowCoreThreadTimeOut(true);
+        Gauge.builder("xiaozhi.summary.queued", executor, e -> e.getQueue().size())
+                .description("排队等待执行的摘要任务数")
+                .register(meterRegistry);
+        Gauge.builder("xiaozhi.summary.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的摘要任务数")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("xiaozhi.summary.wait")
+                .description("摘要任务从提交到开始执行的等待时间")
+                .register(meterRegistry);
+        latencyTimer = Timer.builder("xiaozhi.summary.latency")
+                .description("单次对话摘要的耗时")
+                .register(meterRegistry);
+        coalesced = Counter.builder("xiaozhi.summary.coalesced")
+                .description("合并到已有摘要任务的触发次数")
+                .register(meterRegistry);
+        rejected = Counter.builder("xiaozhi.summary.rejected")
+                .description("摘要队列已满被放弃的触发次数")
+                .register(meterRegistry);
+        log.info("对话摘要执行器已启动 - 并发: {}, 队列: {}", maxConcurrent, maxQueue);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交一次摘要触发
+     *
+     * @param ownerId 设备ID（Web 场景为用户ID）
+     * @param roleId  角色ID
+     * @param task    摘要任务，执行时再读取需要摘要的消息
+     */
+    public void submit(String ownerId, Integer roleId, Runnable task) {
+        String key = ownerId + ":" + roleId;
+        boolean[] dispatch = {false};
+        jobs.compute(key, (k, job) -> {
+            if (job == null) {
+                job = new Job();
+                job.submittedAt = System.nanoTime();
+                dispatch[0] = true;
+            } else {
+                if (job.next == null) {
+                    // 当前任务正在执行，本次触发从现在开始等待
+                    job.submittedAt = System.nanoTime();
+                }
+                coalesced.increment();
+            }
+            job.next = task;
+            return job;
+        });
+        if (!dispatch[0]) {
+            log.debug("摘要任务已在进行，合并本次触发 - key: {}", key);
+            return;
+        }
+        try {
+            executor.execute(() -> run(key));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(key);
+            rejected.increment();
+            log.warn("摘要队列已满，放弃本次摘要 - key: {}, 队列: {}", key, executor.getQueue().size());
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    private void run(String key) {
+        while (true) {
+            Runnable[] next = {null};
+            long[] submittedAt = {0};
+            // 没有新的触发时移除任务，之后的提交会重新排队
+            jobs.computeIfPresent(key, (k, job) -> {
+                next[0] = job.next;
+                submittedAt[0] = job.submittedAt;
+                job.next = null;
+                return next[0] == null ? null : job;
+            });
+            if (next[0] == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            waitTimer.record(start - submittedAt[0], TimeUnit.NANOSECONDS);
+            try {
+                next[0].run();
+            } catch (Exception e) {
+                log.error("对话摘要任务异常 - key: {}", key, e);
+            } finally {
+                latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.xiaozhi.ai.llm.providers;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测用的本地 ChatModel：忽略输入和工具，按固定节奏流式输出一段固定回复。
+ * 首 token 延迟和 token 间隔可配置，用来模拟不同速度的大模型。
+ */
+public class StubChatModel implements ChatModel {
+
+    // 每个 token 的字符数，与常见中文模型的流式粒度接近
+    private static final int CHARS_PER_TOKEN = 2;
+
+    private final String reply;
+    private final List<String> tokens;
+    private final Duration firstTokenDelay;
+    private final Duration tokenInterval;
+
+    public StubChatModel(String reply, long firstTokenMs, long tokenIntervalMs) {
+        this.reply = reply;
+        this.tokens = split(reply);
+        this.firstTokenDelay = Duration.ofMillis(Math.max(0, firstTokenMs));
+        this.tokenInterval = Duration.ofMillis(Math.max(0, tokenIntervalMs));
+    }
+
+    public String getProviderName() {
+        return "stub";
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        try {
+            Thread.sleep(firstTokenDelay.plus(tokenInterval.multipliedBy(tokens.size())).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return response(reply);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        Flux<String> flux = Flux.fromIterable(tokens);
+        if (!tokenInterval.isZero()) {
+            // 首个 token 也计入一次间隔，由 delaySubscription 扣除
+            flux = flux.delayElements(tokenInterval);
+        }
+        Duration initialDelay = firstTokenDelay.minus(tokenInterval);
+        if (!initialDelay.isNegative() && !initialDelay.isZero()) {
+            flux = flux.delaySubscription(initialDelay);
+        }
+        return flux.map(StubChatModel::response);
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content(text).build())));
+    }
+
+    private static List<String> split(String text) {
+        List<String> tokens = new ArrayList<>();
+        int offset = 0;
+        while (offset < text.length()) {
+            int end = Math.min(text.length(), offset + CHARS_PER_TOKEN);
+            // 不拆开代理对
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end++;
+            }
+            tokens.add(text.substring(offset, end));
+            offset = end;
+        }
+        return tokens;
+    }
+}
@@ -2,6 +2,8 @@ package com.xiaozhi.ai.stt;
 
 import reactor.core.publisher.Flux;
 
+import java.util.function.Consumer;
+
 /**
  * STT服务接口
  */
@@ -20,4 +22,24 @@ public interface SttService {
    */
   SttResult stream(Flux<byte[]> audioSink);
 
+  /**
+   * 流式处理音频数据，并在用户仍在说话时推送中间识别结果
+   *
+   * @param audioSink       音频数据流
+   * @param partialListener 中间结果回调，参数为截至当前的完整识别文本（非增量），仅在文本变化时回调；
+   *                        在识别线程中调用，实现方不应在回调中执行耗时操作
+   * @return 最终识别结果
+   */
+  default SttResult stream(Flux<byte[]> audioSink, Consumer<String> partialListener) {
+    // 不支持中间结果的 Provider 只返回最终结果
+    return stream(audioSink);
+  }
+
+  /**
+   * 是否支持推送中间识别结果
+   */
+  default boolean supportsPartialResults() {
+    return false;
+  }
+
 }
@@ -6,11 +6,14 @@ import com.xiaozhi.ai.stt.providers.*;
 import com.xiaozhi.common.port.TokenResolver;
 import com.xiaozhi.common.model.bo.ConfigBO;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,6 +30,28 @@ public class SttServiceFactory {
     @Resource
     private RuntimePathConfig runtimePathConfig;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // Vosk Recognizer 池容量（最大并发识别数），0 表示取 CPU 核数
+    @Value("${xiaozhi.stt.vosk.pool-size:0}")
+    private int voskPoolSize;
+
+    // 启动时预热的 Recognizer 数量
+    @Value("${xiaozhi.stt.vosk.prewarm:2}")
+    private int voskPrewarm;
+
+    // 池满时等待空闲 Recognizer 的最长时间
+    @Value("${xiaozhi.stt.vosk.acquire-timeout-ms:3000}")
+    private long voskAcquireTimeoutMs;
+
+    // 压测用 stub Provider 的识别延迟与返回文本
+    @Value("${xiaozhi.stub.stt.latency-ms:300}")
+    private long stubLatencyMs;
+
+    @Value("${xiaozhi.stub.stt.text:今天天气怎么样}")
+    private String stubText;
+
     // 缓存已初始化的服务：key format: "provider:configId"
     private final Map<String, SttService> serviceCache = new ConcurrentHashMap<>();
 
@@ -53,6 +78,13 @@ public class SttServiceFactory {
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (serviceCache.get(DEFAULT_PROVIDER) instanceof VoskSttService voskService) {
+            voskService.close();
+        }
+    }
+
     /**
      * 初始化Vosk服务
      */
@@ -64,7 +96,8 @@ public class SttServiceFactory {
         try {
             var voskService = new VoskSttService(
                     runtimePathConfig.resolveNativeLibDir().toString(),
-                    runtimePathConfig.resolveVoskModelDir().toString()
+                    runtimePathConfig.resolveVoskModelDir().toString(),
+                    voskPoolSize, voskPrewarm, voskAcquireTimeoutMs
             );
             voskService.initialize();
             
@@ -74,6 +107,7 @@ public class SttServiceFactory {
             }
             
             serviceCache.put(DEFAULT_PROVIDER, voskService);
+            voskService.getRecognizerPool().bindTo(meterRegistry);
             voskInitialized = true;
             log.info("Vosk STT服务初始化成功");
             return voskService;
@@ -133,6 +167,7 @@ public class SttServiceFactory {
             case "funasr" -> new FunASRSttService(config);
             case "xfyun" -> new XfyunSttService(config);
             case "volcengine" -> new VolcengineSttService(config);
+            case "stub" -> new StubSttService(stubText, stubLatencyMs);
             default -> {
                 var service = initializeVosk();
                 if (service == null) {
@@ -0,0 +1,52 @@
+package com.xiaozhi.ai.stt.providers;
+
+import com.xiaozhi.ai.stt.SttResult;
+import com.xiaozhi.ai.stt.SttService;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 压测用的本地 STT：读完音频流后等待固定延迟，返回固定文本。
+ * 不访问任何外部服务，用于在单机上测量服务端自身的并发能力（见 xiaozhi-benchmarks 的设备模拟器）。
+ */
+@Slf4j
+public class StubSttService implements SttService {
+
+    private static final String PROVIDER_NAME = "stub";
+    private static final Duration RECOGNITION_TIMEOUT = Duration.ofSeconds(90);
+
+    private final String text;
+    private final long latencyMs;
+
+    public StubSttService(String text, long latencyMs) {
+        this.text = text;
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
+    }
+
+    @Override
+    public SttResult stream(Flux<byte[]> audioSink) {
+        // 与真实 Provider 一样等到音频流结束，识别延迟从说完开始计算
+        try {
+            audioSink.then().block(RECOGNITION_TIMEOUT);
+        } catch (Exception e) {
+            log.warn("音频流处理异常: {}", e.getMessage());
+        }
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return SttResult.textOnly("");
+            }
+        }
+        return SttResult.textOnly(text);
+    }
+}
@@ -0,0 +1,177 @@
+package com.xiaozhi.ai.stt.providers;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vosk Recognizer 对象池（按模型 + 采样率）。
+ *
+ * Recognizer 构建需要加载解码图，开销远大于一次 reset()；池内对象用完后 reset 归还，
+ * 启动时预热一部分，避免首批会话承担构建延迟。
+ * 池满时 {@link #acquire(long)} 最多等待给定时间，超时返回 null 由调用方快速失败，
+ * 不再无限排队在识别线程池后面。
+ *
+ * 指标（{@link #bindTo(MeterRegistry)} 注册）：
+ * - xiaozhi.stt.vosk.pool.capacity / in-use / idle：池容量、借出中、空闲的 Recognizer 数
+ * - xiaozhi.stt.vosk.pool.created：累计新建的 Recognizer 数
+ * - xiaozhi.stt.vosk.pool.timeouts：等待空闲 Recognizer 超时的次数
+ * - xiaozhi.stt.vosk.pool.rejected：借出失败的次数（等待超时、被中断或池已关闭）
+ * - xiaozhi.stt.vosk.pool.acquire：成功借出的次数及等待时间
+ */
+@Slf4j
+public class VoskRecognizerPool implements MeterBinder, AutoCloseable {
+
+    private final Model model;
+    private final float sampleRate;
+    private final int maxSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Recognizer> idle = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public VoskRecognizerPool(Model model, float sampleRate, int maxSize, int prewarm) {
+        this.model = model;
+        this.sampleRate = sampleRate;
+        this.maxSize = Math.max(1, maxSize);
+        this.permits = new Semaphore(this.maxSize, true);
+        int warm = Math.min(Math.max(prewarm, 0), this.maxSize);
+        for (int i = 0; i < warm; i++) {
+            try {
+                idle.push(create());
+            } catch (IOException e) {
+                log.warn("Vosk Recognizer预热失败: {}", e.getMessage());
+                break;
+            }
+        }
+        log.info("Vosk Recognizer池已创建 - 容量: {}, 预热: {}, 采样率: {}", this.maxSize, idle.size(), sampleRate);
+    }
+
+    /**
+     * 借出一个 Recognizer
+     *
+     * @param timeoutMs 池满时的最长等待时间
+     * @return Recognizer；超时、被中断或池已关闭时返回 null
+     */
+    public Recognizer acquire(long timeoutMs) throws IOException {
+        if (closed) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                rejected.incrementAndGet();
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return null;
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        acquired.incrementAndGet();
+
+        Recognizer recognizer = idle.poll();
+        if (recognizer != null) {
+            return recognizer;
+        }
+        try {
+            return create();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还 Recognizer。识别出错的对象状态不可信，直接销毁，下次借出时重建
+     *
+     * @param healthy 本次识别是否正常结束
+     */
+    public void release(Recognizer recognizer, boolean healthy) {
+        if (recognizer == null) {
+            return;
+        }
+        try {
+            if (healthy && !closed) {
+                recognizer.reset();
+                idle.push(recognizer);
+            } else {
+                recognizer.close();
+            }
+        } catch (Exception e) {
+            log.warn("Vosk Recognizer归还失败，已丢弃: {}", e.getMessage());
+            recognizer.close();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getInUse() {
+        return maxSize - permits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("xiaozhi.stt.vosk.pool.capacity", this, VoskRecognizerPool::getMaxSize)
+                .description("Vosk Recognizer池容量")
+                .register(registry);
+        Gauge.builder("xiaozhi.stt.vosk.pool.in-use", this, VoskRecognizerPool::getInUse)
+                .description("借出中的Vosk Recognizer数")
+                .register(registry);
+        Gauge.builder("xiaozhi.stt.vosk.pool.idle", idle, ConcurrentLinkedDeque::size)
+                .description("空闲的Vosk Recognizer数")
+                .register(registry);
+        FunctionCounter.builder("xiaozhi.stt.vosk.pool.created", created, AtomicLong::get)
+                .description("累计新建的Vosk Recognizer数")
+                .register(registry);
+        FunctionCounter.builder("xiaozhi.stt.vosk.pool.timeouts", timeouts, AtomicLong::get)
+                .description("等待空闲Vosk Recognizer超时的次数")
+                .register(registry);
+        FunctionCounter.builder("xiaozhi.stt.vosk.pool.rejected", rejected, AtomicLong::get)
+                .description("Vosk Recognizer借出失败的次数")
+                .register(registry);
+        FunctionTimer.builder("xiaozhi.stt.vosk.pool.acquire", this,
+                        pool -> pool.acquired.get(), pool -> pool.waitNanos.get(), TimeUnit.NANOSECONDS)
+                .description("借出Vosk Recognizer的等待时间")
+                .register(registry);
+    }
+
+    private Recognizer create() throws IOException {
+        Recognizer recognizer = new Recognizer(model, sampleRate);
+        created.incrementAndGet();
+        return recognizer;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Recognizer recognizer;
+        while ((recognizer = idle.poll()) != null) {
+            recognizer.close();
+        }
+    }
+}
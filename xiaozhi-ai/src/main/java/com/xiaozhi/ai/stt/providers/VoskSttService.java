@@ -11,6 +11,7 @@ import org.vosk.Model;
 import org.vosk.Recognizer;
 import reactor.core.publisher.Flux;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -20,37 +21,23 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import lombok.extern.slf4j.Slf4j;
 /**
  * Vosk STT服务实现
- * 使用JDK 21虚拟线程实现异步处理
+ * Recognizer 从池中借用、识别结束后 reset 归还，识别任务在与池容量相同的平台线程池中执行
  */
 @Slf4j
 public class VoskSttService implements SttService {
 
     private static final String PROVIDER_NAME = "vosk";
 
-    // 使用平台线程池执行 JNI native 识别任务，避免虚拟线程与 native 内存绑定冲突
-    private static final ExecutorService recognizerExecutor =
-            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-
-    static {
-        // 注册JVM关闭钩子，确保线程池被正确关闭
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            recognizerExecutor.shutdown();
-            try {
-                if (!recognizerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                    recognizerExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                recognizerExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }, "vosk-stt-shutdown"));
-    }
+    // 池满时等待空闲 Recognizer 的默认时间
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MS = 3000;
 
     // Vosk模型相关对象
     private Model model;
@@ -58,9 +45,29 @@ public class VoskSttService implements SttService {
     private boolean modelLoaded = false;
     private final String nativeLibDir;
 
+    // Recognizer 池容量同时决定识别线程数，借到 Recognizer 的请求才会提交，线程池不会积压
+    private final int poolSize;
+    private final int prewarm;
+    private final long acquireTimeoutMs;
+    private VoskRecognizerPool recognizerPool;
+    private ExecutorService recognizerExecutor;
+
     public VoskSttService(String nativeLibDir, String voskModelDir) {
+        this(nativeLibDir, voskModelDir, Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_ACQUIRE_TIMEOUT_MS);
+    }
+
+    /**
+     * @param poolSize         Recognizer 池容量，即最大并发识别数，不大于 0 时取 CPU 核数
+     * @param prewarm          启动时预先构建的 Recognizer 数量
+     * @param acquireTimeoutMs 池满时等待空闲 Recognizer 的最长时间，超时本次识别直接失败
+     */
+    public VoskSttService(String nativeLibDir, String voskModelDir, int poolSize, int prewarm, long acquireTimeoutMs) {
         this.nativeLibDir = nativeLibDir;
         this.voskModelPath = voskModelDir;
+        this.poolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.prewarm = prewarm;
+        this.acquireTimeoutMs = acquireTimeoutMs;
     }
 
     /**
@@ -93,6 +100,10 @@ public class VoskSttService implements SttService {
                 throw new Exception("Vosk model directory not found: " + voskModelPath);
             }
             model = new Model(voskModelPath);
+            recognizerPool = new VoskRecognizerPool(model, AudioUtils.SAMPLE_RATE, poolSize, prewarm);
+            // 使用平台线程执行 JNI native 识别任务，避免虚拟线程与 native 内存绑定冲突
+            recognizerExecutor = Executors.newFixedThreadPool(poolSize, Thread.ofPlatform()
+                    .name("vosk-stt-", 0).daemon(true).factory());
             modelLoaded = true;
             log.info("Vosk 模型加载成功！路径: {}", voskModelPath);
         } catch (Exception e) {
@@ -111,6 +122,25 @@ public class VoskSttService implements SttService {
         return modelLoaded && model != null;
     }
 
+    /**
+     * Recognizer 池，模型未加载时返回 null
+     */
+    public VoskRecognizerPool getRecognizerPool() {
+        return recognizerPool;
+    }
+
+    /**
+     * 释放 Recognizer 池和识别线程
+     */
+    public void close() {
+        if (recognizerExecutor != null) {
+            recognizerExecutor.shutdownNow();
+        }
+        if (recognizerPool != null) {
+            recognizerPool.close();
+        }
+    }
+
     @Override
     public String getProviderName() {
         return PROVIDER_NAME;
@@ -118,16 +148,46 @@ public class VoskSttService implements SttService {
 
     @Override
     public SttResult stream(Flux<byte[]> audioSink) {
+        return stream(audioSink, null);
+    }
+
+    @Override
+    public boolean supportsPartialResults() {
+        return true;
+    }
+
+    /**
+     * 流式识别。每喂入一段音频后读取 Vosk 的 partial 结果，
+     * 与已确定的分段结果拼接成当前完整假设，文本变化时回调 partialListener。
+     */
+    @Override
+    public SttResult stream(Flux<byte[]> audioSink, Consumer<String> partialListener) {
         if (!isModelLoaded()) {
             log.error("Vosk模型未加载，无法进行流式识别！");
             return null;
         }
 
+        // 先借 Recognizer 再订阅音频：池满时在这里等待，超时直接失败，避免任务在线程池中无限排队
+        Recognizer recognizer;
+        try {
+            recognizer = recognizerPool.acquire(acquireTimeoutMs);
+        } catch (IOException e) {
+            log.error("创建Vosk Recognizer失败", e);
+            return null;
+        }
+        if (recognizer == null) {
+            log.warn("Vosk Recognizer池已满，本次识别被拒绝 - 借出: {}/{}",
+                    recognizerPool.getInUse(), recognizerPool.getMaxSize());
+            return null;
+        }
+
         // 使用阻塞队列存储音频数据
         BlockingQueue<byte[]> audioQueue = new LinkedBlockingQueue<>();
         AtomicBoolean isCompleted = new AtomicBoolean(false);
         List<String> recognizedText = new ArrayList<>();
         StringBuilder finalResult = new StringBuilder();
+        // 上一次回调的完整假设，只在文本变化时回调
+        String[] lastHypothesis = new String[1];
 
         // 订阅Sink并将数据放入队列
         audioSink.subscribe(
@@ -140,54 +200,74 @@ public class VoskSttService implements SttService {
         );
 
         // 使用平台线程池执行识别任务，避免虚拟线程与 JNI native 内存绑定冲突
-        Future<?> future = recognizerExecutor.submit(() -> {
-            try (Recognizer recognizer = new Recognizer(model, AudioUtils.SAMPLE_RATE)) {
-                while (!isCompleted.get() || !audioQueue.isEmpty()) {
-                    try {
-                        byte[] audioChunk = audioQueue.poll(100, TimeUnit.MILLISECONDS);
-                        if (audioChunk != null) {
-                            boolean hasResult = recognizer.acceptWaveForm(audioChunk, audioChunk.length);
-                            if (hasResult) {
-                                // 提取部分识别结果中的文本
-                                String result = recognizer.getResult();
-                                JSONObject jsonResult = new JSONObject(result);
-                                if (jsonResult.has("text") && !jsonResult.getString("text").isEmpty()) {
-                                    String text = jsonResult.getString("text").replaceAll("\\s+", "");
-                                    recognizedText.add(text);
-                                    log.debug("Vosk识别中间结果: {}", text);
+        Future<?> future;
+        try {
+            future = recognizerExecutor.submit(() -> {
+                boolean healthy = false;
+                try {
+                    while (!isCompleted.get() || !audioQueue.isEmpty()) {
+                        try {
+                            byte[] audioChunk = audioQueue.poll(100, TimeUnit.MILLISECONDS);
+                            if (audioChunk != null) {
+                                boolean hasResult = recognizer.acceptWaveForm(audioChunk, audioChunk.length);
+                                if (hasResult) {
+                                    // 提取部分识别结果中的文本
+                                    String result = recognizer.getResult();
+                                    JSONObject jsonResult = new JSONObject(result);
+                                    if (jsonResult.has("text") && !jsonResult.getString("text").isEmpty()) {
+                                        String text = jsonResult.getString("text").replaceAll("\\s+", "");
+                                        recognizedText.add(text);
+                                        log.debug("Vosk识别中间结果: {}", text);
+                                    }
+                                } else if (partialListener != null) {
+                                    JSONObject jsonPartial = new JSONObject(recognizer.getPartialResult());
+                                    String partial = jsonPartial.optString("partial", "").replaceAll("\\s+", "");
+                                    String hypothesis = String.join("", recognizedText) + partial;
+                                    if (!hypothesis.isEmpty() && !hypothesis.equals(lastHypothesis[0])) {
+                                        lastHypothesis[0] = hypothesis;
+                                        notifyPartial(partialListener, hypothesis);
+                                    }
                                 }
                             }
-                        }
 
-                        // 如果已完成且队列为空，获取最终结果
-                        if (isCompleted.get() && audioQueue.isEmpty()) {
-                            String finalText = recognizer.getFinalResult();
-                            JSONObject jsonFinal = new JSONObject(finalText);
-                            if (jsonFinal.has("text")) {
-                                String text = jsonFinal.getString("text").replaceAll("\\s+", "");
-                                if (!text.isEmpty()) {
-                                    recognizedText.add(text);
-                                    log.debug("Vosk识别最终结果: {}", text);
+                            // 如果已完成且队列为空，获取最终结果
+                            if (isCompleted.get() && audioQueue.isEmpty()) {
+                                String finalText = recognizer.getFinalResult();
+                                JSONObject jsonFinal = new JSONObject(finalText);
+                                if (jsonFinal.has("text")) {
+                                    String text = jsonFinal.getString("text").replaceAll("\\s+", "");
+                                    if (!text.isEmpty()) {
+                                        recognizedText.add(text);
+                                        log.debug("Vosk识别最终结果: {}", text);
+                                    }
                                 }
+                                break;
                             }
+                        } catch (InterruptedException e) {
+                            log.warn("音频数据队列等待被中断", e);
+                            Thread.currentThread().interrupt();
                             break;
                         }
-                    } catch (InterruptedException e) {
-                        log.warn("音频数据队列等待被中断", e);
-                        Thread.currentThread().interrupt();
-                        break;
                     }
-                }
 
-                // 合并所有识别结果
-                for (String text : recognizedText) {
-                    finalResult.append(text);
-                }
+                    // 合并所有识别结果
+                    for (String text : recognizedText) {
+                        finalResult.append(text);
+                    }
+                    healthy = !Thread.currentThread().isInterrupted();
 
-            } catch (Exception e) {
-                log.error("Vosk流式识别过程中发生错误", e);
-            }
-        });
+                } catch (Exception e) {
+                    log.error("Vosk流式识别过程中发生错误", e);
+                } finally {
+                    // 识别线程负责归还，超时取消时也不会出现 Recognizer 仍在使用就被复用的情况
+                    recognizerPool.release(recognizer, healthy);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recognizerPool.release(recognizer, true);
+            log.error("Vosk识别任务提交失败: {}", e.getMessage());
+            return null;
+        }
 
         try {
             future.get(90, TimeUnit.SECONDS);
@@ -202,4 +282,13 @@ public class VoskSttService implements SttService {
 
         return SttResult.textOnly(finalResult.toString());
     }
+
+    private void notifyPartial(Consumer<String> partialListener, String hypothesis) {
+        try {
+            partialListener.accept(hypothesis);
+        } catch (Exception e) {
+            // 回调异常不影响识别本身
+            log.warn("Vosk中间结果回调失败: {}", e.getMessage());
+        }
+    }
 }
@@ -7,9 +7,12 @@ import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProces
 import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
 import org.springframework.ai.tool.resolution.ToolCallbackResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class ToolCallConfig {
 
@@ -19,10 +22,12 @@ public class ToolCallConfig {
     @Bean
     public ToolCallingManager toolCallingManager(ObservationRegistry observationRegistry,
                                                  @Autowired(required = false) ToolCallbackResolver toolCallbackResolver,
-                                                 @Autowired(required = false) ToolExecutionExceptionProcessor toolExecutionExceptionProcessor) {
+                                                 @Autowired(required = false) ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                                 @Value("${xiaozhi.tool.call-timeout-ms:35000}") long toolCallTimeoutMs) {
         return new XiaoZhiToolCallingManager(observationRegistry,
                 toolCallbackResolver != null ? toolCallbackResolver : name -> null,
-                toolExecutionExceptionProcessor == null ? defaultToolExecutionExceptionProcessor : toolExecutionExceptionProcessor);
+                toolExecutionExceptionProcessor == null ? defaultToolExecutionExceptionProcessor : toolExecutionExceptionProcessor,
+                Duration.ofMillis(toolCallTimeoutMs));
     }
 
     /**
@@ -33,7 +33,14 @@ import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import lombok.extern.slf4j.Slf4j;
 /**
@@ -43,6 +50,9 @@ import lombok.extern.slf4j.Slf4j;
  * 包含对流式工具调用分片合并的修复（Spring AI issue #4629, #4790）。
  * 该问题在 Spring AI 1.1.4 中仍未修复，mergeToolCalls 方法作为必要的修复保留。
  * <p>
+ * 同一条 assistant 消息中的多个工具调用彼此独立，在虚拟线程上并发执行，整轮受 toolCallTimeout 限制，
+ * 超时未返回的工具以超时结果回填；工具结果始终按模型给出的调用顺序写回，保证后续 prompt 稳定。
+ * <p>
  * TODO: [Spring AI 升级追踪] 持续关注后续版本是否修复分片问题，届时可移除 mergeToolCalls 方法。
  */
 @Slf4j
@@ -64,24 +74,42 @@ public class XiaoZhiToolCallingManager implements ToolCallingManager, Applicatio
     private static final ToolExecutionExceptionProcessor DEFAULT_TOOL_EXECUTION_EXCEPTION_PROCESSOR
             = DefaultToolExecutionExceptionProcessor.builder().build();
 
+    // 略长于设备端 MCP 调用的 30s 超时，让设备侧的超时结果优先返回
+    private static final Duration DEFAULT_TOOL_CALL_TIMEOUT = Duration.ofSeconds(35);
+
     // @formatter:on
+
+    // 并发执行工具调用的虚拟线程
+    private static final ExecutorService TOOL_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("tool-call-", 0).factory());
+
     private final ObservationRegistry observationRegistry;
 
     private final ToolCallbackResolver toolCallbackResolver;
 
     private final ToolExecutionExceptionProcessor toolExecutionExceptionProcessor;
 
+    private final Duration toolCallTimeout;
+
     private ToolCallingObservationConvention observationConvention = DEFAULT_OBSERVATION_CONVENTION;
 
     public XiaoZhiToolCallingManager(ObservationRegistry observationRegistry, ToolCallbackResolver toolCallbackResolver,
                                      ToolExecutionExceptionProcessor toolExecutionExceptionProcessor) {
+        this(observationRegistry, toolCallbackResolver, toolExecutionExceptionProcessor, DEFAULT_TOOL_CALL_TIMEOUT);
+    }
+
+    public XiaoZhiToolCallingManager(ObservationRegistry observationRegistry, ToolCallbackResolver toolCallbackResolver,
+                                     ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                     Duration toolCallTimeout) {
         Assert.notNull(observationRegistry, "observationRegistry cannot be null");
         Assert.notNull(toolCallbackResolver, "toolCallbackResolver cannot be null");
         Assert.notNull(toolExecutionExceptionProcessor, "toolCallExceptionConverter cannot be null");
+        Assert.isTrue(toolCallTimeout != null && toolCallTimeout.toMillis() > 0, "toolCallTimeout must be positive");
 
         this.observationRegistry = observationRegistry;
         this.toolCallbackResolver = toolCallbackResolver;
         this.toolExecutionExceptionProcessor = toolExecutionExceptionProcessor;
+        this.toolCallTimeout = toolCallTimeout;
     }
 
     @Override
@@ -107,12 +135,11 @@ public class XiaoZhiToolCallingManager implements ToolCallingManager, Applicatio
      * 发布工具调用事件
      */
     private static void publishToolEvent(String sessionId, String toolName, String arguments,
-                                          String result, boolean success, long startTimeMs) {
+                                          String result, boolean success, long durationMs) {
         if (applicationContext == null) {
             return;
         }
         try {
-            long durationMs = startTimeMs > 0 ? System.currentTimeMillis() - startTimeMs : 0;
             applicationContext.publishEvent(new ToolCallCompletedEvent(
                     XiaoZhiToolCallingManager.class, sessionId, toolName, arguments, result, success, durationMs));
         } catch (Exception e) {
@@ -328,94 +355,183 @@ public class XiaoZhiToolCallingManager implements ToolCallingManager, Applicatio
             toolCallbacks = toolCallingChatOptions.getToolCallbacks();
         }
 
-        List<ToolResponseMessage.ToolResponse> toolResponses = new ArrayList<>();
-
-        Boolean returnDirect = null;
+        // 通过 sessionId 获取 ToolSession（Persona 只传 sessionId 避免序列化问题）
+        String sessionId = toolContext.getContext().get("sessionId") instanceof String s ? s : null;
+        ToolSession toolSession = null;
+        if (sessionId != null) {
+            ToolSessionProvider provider = sessionProvider();
+            toolSession = provider != null ? provider.getSession(sessionId) : null;
+        }
 
-        for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        ToolCallback[] resolved = new ToolCallback[toolCalls.size()];
 
-            String toolName = toolCall.name();
-            String toolInputArguments = toolCall.arguments();
+        Boolean returnDirect = null;
 
+        for (int i = 0; i < toolCalls.size(); i++) {
+            String toolName = toolCalls.get(i).name();
             ToolCallback toolCallback = toolCallbacks.stream()
                     .filter(tool -> toolName.equals(tool.getToolDefinition().name()))
                     .findFirst()
                     .orElseGet(() -> this.toolCallbackResolver.resolve(toolName));
+            resolved[i] = toolCallback;
 
             if (toolCallback == null) {
-                // 模型幻觉调用了未注册的工具，返回错误结果让模型自行总结回复，而不是崩掉整个流
-                log.error("模型调用了未注册的工具: {}", toolName);
-                toolResponses.add(new ToolResponseMessage.ToolResponse(
-                        toolCall.id(), toolName,
-                        "工具 '" + toolName + "' 不存在或未注册，请告知用户该功能当前不可用。"));
                 continue;
             }
-
             if (returnDirect == null) {
                 returnDirect = toolCallback.getToolMetadata().returnDirect();
             }
             else {
                 returnDirect = returnDirect && toolCallback.getToolMetadata().returnDirect();
             }
+        }
 
-            ToolCallingObservationContext observationContext = ToolCallingObservationContext.builder()
-                    .toolDefinition(toolCallback.getToolDefinition())
-                    .toolMetadata(toolCallback.getToolMetadata())
-                    .toolCallArguments(toolInputArguments)
-                    .build();
-            // 通过 sessionId 获取 ToolSession（Persona 只传 sessionId 避免序列化问题）
-            String sessionId = toolContext.getContext().get("sessionId") instanceof String s ? s : null;
-            ToolSession toolSession = null;
-            if (sessionId != null) {
-                toolSession = sessionProvider() != null ? sessionProvider().getSession(sessionId) : null;
-                observationContext.put("sessionId", sessionId);
+        CallOutcome[] outcomes = invokeAll(toolCalls, resolved, toolContext, sessionId);
+
+        // 按模型给出的调用顺序回填结果，与各工具的完成先后无关
+        List<ToolResponseMessage.ToolResponse> toolResponses = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            String toolName = toolCall.name();
+            String toolInputArguments = toolCall.arguments();
+
+            if (resolved[i] == null) {
+                // 模型幻觉调用了未注册的工具，返回错误结果让模型自行总结回复，而不是崩掉整个流
+                log.error("模型调用了未注册的工具: {}", toolName);
+                toolResponses.add(new ToolResponseMessage.ToolResponse(
+                        toolCall.id(), toolName,
+                        "工具 '" + toolName + "' 不存在或未注册，请告知用户该功能当前不可用。"));
+                continue;
             }
 
-            // 记录工具调用开始时间
-            final long[] startTimeRef = new long[]{System.currentTimeMillis()};
-            final boolean[] successRef = new boolean[]{true};
-
-            String toolCallResult = ToolCallingObservationDocumentation.TOOL_CALL
-                    .observation(this.observationConvention, DEFAULT_OBSERVATION_CONVENTION, () -> observationContext,
-                            this.observationRegistry)
-                    .observe(() -> {
-                        String toolResult;
-                        try {
-                            toolResult = toolCallback.call(toolInputArguments, toolContext);
-                        }
-                        catch (ToolExecutionException ex) {
-                            log.error("Tool execution exception: ", ex);
-                            toolResult = this.toolExecutionExceptionProcessor.process(ex);
-                            log.debug("Processed tool execution exception result: {}", toolResult);
-                            successRef[0] = false;
-                        }
-                        catch (Exception ex) {
-                            log.error("Unexpected exception during tool execution: ", ex);
-                            toolResult = "Error executing tool: " + ex.getMessage();
-                            successRef[0] = false;
-                        }
-                        observationContext.setToolCallResult(toolResult);
-
-                        return toolResult;
-                    });
+            CallOutcome outcome = outcomes[i];
 
             // 记录工具调用详情到session
             if (toolSession != null) {
-                toolSession.addToolCallDetail(toolName, toolInputArguments, toolCallResult);
+                toolSession.addToolCallDetail(toolName, toolInputArguments, outcome.result());
             }
 
             // 发布工具调用事件
-            publishToolEvent(sessionId, toolName, toolInputArguments, toolCallResult,
-                    successRef[0], startTimeRef[0]);
+            publishToolEvent(sessionId, toolName, toolInputArguments, outcome.result(),
+                    outcome.success(), outcome.durationMs());
 
             toolResponses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolName,
-                    toolCallResult != null ? toolCallResult : ""));
+                    outcome.result() != null ? outcome.result() : ""));
         }
 
         return new XiaoZhiToolCallingManager.ToolExecResult(ToolResponseMessage.builder().responses(toolResponses).build(),
                 returnDirect != null && returnDirect);
     }
 
+    /**
+     * 执行所有已解析到的工具调用。只有一个工具时直接在当前线程执行；
+     * 多个工具时并发提交到虚拟线程，整批共享 toolCallTimeout 截止时间，超时的工具被中断并以超时结果回填。
+     *
+     * @return 与 toolCalls 下标对应的执行结果，未注册的工具对应 null
+     */
+    private CallOutcome[] invokeAll(List<AssistantMessage.ToolCall> toolCalls, ToolCallback[] resolved,
+                                    ToolContext toolContext, String sessionId) {
+        CallOutcome[] outcomes = new CallOutcome[toolCalls.size()];
+        int runnable = 0;
+        for (ToolCallback callback : resolved) {
+            if (callback != null) {
+                runnable++;
+            }
+        }
+
+        if (runnable <= 1) {
+            for (int i = 0; i < resolved.length; i++) {
+                if (resolved[i] != null) {
+                    outcomes[i] = invokeTool(toolCalls.get(i), resolved[i], toolContext, sessionId);
+                }
+            }
+            return outcomes;
+        }
+
+        List<Future<CallOutcome>> futures = new ArrayList<>(resolved.length);
+        for (int i = 0; i < resolved.length; i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            ToolCallback toolCallback = resolved[i];
+            futures.add(toolCallback == null ? null
+                    : TOOL_EXECUTOR.submit(() -> invokeTool(toolCall, toolCallback, toolContext, sessionId)));
+        }
+
+        long deadline = System.nanoTime() + toolCallTimeout.toNanos();
+        for (int i = 0; i < futures.size(); i++) {
+            Future<CallOutcome> future = futures.get(i);
+            if (future == null) {
+                continue;
+            }
+            String toolName = toolCalls.get(i).name();
+            try {
+                outcomes[i] = future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("工具执行超时，已中断: {}, 超时: {}ms", toolName, toolCallTimeout.toMillis());
+                outcomes[i] = new CallOutcome("工具 '" + toolName + "' 执行超时，请告知用户该操作暂时没有结果。",
+                        false, toolCallTimeout.toMillis());
+            } catch (ExecutionException e) {
+                log.error("Unexpected exception during tool execution: ", e.getCause());
+                outcomes[i] = new CallOutcome("Error executing tool: " + e.getCause().getMessage(), false, 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                outcomes[i] = new CallOutcome("Error executing tool: interrupted", false, 0);
+                // 当前对话被打断，后续工具直接判超时不再等待
+                deadline = System.nanoTime();
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * 在观测上下文中执行单个工具，工具异常转换为结果文本而不是向外抛出
+     */
+    private CallOutcome invokeTool(AssistantMessage.ToolCall toolCall, ToolCallback toolCallback,
+                                   ToolContext toolContext, String sessionId) {
+        String toolInputArguments = toolCall.arguments();
+
+        ToolCallingObservationContext observationContext = ToolCallingObservationContext.builder()
+                .toolDefinition(toolCallback.getToolDefinition())
+                .toolMetadata(toolCallback.getToolMetadata())
+                .toolCallArguments(toolInputArguments)
+                .build();
+        if (sessionId != null) {
+            observationContext.put("sessionId", sessionId);
+        }
+
+        // 记录工具调用开始时间
+        final long startTime = System.currentTimeMillis();
+        final boolean[] successRef = new boolean[]{true};
+
+        String toolCallResult = ToolCallingObservationDocumentation.TOOL_CALL
+                .observation(this.observationConvention, DEFAULT_OBSERVATION_CONVENTION, () -> observationContext,
+                        this.observationRegistry)
+                .observe(() -> {
+                    String toolResult;
+                    try {
+                        toolResult = toolCallback.call(toolInputArguments, toolContext);
+                    }
+                    catch (ToolExecutionException ex) {
+                        log.error("Tool execution exception: ", ex);
+                        toolResult = this.toolExecutionExceptionProcessor.process(ex);
+                        log.debug("Processed tool execution exception result: {}", toolResult);
+                        successRef[0] = false;
+                    }
+                    catch (Exception ex) {
+                        log.error("Unexpected exception during tool execution: ", ex);
+                        toolResult = "Error executing tool: " + ex.getMessage();
+                        successRef[0] = false;
+                    }
+                    observationContext.setToolCallResult(toolResult);
+
+                    return toolResult;
+                });
+
+        return new CallOutcome(toolCallResult, successRef[0], System.currentTimeMillis() - startTime);
+    }
+
     private List<Message> buildPostToolHistory(List<Message> previousMessages,
                                                                      AssistantMessage assistantMessage, ToolResponseMessage toolResponseMessage) {
         List<Message> messages = new ArrayList<>(previousMessages);
@@ -450,6 +566,9 @@ public class XiaoZhiToolCallingManager implements ToolCallingManager, Applicatio
     private record ToolExecResult(ToolResponseMessage toolResponseMessage, boolean returnDirect) {
     }
 
+    private record CallOutcome(String result, boolean success, long durationMs) {
+    }
+
     public final static class Builder {
 
         private ObservationRegistry observationRegistry = DEFAULT_OBSERVATION_REGISTRY;
@@ -458,6 +577,8 @@ public class XiaoZhiToolCallingManager implements ToolCallingManager, Applicatio
 
         private ToolExecutionExceptionProcessor toolExecutionExceptionProcessor = DEFAULT_TOOL_EXECUTION_EXCEPTION_PROCESSOR;
 
+        private Duration toolCallTimeout = DEFAULT_TOOL_CALL_TIMEOUT;
+
         private Builder() {
         }
 
@@ -477,9 +598,14 @@ public class XiaoZhiToolCallingManager implements ToolCallingManager, Applicatio
             return this;
         }
 
+        public XiaoZhiToolCallingManager.Builder toolCallTimeout(Duration toolCallTimeout) {
+            this.toolCallTimeout = toolCallTimeout;
+            return this;
+        }
+
         public XiaoZhiToolCallingManager build() {
             return new XiaoZhiToolCallingManager(this.observationRegistry, this.toolCallbackResolver,
-                    this.toolExecutionExceptionProcessor);
+                    this.toolExecutionExceptionProcessor, this.toolCallTimeout);
         }
 
     }
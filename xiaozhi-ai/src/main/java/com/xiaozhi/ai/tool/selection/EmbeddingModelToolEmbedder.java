@@ -0,0 +1,29 @@
+package com.xiaozhi.ai.tool.selection;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+/**
+ * 基于已配置向量模型（OpenAI / Ollama / 智谱等 EmbeddingModel）的 embedder
+ */
+public class EmbeddingModelToolEmbedder implements ToolEmbedder {
+
+    private final EmbeddingModel embeddingModel;
+    private final String name;
+
+    public EmbeddingModelToolEmbedder(EmbeddingModel embeddingModel, String name) {
+        this.embeddingModel = embeddingModel;
+        this.name = name;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = embeddingModel.embed(text);
+        HashingToolEmbedder.normalizeInPlace(vector);
+        return vector;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
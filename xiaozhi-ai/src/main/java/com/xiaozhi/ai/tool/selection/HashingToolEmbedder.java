@@ -0,0 +1,107 @@
+package com.xiaozhi.ai.tool.selection;
+
+import java.util.Locale;
+
+/**
+ * 本地确定性的 embedder：把字符一元组、二元组哈希到固定维度再归一化。
+ *
+ * 不依赖任何外部模型，结果只取决于输入文本，用于测试和未配置向量模型时的兜底。
+ * 对中文按字切分，工具名里的下划线/驼峰拆成词，能覆盖"播放音乐"对 play_music 描述这类字面重合的场景。
+ */
+public class HashingToolEmbedder implements ToolEmbedder {
+
+    public static final int DEFAULT_DIMENSIONS = 256;
+
+    private final int dimensions;
+
+    public HashingToolEmbedder() {
+        this(DEFAULT_DIMENSIONS);
+    }
+
+    public HashingToolEmbedder(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive");
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        if (text == null || text.isEmpty()) {
+            return vector;
+        }
+        String normalized = normalize(text);
+        int prev = -1;
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp == ' ') {
+                prev = -1;
+                continue;
+            }
+            add(vector, cp, 1.0f);
+            if (prev >= 0) {
+                // 二元组权重更高，区分"播放"和"放弃"这类共享单字的词
+                add(vector, prev * 31 + cp, 2.0f);
+            }
+            prev = cp;
+        }
+        normalizeInPlace(vector);
+        return vector;
+    }
+
+    @Override
+    public String getName() {
+        return "hashing-" + dimensions;
+    }
+
+    private void add(float[] vector, int feature, float weight) {
+        int hash = mix(feature);
+        int index = Math.floorMod(hash, dimensions);
+        // 用哈希的另一位决定符号，减少碰撞带来的偏差
+        vector[index] += (hash & 0x40000000) == 0 ? weight : -weight;
+    }
+
+    private static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        char last = ' ';
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isUpperCase(c) && Character.isLowerCase(last)) {
+                sb.append(' ');
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else {
+                c = ' ';
+                sb.append(c);
+            }
+            last = c;
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static void normalizeInPlace(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum == 0) {
+            return;
+        }
+        float norm = (float) Math.sqrt(sum);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.xiaozhi.ai.tool.selection;
+
+/**
+ * 工具预筛选使用的文本向量化接口。
+ * 返回的向量需要 L2 归一化，{@link ToolPreSelector} 直接用点积作为余弦相似度。
+ */
+public interface ToolEmbedder {
+
+    /**
+     * 向量化一段文本（工具描述或用户话语）
+     * @param text 文本
+     * @return 归一化后的向量
+     */
+    float[] embed(String text);
+
+    /**
+     * 向量来源名称，用于日志
+     */
+    String getName();
+}
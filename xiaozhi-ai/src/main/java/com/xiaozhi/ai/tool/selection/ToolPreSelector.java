@@ -0,0 +1,188 @@
+package com.xiaozhi.ai.tool.selection;
+
+import com.xiaozhi.ai.llm.factory.ChatModelFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工具预筛选：每轮对话前按用户话语与工具描述的向量相似度挑出 top-K 个工具，只把这部分工具定义发给模型。
+ *
+ * 全局函数、MCP 工具、设备 MCP 工具、IoT 函数全部下发时，工具定义本身就占据大量 prompt token，拖慢首 token。
+ * - 工具向量按 名称+描述 缓存，只在第一次出现时计算
+ * - 工具数不超过 min-tools 时不筛选
+ * - 最高相似度低于 min-score 时认为判断不可靠，回退到全量工具
+ * - always-include 中的工具（如退出会话）始终保留
+ * - 筛选结果保持原有顺序，不打乱 prompt 前缀
+ *
+ * 默认使用本地 {@link HashingToolEmbedder}；配置 embedding-config-id 后改用对应的向量模型。
+ *
+ * 指标 xiaozhi.tool.preselect 按 result 标签计数：selected（完成筛选）、low-score（置信度不足回退）、error（筛选异常回退）。
+ */
+@Slf4j
+@Component
+public class ToolPreSelector {
+
+    /** 工具向量缓存上限，设备 MCP 工具描述各不相同，避免无限增长 */
+    private static final int MAX_CACHED_TOOLS = 4096;
+
+    @Value("${xiaozhi.tool.preselect.enabled:false}")
+    private boolean enabled;
+
+    @Value("${xiaozhi.tool.preselect.top-k:8}")
+    private int topK;
+
+    @Value("${xiaozhi.tool.preselect.min-tools:12}")
+    private int minTools;
+
+    @Value("${xiaozhi.tool.preselect.min-score:0.15}")
+    private double minScore;
+
+    @Value("${xiaozhi.tool.preselect.always-include:exit_session}")
+    private String[] alwaysInclude;
+
+    /** 向量模型配置ID，不配置时使用本地 embedder */
+    @Value("${xiaozhi.tool.preselect.embedding-config-id:#{null}}")
+    private Integer embeddingConfigId;
+
+    @Resource
+    private ChatModelFactory chatModelFactory;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ToolEmbedder embedder = new HashingToolEmbedder();
+    private Set<String> pinned = Set.of();
+    private final Map<String, float[]> toolVectors = new ConcurrentHashMap<>();
+
+    private Counter selected;
+    private Counter lowScore;
+    private Counter failed;
+
+    @PostConstruct
+    public void init() {
+        pinned = alwaysInclude == null ? Set.of() : Set.copyOf(Arrays.stream(alwaysInclude)
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList());
+        selected = preselectCounter("selected");
+        lowScore = preselectCounter("low-score");
+        failed = preselectCounter("error");
+        if (!enabled) {
+            return;
+        }
+        if (embeddingConfigId != null) {
+            try {
+                embedder = new EmbeddingModelToolEmbedder(chatModelFactory.getEmbeddingModel(embeddingConfigId),
+                        "config-" + embeddingConfigId);
+            } catch (Exception e) {
+                log.warn("工具预筛选向量模型初始化失败，使用本地 embedder - configId: {}, 原因: {}",
+                        embeddingConfigId, e.getMessage());
+            }
+        }
+        log.info("工具预筛选已启用 - embedder: {}, topK: {}, minTools: {}, minScore: {}",
+                embedder.getName(), topK, minTools, minScore);
+    }
+
+    /**
+     * 替换 embedder，用于测试或接入自定义向量来源
+     */
+    public void setEmbedder(ToolEmbedder embedder) {
+        this.embedder = embedder;
+        toolVectors.clear();
+    }
+
+    /**
+     * 为本轮用户话语挑选工具子集
+     *
+     * @param utterance 用户话语
+     * @param tools 当前会话的全部工具
+     * @return 筛选后的工具，未启用、工具较少或置信度不足时原样返回
+     */
+    public List<ToolCallback> select(String utterance, List<ToolCallback> tools) {
+        if (!enabled || tools == null || tools.size() <= minTools || tools.size() <= topK
+                || !StringUtils.hasText(utterance)) {
+            return tools;
+        }
+        try {
+            float[] query = embedder.embed(utterance);
+            double[] scores = new double[tools.size()];
+            for (int i = 0; i < tools.size(); i++) {
+                scores[i] = dot(query, toolVector(tools.get(i).getToolDefinition()));
+            }
+
+            Integer[] order = new Integer[tools.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+            if (scores[order[0]] < minScore) {
+                lowScore.increment();
+                log.debug("工具预筛选置信度不足，使用全部工具 - 最高分: {}", scores[order[0]]);
+                return tools;
+            }
+
+            boolean[] keep = new boolean[tools.size()];
+            for (int i = 0; i < topK; i++) {
+                keep[order[i]] = true;
+            }
+            List<ToolCallback> subset = new ArrayList<>(topK + pinned.size());
+            for (int i = 0; i < tools.size(); i++) {
+                if (keep[i] || pinned.contains(tools.get(i).getToolDefinition().name())) {
+                    subset.add(tools.get(i));
+                }
+            }
+            selected.increment();
+            log.debug("工具预筛选: {} → {} 个工具", tools.size(), subset.size());
+            return subset;
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("工具预筛选失败，使用全部工具: {}", e.getMessage());
+            return tools;
+        }
+    }
+
+    private Counter preselectCounter(String result) {
+        return Counter.builder("xiaozhi.tool.preselect")
+                .description("工具预筛选次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private float[] toolVector(ToolDefinition definition) {
+        String text = definition.name() + "\n" + definition.description();
+        float[] vector = toolVectors.get(text);
+        if (vector == null) {
+            if (toolVectors.size() >= MAX_CACHED_TOOLS) {
+                toolVectors.clear();
+            }
+            vector = embedder.embed(text);
+            toolVectors.put(text, vector);
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        int n = Math.min(a.length, b.length);
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -7,8 +7,6 @@ import reactor.core.publisher.FluxSink;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 句子处理帮助类，统一分句逻辑。
@@ -24,29 +22,25 @@ public class SentenceHelper implements ChatConverter {
      * 分句结果，包含去除表情符号后的纯文本和提取的情绪词。
      */
     public record SentenceResult(String text, String mood) {}
-    // 句子结束标点符号模式（中英文句号、感叹号、问号）
-    private static final Pattern SENTENCE_END_PATTERN = Pattern.compile("[。！？!?]");
-
-    // 逗号、分号等停顿标点
-    private static final Pattern PAUSE_PATTERN = Pattern.compile("[，、；,;]");
-
-    // 冒号和引号等特殊标点
-    private static final Pattern SPECIAL_PATTERN = Pattern.compile("[：:\"]");
-
-    // 换行符
-    private static final Pattern NEWLINE_PATTERN = Pattern.compile("[\n\r]");
-
-    // 数字模式（用于检测小数点是否在数字中）
-    private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+\\.\\d+");
 
     // 最小句子长度（字符数）
     private static final int MIN_SENTENCE_LENGTH = 8;
 
-    // 上下文缓冲区最大长度（用于数字小数点检测等上下文判断）
-    private static final int CONTEXT_BUFFER_MAX_LENGTH = 20;
+    // 颜文字括号内最多字符数，与 EmojiUtils 中颜文字模式的 {1,10} 一致
+    private static final int MAX_KAOMOJI_INNER = 10;
 
     private final StringBuilder currentSentence = new StringBuilder();
-    private final StringBuilder contextBuffer = new StringBuilder();
+
+    // 以下为当前句子的颜文字扫描状态，句子清空时重置
+    // 当前句子已出现过颜文字：句子只增不减，出现后直到清空都成立
+    private boolean kaomojiSeen;
+    // 当前字符在句子中的码点序号
+    private int position = -1;
+    // 最近三个码点，prev1 为紧挨着的前一个
+    private int prev1 = -1, prev2 = -1, prev3 = -1;
+    // 上一个右括号之后最近两个左括号的位置，-1 表示没有
+    private int parenOpen = -1, parenOpenBefore = -1;
+    private int angleOpen = -1, angleOpenBefore = -1;
 
     public SentenceHelper() {
     }
@@ -54,6 +48,9 @@ public class SentenceHelper implements ChatConverter {
     /**
      * 命令式分句：逐 token 输入，返回检测到的完整句子，未成句则返回空字符串。
      * 供 TTS Provider 内部 WebSocket 订阅回调使用。
+     *
+     * 每个字符只按字符类别判断一次，颜文字随字符增量识别，不再对整句反复做正则匹配。
+     * 小数点 "." 不属于句末标点，数字中的小数不会被切开。
      */
     public List<SentenceResult> take(String token) {
         List<SentenceResult> sentences = new ArrayList<>();
@@ -63,50 +60,18 @@ public class SentenceHelper implements ChatConverter {
 
         for (int i = 0; i < token.length();) {
             int codePoint = token.codePointAt(i);
-            String charStr = new String(Character.toChars(codePoint));
-
-            contextBuffer.append(charStr);
-            if (contextBuffer.length() > CONTEXT_BUFFER_MAX_LENGTH) {
-                contextBuffer.delete(0, contextBuffer.length() - CONTEXT_BUFFER_MAX_LENGTH);
-            }
-
-            currentSentence.append(charStr);
-
-            boolean isEndMark = SENTENCE_END_PATTERN.matcher(charStr).find();
-            boolean isPauseMark = PAUSE_PATTERN.matcher(charStr).find();
-            boolean isSpecialMark = SPECIAL_PATTERN.matcher(charStr).find();
-            boolean isNewline = NEWLINE_PATTERN.matcher(charStr).find();
-            boolean isEmoji = EmojiUtils.isEmoji(codePoint);
-
-            boolean containsKaomoji = false;
-            if (currentSentence.length() >= 3) {
-                containsKaomoji = EmojiUtils.containsKaomoji(currentSentence.toString());
-            }
-
-            if (isEndMark && charStr.equals(".")) {
-                String context = contextBuffer.toString();
-                Matcher numberMatcher = NUMBER_PATTERN.matcher(context);
-                if (numberMatcher.find() && numberMatcher.end() >= context.length() - 3) {
-                    isEndMark = false;
-                }
-            }
+            scanKaomoji(codePoint);
+            currentSentence.appendCodePoint(codePoint);
 
-            boolean shouldSendSentence = false;
-            if (isEndMark || isNewline) {
-                shouldSendSentence = true;
-            } else if ((isPauseMark || isSpecialMark || isEmoji || containsKaomoji)
-                    && currentSentence.length() >= MIN_SENTENCE_LENGTH) {
-                shouldSendSentence = true;
-            }
-
-            if (shouldSendSentence && currentSentence.length() >= MIN_SENTENCE_LENGTH) {
+            if (currentSentence.length() >= MIN_SENTENCE_LENGTH
+                    && (isBreakMark(codePoint) || kaomojiSeen || EmojiUtils.isEmoji(codePoint))) {
                 String rawSentence = currentSentence.toString().trim();
                 List<String> moods = new ArrayList<>();
                 String cleanSentence = EmojiUtils.processSentence(rawSentence, moods);
                 if (containsSubstantialContent(cleanSentence)) {
                     String mood = moods.isEmpty() ? null : moods.get(0);
                     sentences.add(new SentenceResult(cleanSentence, mood));
-                    currentSentence.setLength(0);
+                    clearSentence();
                 }
             }
 
@@ -152,11 +117,131 @@ public class SentenceHelper implements ChatConverter {
                         () -> this.onComplete(sink)));
     }
 
+    /**
+     * 句末标点（中英文句号、感叹号、问号）、换行、停顿标点（逗号、顿号、分号）和特殊标点（冒号、引号）。
+     * 句末标点和换行本来无条件断句、其余需要句子够长，但两者最终都要求达到最小长度，因此合并为一类。
+     */
+    private static boolean isBreakMark(int codePoint) {
+        return switch (codePoint) {
+            case '。', '！', '？', '!', '?',
+                 '\n', '\r',
+                 '，', '、', '；', ',', ';',
+                 '：', ':', '"' -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 判断以当前码点结尾的片段是否构成颜文字，规则与 EmojiUtils 的颜文字模式一一对应：
+     * (..) / （..） 和 <..> / ＜..＞ 括号内 1~10 个字符且不含右括号；\_/ 一类；\o/；:-) :D :-(；;-)；=_= =/
+     */
+    private void scanKaomoji(int codePoint) {
+        int length = currentSentence.length();
+        // 上一个 token 以高代理项结尾时，低代理项与它组成同一个码点，不是新字符
+        if (codePoint <= Character.MAX_VALUE && Character.isLowSurrogate((char) codePoint)
+                && length > 0 && Character.isHighSurrogate(currentSentence.charAt(length - 1))) {
+            return;
+        }
+        int current = ++position;
+        if (!kaomojiSeen) {
+            kaomojiSeen = switch (codePoint) {
+                case ')', '）' -> closesBracket(current, parenOpen, parenOpenBefore)
+                        || (codePoint == ')' && (isSmiley(':') || isSmiley(';')));
+                case '>', '＞' -> closesBracket(current, angleOpen, angleOpenBefore);
+                case '\\', '¯', '*' -> isUnderscoreOrDash(prev1)
+                        && (isKaomojiEdge(prev2) || (isUnderscoreOrDash(prev2) && isKaomojiEdge(prev3)));
+                case 'D', '(' -> isSmiley(':');
+                case '/' -> (prev1 == 'o' && prev2 == '\\') || prev1 == '=' || (prev1 == '\\' && prev2 == '=');
+                case '_' -> prev1 == '=' || (prev1 == '\\' && prev2 == '=');
+                default -> false;
+            };
+        }
+        switch (codePoint) {
+            case '(', '（' -> {
+                parenOpenBefore = parenOpen;
+                parenOpen = current;
+            }
+            case ')', '）' -> parenOpen = parenOpenBefore = -1;
+            case '<', '＜' -> {
+                angleOpenBefore = angleOpen;
+                angleOpen = current;
+            }
+            case '>', '＞' -> angleOpen = angleOpenBefore = -1;
+            default -> {
+            }
+        }
+        prev3 = prev2;
+        prev2 = prev1;
+        prev1 = codePoint;
+    }
+
+    /**
+     * 上一个右括号之后、距当前位置 2~11 的左括号，即括号内有 1~10 个字符
+     */
+    private static boolean closesBracket(int current, int open, int openBefore) {
+        int candidate = open <= current - 2 ? open : openBefore;
+        return candidate >= 0 && current - candidate - 1 <= MAX_KAOMOJI_INNER;
+    }
+
+    /**
+     * 前面是 "眼睛" 或 "眼睛-"，如 :) :-)
+     */
+    private boolean isSmiley(int eyes) {
+        return prev1 == eyes || (prev1 == '-' && prev2 == eyes);
+    }
+
+    private static boolean isKaomojiEdge(int codePoint) {
+        return codePoint == '\\' || codePoint == '¯' || codePoint == '*';
+    }
+
+    private static boolean isUnderscoreOrDash(int codePoint) {
+        return codePoint == '_' || codePoint == '-';
+    }
+
+    private void clearSentence() {
+        currentSentence.setLength(0);
+        kaomojiSeen = false;
+        position = -1;
+        prev1 = prev2 = prev3 = -1;
+        parenOpen = parenOpenBefore = -1;
+        angleOpen = angleOpenBefore = -1;
+    }
+
+    /**
+     * 去掉标点和空白后至少还剩 2 个字符，等价于 replaceAll("[\\p{P}\\s]", "").length() >= 2
+     */
     private boolean containsSubstantialContent(String text) {
         if (text == null || text.trim().length() < MIN_SENTENCE_LENGTH) {
             return false;
         }
-        String stripped = text.replaceAll("[\\p{P}\\s]", "");
-        return stripped.length() >= 2;
+        int remaining = 0;
+        for (int i = 0; i < text.length();) {
+            int codePoint = text.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            if (!isPunctuation(codePoint) && !isRegexWhitespace(codePoint)) {
+                remaining += charCount;
+                if (remaining >= 2) {
+                    return true;
+                }
+            }
+            i += charCount;
+        }
+        return false;
+    }
+
+    private static boolean isPunctuation(int codePoint) {
+        return switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION,
+                 Character.FINAL_QUOTE_PUNCTUATION, Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 正则 \s 的默认范围
+     */
+    private static boolean isRegexWhitespace(int codePoint) {
+        return codePoint == ' ' || (codePoint >= '\t' && codePoint <= '\r');
     }
 }
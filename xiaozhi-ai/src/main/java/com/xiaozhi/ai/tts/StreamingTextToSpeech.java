@@ -0,0 +1,37 @@
+package com.xiaozhi.ai.tts;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 流式 TTS 能力接口，由支持边合成边返回音频的 Provider 额外实现。
+ * <p>
+ * 与 {@link TtsService#textToSpeech(String)} 先落盘再播放不同，流式合成在服务端仍在合成时
+ * 就推送 PCM 分片，首包延迟只取决于 Provider 的首包时间，而不是整句合成耗时。
+ * <p>
+ * 约定：
+ * <ul>
+ *   <li>分片为 16kHz、单声道、16bit 小端 PCM，分片大小不固定</li>
+ *   <li>Flux 是冷的，订阅时才发起合成；取消订阅时 Provider 应停止合成并释放连接</li>
+ *   <li>不实现本接口的 Provider 继续走文件路径，由 FileSynthesizer 编排</li>
+ * </ul>
+ *
+ * @see TtsServiceAdapter#stream 对应 Spring AI TextToSpeechModel 的 stream 模式
+ */
+public interface StreamingTextToSpeech {
+
+    /**
+     * 流式合成
+     *
+     * @param text 要合成的文本
+     * @return PCM 分片流
+     */
+    Flux<byte[]> streamSpeech(String text);
+
+    /**
+     * 当前实例是否可走流式合成。
+     * 同一 Provider 的部分音色/模型可能只支持整句合成，此时返回 false 回退到文件路径。
+     */
+    default boolean supportsStreaming() {
+        return true;
+    }
+}
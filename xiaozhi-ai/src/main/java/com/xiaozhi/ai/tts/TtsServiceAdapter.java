@@ -51,7 +51,12 @@ public class TtsServiceAdapter implements TextToSpeechModel {
 
     @Override
     public Flux<TextToSpeechResponse> stream(TextToSpeechPrompt prompt) {
-        throw new RuntimeException("TTS streaming failed");
+        if (ttsService instanceof StreamingTextToSpeech streaming && streaming.supportsStreaming()) {
+            return streaming.streamSpeech(prompt.getInstructions().getText())
+                    .map(chunk -> new TextToSpeechResponse(List.of(new Speech(chunk))));
+        }
+        // 不支持流式的 Provider 退化为整句合成后一次性返回
+        return Flux.defer(() -> Flux.just(call(prompt)));
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.xiaozhi.ai.tts.providers.*;
 import com.xiaozhi.common.model.bo.ConfigBO;
 
 import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 
@@ -29,6 +30,13 @@ public class TtsServiceFactory {
     @Resource
     private RuntimePathConfig runtimePathConfig;
 
+    // 压测用 stub Provider 的合成延迟与每个字对应的音频时长
+    @Value("${xiaozhi.stub.tts.latency-ms:200}")
+    private long stubLatencyMs;
+
+    @Value("${xiaozhi.stub.tts.ms-per-char:220}")
+    private int stubMsPerChar;
+
     // 默认服务提供商名称
     private static final String DEFAULT_PROVIDER = "edge";
 
@@ -89,6 +97,7 @@ public class TtsServiceFactory {
                     outputPath,
                     runtimePathConfig.resolveTtsModelsDir().toString()
             );
+            case "stub" -> new StubTtsService(voiceName, pitch, speed, outputPath, stubLatencyMs, stubMsPerChar);
             default -> new EdgeTtsService(voiceName, pitch, speed, outputPath);
         };
     }
@@ -7,6 +7,7 @@ import com.alibaba.nls.client.protocol.tts.SpeechSynthesizer;
 import com.alibaba.nls.client.protocol.tts.SpeechSynthesizerListener;
 import com.alibaba.nls.client.protocol.tts.SpeechSynthesizerResponse;
 import com.xiaozhi.common.port.TokenResolver;
+import com.xiaozhi.ai.tts.StreamingTextToSpeech;
 import com.xiaozhi.ai.tts.TtsService;
 import com.xiaozhi.ai.tts.XiaozhiTtsOptions;
 import com.xiaozhi.common.model.bo.ConfigBO;
@@ -18,16 +19,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 /**
  * 阿里云NLS标准语音合成服务
- * 使用阿里云智能语音交互SDK实现TTS功能
+ * 使用阿里云智能语音交互SDK实现TTS功能，支持整句合成和流式合成（PCM 分片随 onMessage 推送）
  */
 @Slf4j
-public class AliyunNlsTtsService implements TtsService {
+public class AliyunNlsTtsService implements TtsService, StreamingTextToSpeech {
     private static final String PROVIDER_NAME = "aliyun-nls";
 
     // 阿里云NLS服务的默认URL
@@ -36,6 +40,8 @@ public class AliyunNlsTtsService implements TtsService {
     // 重试机制常量
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final long RETRY_DELAY_MS = 1000;
+    // 流式合成超时时间
+    private static final long SYNTHESIS_TIMEOUT_MS = 30000;
 
     /**
      * 全局NlsClient缓存（按configId共享）
@@ -172,27 +178,7 @@ public class AliyunNlsTtsService implements TtsService {
                     }
                 });
 
-                // 设置appKey
-                synthesizer.setAppKey(config.getApiKey());
-                // 设置语音输出格式
-                synthesizer.setFormat(OutputFormatEnum.WAV);
-                // 设置采样率
-                synthesizer.setSampleRate(SampleRateEnum.SAMPLE_RATE_16K);
-                // 设置语音
-                synthesizer.setVoice(getVoiceName());
-                // 设置音量
-                synthesizer.setVolume(100);
-
-                // 设置语速和音调（映射：0.5-2.0 → -500~500）
-                int nlsSpeed = (int)Math.round((getSpeed() - 1.0f) * 500);
-                int nlsPitch = (int)Math.round((getPitch() - 1.0f) * 500);
-                nlsSpeed = Math.max(-500, Math.min(500, nlsSpeed));
-                nlsPitch = Math.max(-500, Math.min(500, nlsPitch));
-
-                synthesizer.setSpeechRate(nlsSpeed);
-                synthesizer.setPitchRate(nlsPitch);
-
-                synthesizer.setText(text);
+                configure(synthesizer, OutputFormatEnum.WAV, text);
                 synthesizer.start();
 
                 // 设置超时时间，避免无限等待
@@ -258,6 +244,83 @@ public class AliyunNlsTtsService implements TtsService {
         throw new Exception("语音合成失败");
     }
 
+    /**
+     * 流式合成：直接输出 PCM，SDK 每收到一个音频包就推送给下游，不等整句合成结束。
+     * 已经推送过音频后不再重试，避免重复播放同一段内容，失败由调用方回退到文件路径。
+     */
+    @Override
+    public Flux<byte[]> streamSpeech(String text) {
+        if (text == null || text.isEmpty()) {
+            log.warn("文本内容为空！");
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            Sinks.Many<byte[]> dataSink = Sinks.many().unicast().onBackpressureBuffer();
+            SpeechSynthesizer synthesizer;
+            try {
+                synthesizer = new SpeechSynthesizer(getOrCreateClient(), new SpeechSynthesizerListener() {
+                    @Override
+                    public void onComplete(SpeechSynthesizerResponse response) {
+                        dataSink.tryEmitComplete();
+                    }
+
+                    @Override
+                    public void onFail(SpeechSynthesizerResponse response) {
+                        log.error("NLS流式语音合成失败 - TaskId: {}, Status: {}, StatusText: {}",
+                                response.getTaskId(), response.getStatus(), response.getStatusText());
+                        dataSink.tryEmitError(new RuntimeException(response.getStatusText()));
+                    }
+
+                    @Override
+                    public void onMessage(ByteBuffer message) {
+                        byte[] buffer = new byte[message.remaining()];
+                        message.get(buffer);
+                        dataSink.tryEmitNext(buffer);
+                    }
+                });
+                configure(synthesizer, OutputFormatEnum.PCM, text);
+                synthesizer.start();
+            } catch (Exception e) {
+                // NLS 连接异常时清除缓存，下次调用时重建 client
+                globalClientCache.remove(config.getConfigId());
+                return Flux.error(e);
+            }
+            return dataSink.asFlux()
+                    .timeout(Duration.ofMillis(SYNTHESIS_TIMEOUT_MS))
+                    .doFinally(signal -> {
+                        try {
+                            synthesizer.close();
+                        } catch (Exception e) {
+                            log.warn("关闭SpeechSynthesizer失败", e);
+                        }
+                    });
+        });
+    }
+
+    private void configure(SpeechSynthesizer synthesizer, OutputFormatEnum format, String text) {
+        // 设置appKey
+        synthesizer.setAppKey(config.getApiKey());
+        // 设置语音输出格式
+        synthesizer.setFormat(format);
+        // 设置采样率
+        synthesizer.setSampleRate(SampleRateEnum.SAMPLE_RATE_16K);
+        // 设置语音
+        synthesizer.setVoice(getVoiceName());
+        // 设置音量
+        synthesizer.setVolume(100);
+
+        // 设置语速和音调（映射：0.5-2.0 → -500~500）
+        int nlsSpeed = (int)Math.round((getSpeed() - 1.0f) * 500);
+        int nlsPitch = (int)Math.round((getPitch() - 1.0f) * 500);
+        nlsSpeed = Math.max(-500, Math.min(500, nlsSpeed));
+        nlsPitch = Math.max(-500, Math.min(500, nlsPitch));
+
+        synthesizer.setSpeechRate(nlsSpeed);
+        synthesizer.setPitchRate(nlsPitch);
+
+        synthesizer.setText(text);
+    }
+
     /**
      * 清除指定configId的NlsClient缓存
      */
@@ -6,7 +6,10 @@ import com.alibaba.dashscope.aigc.multimodalconversation.MultiModalConversationP
 import com.alibaba.dashscope.aigc.multimodalconversation.MultiModalConversationResult;
 import com.alibaba.dashscope.audio.tts.SpeechSynthesisAudioFormat;
 import com.alibaba.dashscope.audio.tts.SpeechSynthesisParam;
+import com.alibaba.dashscope.audio.tts.SpeechSynthesisResult;
 import com.alibaba.dashscope.audio.tts.SpeechSynthesizer;
+import com.alibaba.dashscope.common.ResultCallback;
+import com.xiaozhi.ai.tts.StreamingTextToSpeech;
 import com.xiaozhi.ai.tts.TtsService;
 import com.xiaozhi.ai.tts.XiaozhiTtsOptions;
 import com.xiaozhi.common.model.bo.ConfigBO;
@@ -20,6 +23,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
@@ -29,9 +33,15 @@ import java.util.concurrent.TimeoutException;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+/**
+ * 阿里云百炼语音合成服务
+ * sambert、千问音色走整句合成；CosyVoice 走 WebSocket，支持流式合成（PCM 分片随回调推送）
+ */
 @Slf4j
-public class AliyunTtsService implements TtsService {
+public class AliyunTtsService implements TtsService, StreamingTextToSpeech {
     private static final String PROVIDER_NAME = "aliyun";
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final long RETRY_DELAY_MS = 1000;
@@ -215,16 +225,10 @@ public class AliyunTtsService implements TtsService {
         try {
             if (getVoiceName().contains("sambert")) {
                 return ttsSambert(text);
+            } else if (isQwenVoice()) {
+                return ttsQwen(text);
             } else {
-                // 解析千问音色参数
-                String[] parsed = parseQwenVoiceParam(getVoiceName());
-                String actualVoiceName = parsed[1];
-
-                if (VOICE_MAP.get(actualVoiceName) != null) {
-                    return ttsQwen(text);
-                } else {
-                    return ttsCosyvoice(text);
-                }
+                return ttsCosyvoice(text);
             }
         } catch (Exception e) {
             log.error("语音合成aliyun -使用{}模型语音合成失败：", getVoiceName(), e);
@@ -232,6 +236,89 @@ public class AliyunTtsService implements TtsService {
         }
     }
 
+    /**
+     * 只有 CosyVoice 是 WebSocket 协议、边合成边推送音频；sambert 和千问音色仍走整句合成
+     */
+    @Override
+    public boolean supportsStreaming() {
+        return !getVoiceName().contains("sambert") && !isQwenVoice();
+    }
+
+    /**
+     * CosyVoice 流式合成：传入回调后 SDK 每收到一帧音频就回调 onEvent，直接输出 16kHz PCM。
+     * 建连阶段 call() 会阻塞等待任务启动，因此在 boundedElastic 上订阅；分片间隔超过超时时间视为失败，由调用方回退到文件路径。
+     */
+    @Override
+    public Flux<byte[]> streamSpeech(String text) {
+        if (text == null || text.isEmpty()) {
+            log.warn("文本内容为空！");
+            return Flux.empty();
+        }
+        String[] parsed = parseCosyVoiceParam(getVoiceName());
+        String modelName = parsed[0];
+        String actualVoiceName = parsed[1];
+        return Flux.<byte[]>create(sink -> {
+            com.alibaba.dashscope.audio.ttsv2.SpeechSynthesizer synthesizer =
+                    new com.alibaba.dashscope.audio.ttsv2.SpeechSynthesizer(
+                            cosyVoiceParam(modelName, actualVoiceName,
+                                    com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisAudioFormat.PCM_16000HZ_MONO_16BIT),
+                            new ResultCallback<SpeechSynthesisResult>() {
+                                @Override
+                                public void onEvent(SpeechSynthesisResult result) {
+                                    ByteBuffer frame = result.getAudioFrame();
+                                    if (frame != null && frame.hasRemaining()) {
+                                        byte[] data = new byte[frame.remaining()];
+                                        frame.get(data);
+                                        sink.next(data);
+                                    }
+                                }
+
+                                @Override
+                                public void onComplete() {
+                                    sink.complete();
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    log.error("CosyVoice流式语音合成失败 - 模型: {}, 音色: {}", modelName, actualVoiceName, e);
+                                    sink.error(e);
+                                }
+                            });
+            // 主动关闭WebSocket连接，避免僵尸连接占满连接池
+            sink.onDispose(() -> {
+                try {
+                    synthesizer.getDuplexApi().close(1000, "completed");
+                } catch (Exception e) {
+                    log.debug("关闭CosyVoice TTS连接时发生错误", e);
+                }
+            });
+            try {
+                synthesizer.call(text);
+            } catch (Exception e) {
+                sink.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic())
+          .timeout(Duration.ofSeconds(TTS_TIMEOUT_SECONDS));
+    }
+
+    private boolean isQwenVoice() {
+        // 解析千问音色参数
+        String[] parsed = parseQwenVoiceParam(getVoiceName());
+        return VOICE_MAP.get(parsed[1]) != null;
+    }
+
+    private com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam cosyVoiceParam(String modelName, String voiceName,
+            com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisAudioFormat format) {
+        return com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam.builder()
+                .apiKey(apiKey)
+                .model(modelName)  // 使用解析出的模型名
+                .voice(voiceName)  // 使用解析出的音色名
+                .speechRate(getSpeed().floatValue())
+                .pitchRate(getPitch().floatValue())
+                .format(format)
+                .build();
+    }
+
     private Path ttsQwen(String text) {
         int attempts = 0;
         // 解析音色参数
@@ -358,15 +445,8 @@ public class AliyunTtsService implements TtsService {
         String actualVoiceName = parsed[1];
         while (attempts < MAX_RETRY_ATTEMPTS) {
             try {
-                com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam param =
-                com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam.builder()
-                                .apiKey(apiKey)
-                                .model(modelName)  // 使用解析出的模型名
-                                .voice(actualVoiceName)  // 使用解析出的音色名
-                                .speechRate(getSpeed().floatValue())
-                                .pitchRate(getPitch().floatValue())
-                                .format(com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisAudioFormat.WAV_16000HZ_MONO_16BIT)
-                                .build();
+                com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam param = cosyVoiceParam(modelName, actualVoiceName,
+                        com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisAudioFormat.WAV_16000HZ_MONO_16BIT);
 
                 // 使用共享线程池
                 Future<ByteBuffer> future = sharedExecutor.submit(() -> {
@@ -3,6 +3,7 @@ package com.xiaozhi.ai.tts.providers;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.xiaozhi.ai.tts.StreamingTextToSpeech;
 import com.xiaozhi.ai.tts.TtsService;
 import com.xiaozhi.ai.tts.XiaozhiTtsOptions;
 import com.xiaozhi.common.model.bo.ConfigBO;
@@ -12,6 +13,9 @@ import lombok.Data;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -20,8 +24,12 @@ import java.nio.file.Paths;
 import java.util.*;
 
 
+/**
+ * MiniMax 语音合成服务
+ * 整句合成返回 mp3；流式合成开启 stream，以 SSE 逐块返回 16kHz PCM
+ */
 @Slf4j
-public class MiniMaxTtsService implements TtsService {
+public class MiniMaxTtsService implements TtsService, StreamingTextToSpeech {
 
     private static final String PROVIDER_NAME = "minimax";
 
@@ -29,6 +37,11 @@ public class MiniMaxTtsService implements TtsService {
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final long RETRY_DELAY_MS = 1000;
 
+    // SSE 数据行前缀
+    private static final String SSE_DATA_PREFIX = "data:";
+    // 流式响应中 data.status 为 2 表示合成结束
+    private static final int STATUS_FINISHED = 2;
+
     private final String groupId;
     private final String apiKey;
 
@@ -100,20 +113,94 @@ public class MiniMaxTtsService implements TtsService {
         throw lastException != null ? lastException : new Exception("语音合成失败");
     }
 
-    private void sendRequest(String text, String filepath) {
+    /**
+     * 流式合成：请求开启 stream 并输出 16kHz PCM，服务端以 SSE 逐块返回 hex 编码的音频。
+     * 聚合音频已通过 exclude_aggregated_audio 排除，结束事件不会重复携带整句音频。
+     * 取消订阅时取消 HTTP 调用。
+     */
+    @Override
+    public Flux<byte[]> streamSpeech(String text) {
+        if (text == null || text.isEmpty()) {
+            log.warn("文本内容为空！");
+            return Flux.empty();
+        }
+        return Flux.create(sink -> {
+            var params = buildParams(text).setStream(true);
+            params.audioSetting.setFormat("pcm");
+            params.audioSetting.setSampleRate(16000);
+
+            Call call = client.newCall(buildRequest(params));
+            sink.onCancel(call::cancel);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    sink.error(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (response) {
+                        if (!response.isSuccessful()) {
+                            sink.error(new IOException("TTS请求失败 " + response.body().string()));
+                            return;
+                        }
+                        readEvents(response.body().source(), sink);
+                    } catch (Exception e) {
+                        sink.error(e);
+                    }
+                }
+            });
+        });
+    }
+
+    private void readEvents(BufferedSource source, FluxSink<byte[]> sink) throws IOException {
+        String line;
+        while (!sink.isCancelled() && (line = source.readUtf8Line()) != null) {
+            if (!line.startsWith(SSE_DATA_PREFIX)) {
+                continue;
+            }
+            var event = JsonUtil.fromJson(line.substring(SSE_DATA_PREFIX.length()).trim(), Text2AudioResp.class);
+            if (event == null) {
+                continue;
+            }
+            if (event.baseResp != null && event.baseResp.statusCode != 0) {
+                sink.error(new IOException("TTS失败 %d:%s".formatted(event.baseResp.statusCode, event.baseResp.statusMsg)));
+                return;
+            }
+            if (event.data == null) {
+                continue;
+            }
+            if (event.data.status == STATUS_FINISHED) {
+                break;
+            }
+            if (event.data.audio != null && !event.data.audio.isEmpty()) {
+                sink.next(HexFormat.of().parseHex(event.data.audio));
+            }
+        }
+        sink.complete();
+    }
+
+    private Text2AudioParams buildParams(String text) {
         // 创建请求参数
         var params = new Text2AudioParams(model, getVoiceName(), text);
 
         // 设置语速（MiniMax范围 [0.5, 2]，与我们的范围一致，直接使用）
         params.voiceSetting.setSpeed(getSpeed());
         params.voiceSetting.setPitch(minimaxPitch);
+        return params;
+    }
 
-        var request = new Request.Builder()
+    private Request buildRequest(Text2AudioParams params) {
+        return new Request.Builder()
                 .url("https://api.minimaxi.com/v1/t2a_v2?Groupid=%s".formatted(groupId))
                 .addHeader("Content-Type", "application/json")
                 .addHeader("Authorization", "Bearer %s".formatted(apiKey)) // 添加Authorization头
                 .post(RequestBody.create(JsonUtil.toJson(params), JSON))
                 .build();
+    }
+
+    private void sendRequest(String text, String filepath) {
+        var request = buildRequest(buildParams(text));
 
         try (var resp = client.newCall(request).execute()) {
             if (resp.isSuccessful()) {
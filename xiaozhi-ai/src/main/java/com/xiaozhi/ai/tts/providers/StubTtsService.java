@@ -0,0 +1,71 @@
+package com.xiaozhi.ai.tts.providers;
+
+import com.xiaozhi.ai.tts.TtsService;
+import com.xiaozhi.ai.tts.XiaozhiTtsOptions;
+import com.xiaozhi.utils.AudioUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 压测用的本地 TTS：等待固定延迟后生成一段与文本长度成正比的正弦音，写成 wav 文件。
+ * 音频时长决定播放器要下发的帧数，按真实语速设置 ms-per-char 才能得到接近线上的下行帧压力。
+ */
+public class StubTtsService implements TtsService {
+
+    private static final String PROVIDER_NAME = "stub";
+    // 单句音频时长上限，避免异常长文本生成超大文件
+    private static final int MAX_DURATION_MS = 30_000;
+
+    private final XiaozhiTtsOptions options;
+    private final String outputPath;
+    private final long latencyMs;
+    private final int msPerChar;
+
+    public StubTtsService(String voiceName, Double pitch, Double speed, String outputPath,
+                          long latencyMs, int msPerChar) {
+        this.options = XiaozhiTtsOptions.builder().voiceName(voiceName).pitch(pitch).speed(speed).build();
+        this.outputPath = outputPath;
+        this.latencyMs = latencyMs;
+        this.msPerChar = msPerChar;
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
+    }
+
+    @Override
+    public XiaozhiTtsOptions getOptions() {
+        return options;
+    }
+
+    @Override
+    public Path textToSpeech(String text) throws Exception {
+        if (text == null || text.isEmpty()) {
+            throw new Exception("文本内容为空");
+        }
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        int durationMs = Math.min(MAX_DURATION_MS, Math.max(AudioUtils.OPUS_FRAME_DURATION_MS,
+                text.codePointCount(0, text.length()) * msPerChar));
+        Path path = Paths.get(outputPath, getAudioFileName());
+        AudioUtils.saveAsWav(path, tone(durationMs));
+        return path;
+    }
+
+    /**
+     * 220Hz 正弦音，首尾 10ms 淡入淡出避免爆音
+     */
+    private static byte[] tone(int durationMs) {
+        int samples = AudioUtils.SAMPLE_RATE * durationMs / 1000;
+        int fade = AudioUtils.SAMPLE_RATE / 100;
+        float[] out = new float[samples];
+        for (int i = 0; i < samples; i++) {
+            float gain = Math.min(1f, Math.min(i, samples - 1 - i) / (float) fade);
+            out[i] = (float) (0.3 * gain * Math.sin(2 * Math.PI * 220 * i / AudioUtils.SAMPLE_RATE));
+        }
+        return AudioUtils.floatToPcm16(out);
+    }
+}
@@ -3,6 +3,7 @@ package com.xiaozhi.ai.tts.providers;
 import com.tencent.core.ws.Credential;
 import com.tencent.core.ws.SpeechClient;
 import com.tencent.ttsv2.*;
+import com.xiaozhi.ai.tts.StreamingTextToSpeech;
 import com.xiaozhi.ai.tts.TtsService;
 import com.xiaozhi.ai.tts.XiaozhiTtsOptions;
 import com.xiaozhi.common.model.bo.ConfigBO;
@@ -17,11 +18,12 @@ import java.nio.file.Path;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class TencentTtsService implements TtsService {
+public class TencentTtsService implements TtsService, StreamingTextToSpeech {
     private static final String PROVIDER_NAME = "tencent";
     // 默认的腾讯云TTS WebSocket地址
     private static final String DEFAULT_TTS_REQ_URL = "wss://tts.cloud.tencent.com/stream_ws";
@@ -65,7 +67,8 @@ public class TencentTtsService implements TtsService {
         return "mp3";
     }
 
-    private Flux<byte[]> stream(String text) throws Exception {
+    @Override
+    public Flux<byte[]> streamSpeech(String text) {
         if (text == null || text.isEmpty()) {
             log.warn("文本内容为空！");
             return Flux.empty();
@@ -73,6 +76,8 @@ public class TencentTtsService implements TtsService {
 
         // 腾讯云 SDK 的 start() 是非阻塞的，音频数据通过 onAudioResult 回调异步推送。
         // 使用 Sinks.Many 替代 CountDownLatch.await()，避免阻塞 Reactor 调度器线程。
+        // 已推送过音频后不再重试，否则下游会重复播放前半句
+        AtomicBoolean emitted = new AtomicBoolean(false);
         return Flux.defer(() -> {
             Sinks.Many<byte[]> dataSink = Sinks.many().unicast().onBackpressureBuffer();
 
@@ -101,6 +106,7 @@ public class TencentTtsService implements TtsService {
                 public void onAudioResult(ByteBuffer buffer) {
                     byte[] data = new byte[buffer.remaining()];
                     buffer.get(data);
+                    emitted.set(true);
                     dataSink.tryEmitNext(data);
                 }
 
@@ -141,7 +147,8 @@ public class TencentTtsService implements TtsService {
                             try { synth.close(); } catch (Exception e) { log.error("关闭腾讯云TTS合成器时发生错误", e); }
                         }
                     });
-        }).retryWhen(Retry.fixedDelay(MAX_RETRY_ATTEMPTS - 1, Duration.ofMillis(RETRY_DELAY_MS)))
+        }).retryWhen(Retry.fixedDelay(MAX_RETRY_ATTEMPTS - 1, Duration.ofMillis(RETRY_DELAY_MS))
+                .filter(e -> !emitted.get()))
           .doOnError(e -> log.error("腾讯云流式语音合成失败，已达到最大重试次数", e));
     }
 
@@ -159,7 +166,7 @@ public class TencentTtsService implements TtsService {
                 ByteArrayOutputStream audioBuffer = new ByteArrayOutputStream();
                 final Exception[] error = new Exception[1];
 
-                stream(text).subscribe(audioData -> {
+                streamSpeech(text).subscribe(audioData -> {
                     if (audioData != null) {
                         try {
                             audioBuffer.write(audioData);
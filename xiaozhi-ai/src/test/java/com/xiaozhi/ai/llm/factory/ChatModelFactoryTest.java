@@ -12,8 +12,11 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -87,4 +90,81 @@ class ChatModelFactoryTest {
         assertSame(stubModel, result);
         verify(configLookup).getDefaultConfig("llm", ConfigBO.ModelType.vision.getValue());
     }
+
+    @Test
+    void getChatModelReusesModelForSameEffectiveConfig() {
+        ConfigBO config = new ConfigBO().setConfigId(44).setProvider("stub").setApiUrl("http://llm").setConfigName("m");
+        when(configLookup.getConfig(44)).thenReturn(config);
+        when(stubProvider.isShareable()).thenReturn(true);
+        when(stubProvider.createChatModel(any(), any())).thenReturn(stubModel);
+
+        ChatModel first = chatModelFactory.getChatModel(role(1, 44, 0.7));
+        ChatModel second = chatModelFactory.getChatModel(role(2, 44, 0.7));
+
+        assertSame(first, second);
+        verify(stubProvider, times(1)).createChatModel(any(), any());
+    }
+
+    @Test
+    void getChatModelCreatesSeparateModelWhenRoleOptionsDiffer() {
+        ConfigBO config = new ConfigBO().setConfigId(55).setProvider("stub");
+        when(configLookup.getConfig(55)).thenReturn(config);
+        when(stubProvider.isShareable()).thenReturn(true);
+        when(stubProvider.createChatModel(any(), any())).thenReturn(stubModel, mock(ChatModel.class));
+
+        ChatModel first = chatModelFactory.getChatModel(role(1, 55, 0.7));
+        ChatModel second = chatModelFactory.getChatModel(role(2, 55, 0.2));
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void removeCacheRecreatesModel() {
+        ConfigBO config = new ConfigBO().setConfigId(66).setProvider("stub");
+        when(configLookup.getConfig(66)).thenReturn(config);
+        when(stubProvider.isShareable()).thenReturn(true);
+        when(stubProvider.createChatModel(any(), any())).thenReturn(stubModel, fallbackModel);
+
+        ChatModel first = chatModelFactory.getChatModel(role(1, 66, null));
+        chatModelFactory.removeCache(66);
+        ChatModel second = chatModelFactory.getChatModel(role(1, 66, null));
+
+        assertSame(stubModel, first);
+        assertSame(fallbackModel, second);
+    }
+
+    @Test
+    void removeCacheByRoleRecreatesModel() {
+        ConfigBO config = new ConfigBO().setConfigId(77).setProvider("stub");
+        when(configLookup.getConfig(77)).thenReturn(config);
+        when(stubProvider.isShareable()).thenReturn(true);
+        when(stubProvider.createChatModel(any(), any())).thenReturn(stubModel, fallbackModel);
+
+        chatModelFactory.getChatModel(role(3, 77, null));
+        chatModelFactory.removeCacheByRole(3);
+        ChatModel second = chatModelFactory.getChatModel(role(3, 77, null));
+
+        assertSame(fallbackModel, second);
+    }
+
+    @Test
+    void getChatModelDoesNotCacheNonShareableProvider() {
+        ConfigBO config = new ConfigBO().setConfigId(88).setProvider("stub");
+        when(configLookup.getConfig(88)).thenReturn(config);
+        when(stubProvider.isShareable()).thenReturn(false);
+        when(stubProvider.createChatModel(any(), any())).thenReturn(stubModel);
+
+        chatModelFactory.getChatModel(role(1, 88, null));
+        chatModelFactory.getChatModel(role(1, 88, null));
+
+        verify(stubProvider, times(2)).createChatModel(any(), any());
+    }
+
+    private static RoleBO role(Integer roleId, Integer modelId, Double temperature) {
+        RoleBO role = new RoleBO();
+        role.setRoleId(roleId);
+        role.setModelId(modelId);
+        role.setTemperature(temperature);
+        return role;
+    }
 }
@@ -0,0 +1,101 @@
+package com.xiaozhi.ai.llm.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWindowConversationTest {
+
+    @Mock
+    private ChatMemory chatMemory;
+
+    private MessageWindowConversation conversation;
+
+    @BeforeEach
+    void setUp() {
+        when(chatMemory.find("device-1", 1, 4)).thenReturn(List.of(user("早上好"), new AssistantMessage("早上好呀")));
+        conversation = MessageWindowConversation.builder()
+                .ownerId("device-1")
+                .roleId(1)
+                .sessionId("session-1")
+                .roleDesc("一个温柔的助手")
+                .maxMessages(4)
+                .chatMemory(chatMemory)
+                .build();
+    }
+
+    @Test
+    void assemblesUserMessagesOnceAndKeepsRawText() {
+        UserMessage question = user("今天天气怎么样");
+        conversation.add(question);
+
+        List<Message> messages = conversation.messages();
+
+        assertThat(messages.getFirst()).isInstanceOf(SystemMessage.class);
+        assertThat(messages).hasSize(4);
+        assertThat(messages.get(3).getText()).startsWith("[").endsWith("] 今天天气怎么样");
+        // 原始消息保持裸文本，多次取 Prompt 复用同一个装配结果
+        assertThat(conversation.rawMessages().getLast().getText()).isEqualTo("今天天气怎么样");
+        assertThat(conversation.messages().get(3)).isSameAs(messages.get(3));
+    }
+
+    @Test
+    void slidesWholeTurnsOutOfTheWindow() {
+        conversation.add(user("第二问"));
+        conversation.add(new AssistantMessage("第二答"));
+        conversation.add(user("第三问"));
+        conversation.add(new AssistantMessage("第三答"));
+        conversation.add(user("第四问"));
+
+        List<String> texts = conversation.messages().stream().skip(1).map(Message::getText).toList();
+
+        // 7 条超过 maxMessages + 1，移除最早的一组 [User, Assistant]
+        assertThat(texts).hasSize(5);
+        assertThat(texts.get(0)).endsWith("第二问");
+        assertThat(texts.get(4)).endsWith("第四问");
+    }
+
+    @Test
+    void evictsToolCallGroupAsAWhole() {
+        conversation.clear();
+        conversation.add(user("几点了"));
+        AssistantMessage toolCall = AssistantMessage.builder()
+                .content("")
+                .toolCalls(List.of(new AssistantMessage.ToolCall("call-1", "function", "get_time", "{}")))
+                .build();
+        conversation.addToolCallChain(toolCall, ToolResponseMessage.builder()
+                .responses(List.of(new ToolResponseMessage.ToolResponse("call-1", "get_time", "12:00")))
+                .build());
+        conversation.add(new AssistantMessage("现在十二点"));
+        conversation.add(user("谢谢"));
+        conversation.add(new AssistantMessage("不客气"));
+
+        List<Message> history = conversation.messages().stream().skip(1).toList();
+
+        assertThat(history).hasSize(2);
+        assertThat(history.get(0).getText()).endsWith("谢谢");
+        assertThat(conversation.rawMessages()).hasSize(2);
+    }
+
+    private static UserMessage user(String text) {
+        return UserMessage.builder()
+                .text(text)
+                .metadata(Map.of(ChatMemory.TIME_MILLIS_KEY, Instant.parse("2026-04-18T04:35:42Z")))
+                .build();
+    }
+}
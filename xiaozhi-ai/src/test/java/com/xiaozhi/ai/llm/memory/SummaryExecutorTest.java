@@ -0,0 +1,89 @@
+package com.xiaozhi.ai.llm.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SummaryExecutorTest {
+
+    private SummaryExecutor executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new SummaryExecutor();
+        ReflectionTestUtils.setField(executor, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(executor, "maxQueue", 1);
+        ReflectionTestUtils.setField(executor, "meterRegistry", meterRegistry);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void mergesTriggersForTheSameDeviceAndRole() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        List<String> runs = new CopyOnWriteArrayList<>();
+
+        executor.submit("device-1", 1, () -> {
+            runs.add("first");
+            started.countDown();
+            await(release);
+            finished.countDown();
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        // 执行期间的多次触发合并为一次，执行最后提交的任务
+        executor.submit("device-1", 1, () -> runs.add("second"));
+        executor.submit("device-1", 1, () -> {
+            runs.add("third");
+            finished.countDown();
+        });
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs).containsExactly("first", "third");
+        assertThat(meterRegistry.get("xiaozhi.summary.coalesced").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("xiaozhi.summary.wait").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit("device-1", 1, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        executor.submit("device-2", 1, () -> { });
+        executor.submit("device-3", 1, () -> { });
+
+        assertThat(executor.getQueueSize()).isEqualTo(1);
+        assertThat(meterRegistry.get("xiaozhi.summary.rejected").counter().count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.xiaozhi.ai.tool;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class XiaoZhiToolCallingManagerTest {
+
+    @Test
+    void independentToolCallsRunConcurrentlyAndKeepCallOrder() {
+        XiaoZhiToolCallingManager manager = manager(Duration.ofSeconds(10));
+        // 每个工具都要等到所有工具都已开始才返回，串行执行时第一个工具必然等不到
+        CountDownLatch started = new CountDownLatch(2);
+        Prompt prompt = prompt(rendezvousTool("weather", started, "晴"), rendezvousTool("time", started, "十点"));
+
+        ToolExecutionResult result = manager.executeToolCalls(prompt, response("weather", "time"));
+
+        assertThat(responses(result))
+                .extracting(ToolResponseMessage.ToolResponse::name, ToolResponseMessage.ToolResponse::responseData)
+                .containsExactly(
+                        tuple("weather", "晴"),
+                        tuple("time", "十点"));
+    }
+
+    @Test
+    void slowToolIsCutOffAtTurnDeadline() {
+        XiaoZhiToolCallingManager manager = manager(Duration.ofMillis(200));
+        Prompt prompt = prompt(sleepingTool("device", 5_000, "done"), sleepingTool("time", 10, "十点"));
+
+        long start = System.nanoTime();
+        ToolExecutionResult result = manager.executeToolCalls(prompt, response("device", "time"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMs).isLessThan(2_000);
+        List<ToolResponseMessage.ToolResponse> responses = responses(result);
+        assertThat(responses.get(0).responseData()).contains("超时");
+        assertThat(responses.get(1).responseData()).isEqualTo("十点");
+    }
+
+    @Test
+    void unknownToolKeepsItsSlot() {
+        XiaoZhiToolCallingManager manager = manager(Duration.ofSeconds(5));
+        Prompt prompt = prompt(sleepingTool("time", 10, "十点"), sleepingTool("weather", 10, "晴"));
+
+        ToolExecutionResult result = manager.executeToolCalls(prompt, response("time", "missing", "weather"));
+
+        List<ToolResponseMessage.ToolResponse> responses = responses(result);
+        assertThat(responses).extracting(ToolResponseMessage.ToolResponse::name)
+                .containsExactly("time", "missing", "weather");
+        assertThat(responses.get(1).responseData()).contains("不存在或未注册");
+    }
+
+    private static XiaoZhiToolCallingManager manager(Duration timeout) {
+        return new XiaoZhiToolCallingManager(ObservationRegistry.NOOP, name -> null,
+                DefaultToolExecutionExceptionProcessor.builder().build(), timeout);
+    }
+
+    private static Prompt prompt(ToolCallback... callbacks) {
+        return new Prompt(List.of(new UserMessage("你好")),
+                ToolCallingChatOptions.builder().toolCallbacks(List.of(callbacks)).build());
+    }
+
+    private static ChatResponse response(String... toolNames) {
+        List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>();
+        for (int i = 0; i < toolNames.length; i++) {
+            toolCalls.add(new AssistantMessage.ToolCall("call_" + i, "function", toolNames[i], "{}"));
+        }
+        AssistantMessage assistantMessage = AssistantMessage.builder().content("").toolCalls(toolCalls).build();
+        return new ChatResponse(List.of(new Generation(assistantMessage)));
+    }
+
+    private static List<ToolResponseMessage.ToolResponse> responses(ToolExecutionResult result) {
+        List<Message> history = result.conversationHistory();
+        return ((ToolResponseMessage) history.get(history.size() - 1)).getResponses();
+    }
+
+    private static ToolCallback sleepingTool(String name, long sleepMs, String result) {
+        return tool(name, () -> {
+            Thread.sleep(sleepMs);
+            return result;
+        });
+    }
+
+    private static ToolCallback rendezvousTool(String name, CountDownLatch started, String result) {
+        return tool(name, () -> {
+            started.countDown();
+            return started.await(5, TimeUnit.SECONDS) ? result : "未与其他工具并发执行";
+        });
+    }
+
+    private static ToolCallback tool(String name, Callable<String> body) {
+        ToolDefinition definition = ToolDefinition.builder()
+                .name(name)
+                .description(name)
+                .inputSchema("{}")
+                .build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                try {
+                    return body.call();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "interrupted";
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
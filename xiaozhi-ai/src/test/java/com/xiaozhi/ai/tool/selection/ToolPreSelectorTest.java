@@ -0,0 +1,131 @@
+package com.xiaozhi.ai.tool.selection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ToolPreSelectorTest {
+
+    private static final String[][] TOOLS = {
+            {"play_music", "音乐播放器，播放指定名称的歌曲"},
+            {"get_weather", "查询某个城市今天和未来几天的天气预报"},
+            {"set_alarm", "设置闹钟，在指定时间叫醒"},
+            {"change_role", "切换对话角色"},
+            {"new_chat", "开始新的对话，清空历史"},
+            {"exit_session", "用户说再见时退出会话"},
+            {"get_news", "获取最新新闻头条"},
+            {"translate_text", "把一段文字翻译成英文"},
+            {"calculator", "计算数学表达式"},
+            {"light_on", "打开客厅灯光"},
+            {"light_off", "关闭客厅灯光"},
+            {"take_photo", "拍照并描述看到的画面"},
+            {"play_huiben", "播放儿童绘本故事"},
+    };
+
+    private ToolPreSelector selector;
+    private SimpleMeterRegistry meterRegistry;
+    private List<ToolCallback> tools;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        selector = new ToolPreSelector();
+        ReflectionTestUtils.setField(selector, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(selector, "enabled", true);
+        ReflectionTestUtils.setField(selector, "topK", 3);
+        ReflectionTestUtils.setField(selector, "minTools", 12);
+        ReflectionTestUtils.setField(selector, "minScore", 0.0);
+        ReflectionTestUtils.setField(selector, "alwaysInclude", new String[]{"exit_session"});
+        selector.init();
+
+        tools = new ArrayList<>();
+        for (String[] tool : TOOLS) {
+            tools.add(tool(tool[0], tool[1]));
+        }
+    }
+
+    @Test
+    void selectsRelevantToolsAndKeepsOriginalOrder() {
+        List<ToolCallback> selected = selector.select("帮我播放一首歌", tools);
+
+        List<String> names = selected.stream().map(t -> t.getToolDefinition().name()).toList();
+        assertThat(names).contains("play_music", "exit_session").hasSizeBetween(3, 4);
+        // 保持原有顺序
+        assertThat(names).isSortedAccordingTo((a, b) -> Integer.compare(indexOf(a), indexOf(b)));
+        assertThat(count("selected")).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToAllToolsWhenConfidenceIsLow() {
+        ReflectionTestUtils.setField(selector, "minScore", 0.99);
+
+        List<ToolCallback> selected = selector.select("帮我播放一首歌", tools);
+
+        assertThat(selected).isSameAs(tools);
+        assertThat(count("low-score")).isEqualTo(1);
+        assertThat(count("selected")).isZero();
+    }
+
+    @Test
+    void smallToolListIsNotFiltered() {
+        List<ToolCallback> few = tools.subList(0, 5);
+
+        assertThat(selector.select("帮我播放一首歌", few)).isSameAs(few);
+    }
+
+    @Test
+    void hashingEmbedderIsDeterministicAndNormalized() {
+        HashingToolEmbedder embedder = new HashingToolEmbedder();
+
+        float[] a = embedder.embed("播放音乐 play_music");
+        float[] b = embedder.embed("播放音乐 play_music");
+
+        assertThat(a).containsExactly(b);
+        double norm = 0;
+        for (float v : a) {
+            norm += v * v;
+        }
+        assertThat(norm).isCloseTo(1.0, within(1e-5));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("xiaozhi.tool.preselect").tag("result", result).counter().count();
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < TOOLS.length; i++) {
+            if (TOOLS[i][0].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ToolCallback tool(String name, String description) {
+        ToolDefinition definition = ToolDefinition.builder()
+                .name(name)
+                .description(description)
+                .inputSchema("{}")
+                .build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.xiaozhi.ai.tts;
+
+import com.xiaozhi.ai.tts.SentenceHelper.SentenceResult;
+import com.xiaozhi.utils.EmojiUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceHelperTest {
+
+    private static final String[] CORPUS = {
+            """
+            好的，我来帮你看一下今天的天气情况！北京今天多云转晴，气温在12.5到23度之间，\
+            午后有3级左右的东南风；空气质量良，适合户外活动。不过早晚温差比较大，\
+            记得带一件薄外套哦～如果你打算去爬山的话，建议上午九点前出发："山顶风大，注意保暖"。
+            另外，明天可能会有小雨，降水概率大约是60%，出门记得带伞。你还想了解哪个城市的天气呢？😊
+            """,
+            "哈哈，这个问题问得好(^_^)我想想看啊，答案应该是3.14159吧！不对不对，是π≈3.14。",
+            "Sure! The price is $12.99, and shipping takes 3-5 days. Anything else? :-) Have a nice day;)",
+            "今天心情不错😄😄，一起去公园散步吧🌳，顺便买点水果🍎🍌！",
+            "我给你讲个故事：从前有座山，山里有座庙<(￣︶￣)>庙里有个老和尚\\o/在讲故事。",
+            "第一步：打开设置\n第二步：选择网络\r\n第三步：输入密码\n\n完成！",
+            "这道题 =_= 我真的不会 ¯\\_(ツ)_/¯ 你再问问别人吧，或者查一下资料。",
+            "（笑）好吧好吧（摊手），那就这样定了，明天早上8:30在门口见:D",
+            "短句。嗯。好。这是一个足够长的句子，用来测试最小长度的合并逻辑！",
+            "版本号是v2.0.1，下载地址见官网……如果遇到问题(比如安装失败)请重启。",
+            "He said \"hello\" and left; she replied: \"bye\"... then (quietly) closed the door.",
+    };
+
+    @Test
+    void matchesRegexSegmenterOnCorpus() {
+        Random random = new Random(20240521L);
+        for (String reply : CORPUS) {
+            for (int round = 0; round < 20; round++) {
+                List<String> tokens = tokenize(reply, random);
+                assertThat(split(tokens)).as(reply).isEqualTo(splitWithRegex(tokens));
+            }
+        }
+    }
+
+    @Test
+    void matchesRegexSegmenterOnRandomText() {
+        String alphabet = "好的天气今天我你他是了吗呢啊abcoD0123456789 .。，、；,;：:\"！？!?\n\r()（）<>＜＞^_-=/\\¯*ツ～…😊🍎";
+        int[] codePoints = alphabet.codePoints().toArray();
+        Random random = new Random(7L);
+        for (int round = 0; round < 3000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                text.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+            }
+            List<String> tokens = tokenize(text.toString(), random);
+            assertThat(split(tokens)).as(text.toString()).isEqualTo(splitWithRegex(tokens));
+        }
+    }
+
+    @Test
+    void keepsDecimalsAndWaitsForMinimumLength() {
+        List<String> sentences = split(List.of("气温在12.5到23度之间，", "好。", "午后有3级左右的东南风。"))
+                .stream().map(SentenceResult::text).filter(text -> !text.isEmpty()).toList();
+
+        assertThat(sentences).containsExactly("气温在12.5到23度之间，", "好。午后有3级左右的东南风。");
+    }
+
+    private static List<SentenceResult> split(List<String> tokens) {
+        SentenceHelper helper = new SentenceHelper();
+        List<SentenceResult> results = new ArrayList<>();
+        for (String token : tokens) {
+            results.addAll(helper.take(token));
+        }
+        results.add(helper.take());
+        return results;
+    }
+
+    private static List<SentenceResult> splitWithRegex(List<String> tokens) {
+        RegexSentenceHelper helper = new RegexSentenceHelper();
+        List<SentenceResult> results = new ArrayList<>();
+        for (String token : tokens) {
+            results.addAll(helper.take(token));
+        }
+        results.add(helper.take());
+        return results;
+    }
+
+    /**
+     * 按 1~4 个字符切分，偶尔把代理对拆到两个 token 里
+     */
+    private static List<String> tokenize(String text, Random random) {
+        List<String> tokens = new ArrayList<>();
+        int offset = 0;
+        while (offset < text.length()) {
+            int end = Math.min(text.length(), offset + 1 + random.nextInt(4));
+            tokens.add(text.substring(offset, end));
+            offset = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * 逐字符正则判断、每个字符都对整句查找颜文字的原实现，作为分句边界的参照
+     */
+    private static class RegexSentenceHelper {
+
+        private static final Pattern SENTENCE_END_PATTERN = Pattern.compile("[。！？!?]");
+        private static final Pattern PAUSE_PATTERN = Pattern.compile("[，、；,;]");
+        private static final Pattern SPECIAL_PATTERN = Pattern.compile("[：:\"]");
+        private static final Pattern NEWLINE_PATTERN = Pattern.compile("[\n\r]");
+        private static final int MIN_SENTENCE_LENGTH = 8;
+
+        private final StringBuilder currentSentence = new StringBuilder();
+
+        List<SentenceResult> take(String token) {
+            List<SentenceResult> sentences = new ArrayList<>();
+            for (int i = 0; i < token.length();) {
+                int codePoint = token.codePointAt(i);
+                String charStr = new String(Character.toChars(codePoint));
+                currentSentence.append(charStr);
+
+                boolean isEndMark = SENTENCE_END_PATTERN.matcher(charStr).find();
+                boolean isPauseMark = PAUSE_PATTERN.matcher(charStr).find();
+                boolean isSpecialMark = SPECIAL_PATTERN.matcher(charStr).find();
+                boolean isNewline = NEWLINE_PATTERN.matcher(charStr).find();
+                boolean isEmoji = EmojiUtils.isEmoji(codePoint);
+                boolean containsKaomoji = currentSentence.length() >= 3
+                        && EmojiUtils.containsKaomoji(currentSentence.toString());
+
+                boolean shouldSendSentence = isEndMark || isNewline
+                        || ((isPauseMark || isSpecialMark || isEmoji || containsKaomoji)
+                        && currentSentence.length() >= MIN_SENTENCE_LENGTH);
+
+                if (shouldSendSentence && currentSentence.length() >= MIN_SENTENCE_LENGTH) {
+                    String rawSentence = currentSentence.toString().trim();
+                    List<String> moods = new ArrayList<>();
+                    String cleanSentence = EmojiUtils.processSentence(rawSentence, moods);
+                    if (cleanSentence.trim().length() >= MIN_SENTENCE_LENGTH
+                            && cleanSentence.replaceAll("[\\p{P}\\s]", "").length() >= 2) {
+                        sentences.add(new SentenceResult(cleanSentence, moods.isEmpty() ? null : moods.get(0)));
+                        currentSentence.setLength(0);
+                    }
+                }
+                i += Character.charCount(codePoint);
+            }
+            return sentences;
+        }
+
+        SentenceResult take() {
+            String rawSentence = currentSentence.toString().trim();
+            if (rawSentence.isEmpty()) {
+                return new SentenceResult("", null);
+            }
+            List<String> moods = new ArrayList<>();
+            String cleanSentence = EmojiUtils.processSentence(rawSentence, moods);
+            return new SentenceResult(cleanSentence, moods.isEmpty() ? null : moods.get(0));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.dialogue.audio.AecService;
+import com.xiaozhi.event.TtsPlaybackCompletedEvent;
+import com.xiaozhi.utils.AudioUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AEC：TTS 下行每帧喂入参考通道（解码 + 6 个 10ms 子帧 processReverseStream），
+ * 麦克风上行每 60ms 的 processStream（返回新数组 / 原地处理），
+ * 以及每轮 TTS 播放结束时的回声消除器重置。配合 -prof gc 查看每帧分配量。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AecServiceBenchmark {
+
+    private static final String SESSION_ID = "benchmark-session";
+    private static final int FRAME_BYTES = AudioUtils.FRAME_SIZE * 2;
+
+    private AecService aecService;
+    private List<byte[]> referenceFrames;
+    private byte[][] micFrames;
+    private byte[] micBuffer;
+    private TtsPlaybackCompletedEvent playbackEnd;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        aecService = new AecService();
+        BenchmarkFixtures.inject(aecService, "enabled", true);
+        BenchmarkFixtures.inject(aecService, "streamDelayMs", 120);
+        BenchmarkFixtures.inject(aecService, "noiseSuppressionLevel", "MODERATE");
+        aecService.initSession(SESSION_ID);
+
+        referenceFrames = BenchmarkFixtures.speechOpusFrames(10_000);
+        byte[] mic = BenchmarkFixtures.speechPcm(10_000, AudioUtils.SAMPLE_RATE);
+        micFrames = new byte[mic.length / FRAME_BYTES][];
+        for (int i = 0; i < micFrames.length; i++) {
+            micFrames[i] = Arrays.copyOfRange(mic, i * FRAME_BYTES, (i + 1) * FRAME_BYTES);
+        }
+        micBuffer = new byte[FRAME_BYTES];
+        playbackEnd = new TtsPlaybackCompletedEvent(this, SESSION_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        aecService.resetSession(SESSION_ID);
+    }
+
+    @Benchmark
+    public void feedReference() {
+        aecService.feedReference(SESSION_ID, referenceFrames.get(cursor));
+        cursor = (cursor + 1) % referenceFrames.size();
+    }
+
+    @Benchmark
+    public byte[] process() {
+        byte[] frame = micFrames[cursor];
+        cursor = (cursor + 1) % micFrames.length;
+        return aecService.process(SESSION_ID, frame);
+    }
+
+    @Benchmark
+    public byte[] processInPlace() {
+        System.arraycopy(micFrames[cursor], 0, micBuffer, 0, FRAME_BYTES);
+        cursor = (cursor + 1) % micFrames.length;
+        aecService.process(SESSION_ID, micBuffer, FRAME_BYTES);
+        return micBuffer;
+    }
+
+    @Benchmark
+    public void playbackEndReset() {
+        aecService.onTtsPlaybackEnd(playbackEnd);
+    }
+}
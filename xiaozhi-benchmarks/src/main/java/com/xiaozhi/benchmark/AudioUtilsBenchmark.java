@@ -0,0 +1,37 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.utils.AudioUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PCM 重采样：MP3/第三方 TTS 输出（24k/48k）转为设备使用的 16k，每句一次、按整句长度计
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AudioUtilsBenchmark {
+
+    @Param({"24000", "48000"})
+    private int fromRate;
+
+    /** 一句 TTS 的典型时长 */
+    @Param({"3000"})
+    private int durationMs;
+
+    private byte[] pcm;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pcm = BenchmarkFixtures.speechPcm(durationMs, fromRate);
+    }
+
+    @Benchmark
+    public byte[] resamplePcm() {
+        return AudioUtils.resamplePcm(pcm, fromRate, AudioUtils.SAMPLE_RATE);
+    }
+}
@@ -0,0 +1,111 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.utils.AudioUtils;
+import com.xiaozhi.utils.OpusProcessor;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的固定输入。
+ *
+ * 所有数据由固定种子在内存中生成，不依赖网络、数据库或录音文件，
+ * 同一份代码在不同提交上跑出来的输入完全一致，结果可以直接对比。
+ */
+public final class BenchmarkFixtures {
+
+    private static final long SEED = 20240521L;
+
+    /** Silero 模型路径，默认相对项目根目录（exec 插件的工作目录） */
+    public static final String VAD_MODEL_PATH = System.getProperty("xiaozhi.vad.model.path", "models/silero_vad.onnx");
+
+    private static final String REPLY_PARAGRAPH = """
+            好的，我来帮你看一下今天的天气情况！北京今天多云转晴，气温在12.5到23度之间，\
+            午后有3级左右的东南风；空气质量良，适合户外活动。不过早晚温差比较大，\
+            记得带一件薄外套哦～如果你打算去爬山的话，建议上午九点前出发："山顶风大，注意保暖"。
+            另外，明天可能会有小雨，降水概率大约是60%，出门记得带伞。你还想了解哪个城市的天气呢？😊
+            """;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 合成类语音信号：基频缓慢漂移的谐波 + 4Hz 音节包络 + 少量底噪，
+     * 能让 VAD 给出有起伏的概率、让 Opus 走到正常的语音编码路径。
+     *
+     * @return 16bit 小端单声道 PCM
+     */
+    public static byte[] speechPcm(int durationMs, int sampleRate) {
+        Random random = new Random(SEED);
+        int samples = sampleRate * durationMs / 1000;
+        float[] out = new float[samples];
+        double phase = 0;
+        for (int i = 0; i < samples; i++) {
+            double t = (double) i / sampleRate;
+            double envelope = 0.5 * (1 - Math.cos(2 * Math.PI * 4 * t));
+            double f0 = 140 + 30 * Math.sin(2 * Math.PI * 0.5 * t);
+            phase += 2 * Math.PI * f0 / sampleRate;
+            double voiced = 0.5 * Math.sin(phase) + 0.25 * Math.sin(2 * phase) + 0.12 * Math.sin(3 * phase);
+            out[i] = (float) (envelope * voiced * 0.6 + random.nextGaussian() * 0.01);
+        }
+        return AudioUtils.floatToPcm16(out);
+    }
+
+    /**
+     * 16kHz 语音信号编码后的 60ms Opus 帧序列，与设备上行的帧格式一致
+     */
+    public static List<byte[]> speechOpusFrames(int durationMs) {
+        OpusProcessor encoder = new OpusProcessor();
+        List<byte[]> frames = new ArrayList<>(encoder.pcmToOpus(speechPcm(durationMs, AudioUtils.SAMPLE_RATE), true));
+        frames.addAll(encoder.flushLeftover());
+        return frames;
+    }
+
+    /**
+     * 一段较长的 LLM 回复（中英文标点、小数、引号、换行、表情混排）
+     */
+    public static String longReply(int paragraphs) {
+        return REPLY_PARAGRAPH.repeat(paragraphs);
+    }
+
+    /**
+     * 按 1~4 个字符切分为 token，模拟 LLM 流式输出的粒度
+     */
+    public static List<String> tokenize(String text) {
+        Random random = new Random(SEED);
+        List<String> tokens = new ArrayList<>();
+        int offset = 0;
+        while (offset < text.length()) {
+            int end = Math.min(text.length(), offset + 1 + random.nextInt(4));
+            // 不拆开代理对，避免表情被切成半个字符
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end++;
+            }
+            tokens.add(text.substring(offset, end));
+            offset = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * 为 Spring 管理的 Bean 注入字段（@Value / @Resource），基准中不启动 Spring 容器
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法注入字段: " + fieldName, e);
+            }
+        }
+        throw new IllegalArgumentException("字段不存在: " + target.getClass().getName() + "." + fieldName);
+    }
+}
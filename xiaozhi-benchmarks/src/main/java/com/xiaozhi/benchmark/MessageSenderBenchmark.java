@@ -0,0 +1,96 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.communication.common.ChatSession;
+import com.xiaozhi.communication.message.MessageSender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下行 JSON 消息构建：每句 TTS 至少一条 sentence_start，每轮一条 stt 和 emotion
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageSenderBenchmark {
+
+    private static final String SENTENCE = "北京今天多云转晴，气温在12.5到23度之间，适合户外活动。";
+
+    private MessageSender messageSender;
+    private CapturingSession session;
+    private List<Map<String, Object>> iotCommands;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        messageSender = new MessageSender(event -> { }, new SimpleMeterRegistry());
+        session = new CapturingSession();
+        iotCommands = List.of(Map.of(
+                "name", "Speaker",
+                "method", "SetVolume",
+                "parameters", Map.of("volume", 80)));
+    }
+
+    @Benchmark
+    public String sendTtsSentenceStart() {
+        messageSender.sendTtsMessage(session, SENTENCE, "sentence_start");
+        return session.last;
+    }
+
+    @Benchmark
+    public String sendStt() {
+        messageSender.sendSttMessage(session, SENTENCE);
+        return session.last;
+    }
+
+    @Benchmark
+    public String sendEmotion() {
+        messageSender.sendEmotion(session, "happy");
+        return session.last;
+    }
+
+    @Benchmark
+    public String sendIotCommand() {
+        messageSender.sendIotCommandMessage(session, iotCommands);
+        return session.last;
+    }
+
+    /**
+     * 只记录最后一条消息的会话，排除网络写出的开销
+     */
+    static class CapturingSession extends ChatSession {
+        String last;
+
+        CapturingSession() {
+            super("benchmark-session");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public boolean isAudioChannelOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void sendTextMessage(String message) {
+            last = message;
+        }
+
+        @Override
+        public void sendBinaryMessage(byte[] message) {
+        }
+    }
+}
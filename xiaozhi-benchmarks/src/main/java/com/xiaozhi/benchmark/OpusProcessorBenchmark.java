@@ -0,0 +1,74 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.utils.AudioUtils;
+import com.xiaozhi.utils.OpusProcessor;
+import io.github.jaredmdobson.concentus.OpusException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opus 编解码：设备上行每 60ms 解码一帧，TTS 下行按 60ms 帧流式编码。
+ * *Into / *Consumer 为写入复用缓冲的版本
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OpusProcessorBenchmark {
+
+    private static final int FRAME_BYTES = AudioUtils.FRAME_SIZE * 2;
+
+    private OpusProcessor processor;
+    private List<byte[]> opusFrames;
+    private byte[][] pcmFrames;
+    private final byte[] pcmOut = new byte[OpusProcessor.MAX_PCM_BYTES];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        processor = new OpusProcessor();
+        opusFrames = BenchmarkFixtures.speechOpusFrames(10_000);
+        byte[] pcm = BenchmarkFixtures.speechPcm(10_000, AudioUtils.SAMPLE_RATE);
+        pcmFrames = new byte[pcm.length / FRAME_BYTES][];
+        for (int i = 0; i < pcmFrames.length; i++) {
+            pcmFrames[i] = Arrays.copyOfRange(pcm, i * FRAME_BYTES, (i + 1) * FRAME_BYTES);
+        }
+    }
+
+    @Benchmark
+    public byte[] opusToPcm() throws OpusException {
+        byte[] frame = opusFrames.get(cursor);
+        cursor = (cursor + 1) % opusFrames.size();
+        return processor.opusToPcm(frame);
+    }
+
+    @Benchmark
+    public List<byte[]> pcmToOpus() {
+        byte[] frame = pcmFrames[cursor];
+        cursor = (cursor + 1) % pcmFrames.length;
+        return processor.pcmToOpus(frame, true);
+    }
+
+    /**
+     * 解码到复用缓冲，配合 -prof gc 对比 opusToPcm 的每帧分配量
+     */
+    @Benchmark
+    public int opusToPcmInto() throws OpusException {
+        byte[] frame = opusFrames.get(cursor);
+        cursor = (cursor + 1) % opusFrames.size();
+        return processor.opusToPcm(frame, 0, frame.length, pcmOut);
+    }
+
+    @Benchmark
+    public int pcmToOpusConsumer(Blackhole blackhole) {
+        byte[] frame = pcmFrames[cursor];
+        cursor = (cursor + 1) % pcmFrames.length;
+        return processor.pcmToOpus(frame, 0, frame.length, true, (buffer, length) -> blackhole.consume(length));
+    }
+}
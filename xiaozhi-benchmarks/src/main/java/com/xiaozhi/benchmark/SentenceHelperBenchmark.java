@@ -0,0 +1,42 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.ai.tts.SentenceHelper;
+import com.xiaozhi.ai.tts.SentenceHelper.SentenceResult;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分句：一整轮 LLM 长回复按流式 token 逐个喂入 SentenceHelper
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SentenceHelperBenchmark {
+
+    @Param({"1", "8"})
+    private int paragraphs;
+
+    private List<String> tokens;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tokens = BenchmarkFixtures.tokenize(BenchmarkFixtures.longReply(paragraphs));
+    }
+
+    @Benchmark
+    public void splitStreamingReply(Blackhole blackhole) {
+        SentenceHelper helper = new SentenceHelper();
+        for (String token : tokens) {
+            for (SentenceResult sentence : helper.take(token)) {
+                blackhole.consume(sentence);
+            }
+        }
+        blackhole.consume(helper.take());
+    }
+}
@@ -0,0 +1,63 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.communication.common.SessionManager;
+import com.xiaozhi.dialogue.audio.VadService;
+import com.xiaozhi.dialogue.audio.VadService.VadResult;
+import com.xiaozhi.dialogue.audio.vad.SileroVadBatcher;
+import com.xiaozhi.dialogue.audio.vad.VadModel.InferenceResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VAD 每帧路径的分配量：Silero 推理替换为固定结果，只剩解码、样本转换、窗口拼接、预缓冲和状态机。
+ * 配合 GC profiler 运行，关注 gc.alloc.rate.norm（每帧分配字节数）：
+ *
+ * <pre>-Djmh.args="VadFramePathBenchmark -prof gc"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class VadFramePathBenchmark {
+
+    private static final String SESSION_ID = "vad-frame-path";
+
+    /**
+     * 设备静听时的稳态：概率始终低于阈值，每帧走 NO_SPEECH 分支
+     */
+    static class FixedBatcher extends SileroVadBatcher {
+        private final InferenceResult result = new InferenceResult(0.05f, new float[2][1][128]);
+
+        @Override
+        public InferenceResult infer(float[] samples, float[] context, float[][][] prevState) {
+            return result;
+        }
+    }
+
+    private VadService vadService;
+    private List<byte[]> frames;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        vadService = new VadService();
+        BenchmarkFixtures.inject(vadService, "vadBatcher", new FixedBatcher());
+        BenchmarkFixtures.inject(vadService, "sessionManager", new SessionManager());
+        BenchmarkFixtures.inject(vadService, "preBufferMs", 500);
+        BenchmarkFixtures.inject(vadService, "tailKeepMs", 300);
+        vadService.initSession(SESSION_ID);
+
+        frames = BenchmarkFixtures.speechOpusFrames(10_000);
+    }
+
+    @Benchmark
+    public VadResult processAudio() {
+        byte[] frame = frames.get(cursor);
+        cursor = (cursor + 1) % frames.size();
+        return vadService.processAudio(SESSION_ID, frame);
+    }
+}
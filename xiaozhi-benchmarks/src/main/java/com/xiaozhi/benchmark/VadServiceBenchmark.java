@@ -0,0 +1,88 @@
+package com.xiaozhi.benchmark;
+
+import com.xiaozhi.communication.common.SessionManager;
+import com.xiaozhi.dialogue.audio.VadService;
+import com.xiaozhi.dialogue.audio.VadService.VadResult;
+import com.xiaozhi.dialogue.audio.vad.SileroVadBatcher;
+import com.xiaozhi.dialogue.audio.vad.SileroVadModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VAD：每个上行 Opus 帧的完整处理（解码 → Silero 推理 → 状态机），使用项目自带的 models/silero_vad.onnx。
+ * 多线程模拟多台设备同时推流，batched=true 时经 SileroVadBatcher 合并推理。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class VadServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Service {
+
+        @Param({"false", "true"})
+        private boolean batched;
+
+        VadService vadService;
+        SileroVadModel model;
+        SileroVadBatcher batcher;
+        List<byte[]> frames;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            model = new SileroVadModel();
+            BenchmarkFixtures.inject(model, "modelPath", BenchmarkFixtures.VAD_MODEL_PATH);
+            model.initialize();
+
+            batcher = new SileroVadBatcher();
+            BenchmarkFixtures.inject(batcher, "vadModel", model);
+            BenchmarkFixtures.inject(batcher, "enabled", batched);
+            BenchmarkFixtures.inject(batcher, "maxBatchSize", 32);
+            BenchmarkFixtures.inject(batcher, "maxWaitMicros", 2000L);
+            BenchmarkFixtures.inject(batcher, "workers", 1);
+            batcher.start();
+
+            vadService = new VadService();
+            BenchmarkFixtures.inject(vadService, "vadBatcher", batcher);
+            BenchmarkFixtures.inject(vadService, "sessionManager", new SessionManager());
+            BenchmarkFixtures.inject(vadService, "preBufferMs", 500);
+            BenchmarkFixtures.inject(vadService, "tailKeepMs", 300);
+
+            frames = BenchmarkFixtures.speechOpusFrames(10_000);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            batcher.stop();
+            model.close();
+        }
+    }
+
+    /**
+     * 每个线程相当于一台设备，拥有独立的会话和帧游标
+     */
+    @State(Scope.Thread)
+    public static class Device {
+        String sessionId;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup(Service service) {
+            sessionId = UUID.randomUUID().toString();
+            service.vadService.initSession(sessionId);
+        }
+    }
+
+    @Benchmark
+    public VadResult processAudio(Service service, Device device) {
+        byte[] frame = service.frames.get(device.cursor);
+        device.cursor = (device.cursor + 1) % service.frames.size();
+        return service.vadService.processAudio(device.sessionId, frame);
+    }
+}
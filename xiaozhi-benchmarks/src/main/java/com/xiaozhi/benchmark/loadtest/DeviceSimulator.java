@@ -0,0 +1,197 @@
+package com.xiaozhi.benchmark.loadtest;
+
+import com.xiaozhi.benchmark.BenchmarkFixtures;
+import com.xiaozhi.utils.AudioUtils;
+import com.xiaozhi.utils.OpusProcessor;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备模拟器：在一台机器上打开 N 个模拟 ESP32 的 WebSocket 会话，对服务端做端到端压测。
+ *
+ * 服务端的角色使用 stub 的 STT / TTS / LLM（provider 为 stub，延迟通过 xiaozhi.stub.* 配置），
+ * 整个过程不访问任何外部服务。设备、角色和配置可用 --seed 生成 SQL 导入。
+ *
+ * <pre>
+ * java -cp xiaozhi-benchmarks/target/benchmarks.jar com.xiaozhi.benchmark.loadtest.DeviceSimulator \
+ *     --devices=200 --turns=5 --url=ws://127.0.0.1:8091/ws/xiaozhi/v1/
+ * </pre>
+ *
+ * 参数（均为 --key=value）：
+ * - url / actuator：服务端 WebSocket 地址和 actuator 地址（actuator 在管理端口上，默认只监听本机）
+ * - devices / turns：设备数、每台设备的对话轮数
+ * - prefix：设备ID前缀，设备ID为 prefix + 四位序号
+ * - ramp-ms：相邻设备建立连接的间隔
+ * - think-ms：每轮结束到下一轮开始的间隔
+ * - audio：上行的录音文件（16kHz 单声道 wav/mp3/ogg），默认使用合成语音
+ * - speech-ms：合成语音时长
+ * - text：设置后改为发送 listen text，跳过 VAD 和 STT
+ * - turn-timeout-ms / late-ms：单轮超时、下行帧迟到判定容差
+ * - seed：只输出 stub 配置、压测角色和设备的初始化 SQL，不发起压测
+ */
+public class DeviceSimulator {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int devices = intOption(options, "devices", 10);
+        String prefix = options.getOrDefault("prefix", "loadtest-");
+
+        if (options.containsKey("seed")) {
+            System.out.print(seedSql(devices, prefix));
+            return;
+        }
+
+        URI uri = URI.create(options.getOrDefault("url", "ws://127.0.0.1:8091/ws/xiaozhi/v1/"));
+        String actuator = options.getOrDefault("actuator", "http://127.0.0.1:18091/actuator");
+        int turns = intOption(options, "turns", 3);
+        long rampMs = intOption(options, "ramp-ms", 50);
+        long thinkMs = intOption(options, "think-ms", 2000);
+        long lateMs = intOption(options, "late-ms", 30);
+        Duration turnTimeout = Duration.ofMillis(intOption(options, "turn-timeout-ms", 30_000));
+        String text = options.get("text");
+        List<byte[]> frames = text != null ? List.of() : loadFrames(options);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        ServerMetrics serverMetrics = new ServerMetrics(client, actuator);
+        LoadTestReport report = new LoadTestReport();
+
+        report.baselineHeap(serverMetrics.heapUsedBytes());
+        ServerMetrics.Playback playbackBefore = serverMetrics.playback();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("loadtest-sampler").daemon(true).factory());
+        sampler.scheduleAtFixedRate(() -> report.sample(serverMetrics.cpuCores(), serverMetrics.heapUsedBytes()),
+                SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        System.out.printf("连接 %d 台设备 -> %s (%s)%n", devices, uri,
+                text != null ? "文本模式" : frames.size() + " 帧语音/轮");
+        long started = System.nanoTime();
+        CountDownLatch finished = new CountDownLatch(devices);
+        List<SimulatedDevice> sessions = new ArrayList<>(devices);
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("device-", 0).factory())) {
+            for (int i = 0; i < devices; i++) {
+                SimulatedDevice device = new SimulatedDevice(deviceId(prefix, i), report, lateMs);
+                sessions.add(device);
+                long offsetMs = i * rampMs;
+                executor.execute(() -> {
+                    try {
+                        Thread.sleep(offsetMs);
+                        run(device, client, uri, frames, text, turns, thinkMs, turnTimeout, report);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            finished.await();
+        } finally {
+            sessions.forEach(SimulatedDevice::close);
+            sampler.shutdownNow();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        report.playback(playbackBefore, serverMetrics.playback());
+        System.out.print(report.render(devices, turns, elapsedMs));
+    }
+
+    private static void run(SimulatedDevice device, HttpClient client, URI uri, List<byte[]> frames, String text,
+                            int turns, long thinkMs, Duration turnTimeout, LoadTestReport report)
+            throws InterruptedException {
+        try {
+            device.connect(client, uri, CONNECT_TIMEOUT);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            report.connectFailed();
+            return;
+        }
+        for (int turn = 0; turn < turns; turn++) {
+            boolean completed = text != null ? device.say(text, turnTimeout) : device.speak(frames, turnTimeout);
+            if (!completed) {
+                return;
+            }
+            Thread.sleep(thinkMs);
+        }
+    }
+
+    private static List<byte[]> loadFrames(Map<String, String> options) throws Exception {
+        String audio = options.get("audio");
+        if (audio == null) {
+            return BenchmarkFixtures.speechOpusFrames(intOption(options, "speech-ms", 2000));
+        }
+        OpusProcessor encoder = new OpusProcessor();
+        List<byte[]> frames = new ArrayList<>(encoder.pcmToOpus(AudioUtils.readAsPcm(audio), true));
+        frames.addAll(encoder.flushLeftover());
+        return frames;
+    }
+
+    /**
+     * stub 配置、压测角色以及绑定到该角色的设备，userId 使用初始化脚本中的管理员
+     */
+    static String seedSql(int devices, String prefix) {
+        StringBuilder sql = new StringBuilder("""
+                INSERT INTO sys_config (userId, configType, modelType, provider, configName, configDesc)
+                VALUES (1, 'llm', 'chat', 'stub', 'stub-llm', '压测用本地模型');
+                SET @llm = LAST_INSERT_ID();
+                INSERT INTO sys_config (userId, configType, provider, configName, configDesc)
+                VALUES (1, 'stt', 'stub', 'stub-stt', '压测用本地语音识别');
+                SET @stt = LAST_INSERT_ID();
+                INSERT INTO sys_config (userId, configType, provider, configName, configDesc)
+                VALUES (1, 'tts', 'stub', 'stub-tts', '压测用本地语音合成');
+                SET @tts = LAST_INSERT_ID();
+                INSERT INTO sys_role (roleName, roleDesc, ttsId, modelId, sttId, voiceName, memoryType, userId)
+                VALUES ('压测角色', '你是一个简洁的语音助手。', @tts, @llm, @stt, 'stub', 'window', 1);
+                SET @role = LAST_INSERT_ID();
+                INSERT INTO sys_device (deviceId, deviceName, roleId, type, userId) VALUES
+                """);
+        for (int i = 0; i < devices; i++) {
+            String id = deviceId(prefix, i);
+            sql.append(String.format("('%s', '%s', @role, 'loadtest', 1)%s%n", id, id, i == devices - 1 ? ";" : ","));
+        }
+        return sql.toString();
+    }
+
+    private static String deviceId(String prefix, int index) {
+        return String.format("%s%04d", prefix, index + 1);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
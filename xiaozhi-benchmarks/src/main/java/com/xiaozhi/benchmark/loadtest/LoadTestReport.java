@@ -0,0 +1,143 @@
+package com.xiaozhi.benchmark.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测结果汇总：客户端测得的每轮延迟、下行帧到达情况，以及从服务端 actuator 采到的资源占用。
+ */
+class LoadTestReport {
+
+    private final List<Long> stt = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> response = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> turn = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> lateness = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong connectFailures = new AtomicLong();
+
+    // 服务端采样
+    private final List<Double> cpuCores = Collections.synchronizedList(new ArrayList<>());
+    private final List<Double> heapBytes = Collections.synchronizedList(new ArrayList<>());
+    private double baselineHeapBytes = Double.NaN;
+    private ServerMetrics.Playback playbackBefore;
+    private ServerMetrics.Playback playbackAfter;
+
+    void stt(long nanos) {
+        stt.add(nanos);
+    }
+
+    void response(long nanos) {
+        response.add(nanos);
+    }
+
+    void turn(long nanos) {
+        turn.add(nanos);
+    }
+
+    void lateFrame(long lateNanos) {
+        lateness.add(lateNanos);
+    }
+
+    void frame() {
+        frames.incrementAndGet();
+    }
+
+    void turnTimedOut() {
+        timeouts.incrementAndGet();
+    }
+
+    void disconnected() {
+        disconnects.incrementAndGet();
+    }
+
+    void connectFailed() {
+        connectFailures.incrementAndGet();
+    }
+
+    void baselineHeap(double bytes) {
+        baselineHeapBytes = bytes;
+    }
+
+    void sample(double cpuCoresUsed, double heapUsedBytes) {
+        if (!Double.isNaN(cpuCoresUsed)) {
+            cpuCores.add(cpuCoresUsed);
+        }
+        if (!Double.isNaN(heapUsedBytes)) {
+            heapBytes.add(heapUsedBytes);
+        }
+    }
+
+    void playback(ServerMetrics.Playback before, ServerMetrics.Playback after) {
+        this.playbackBefore = before;
+        this.playbackAfter = after;
+    }
+
+    String render(int devices, int turnsPerDevice, long elapsedMs) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%n== 设备模拟压测: %d 台设备 × %d 轮, 用时 %.1fs ==%n",
+                devices, turnsPerDevice, elapsedMs / 1000.0));
+        out.append(String.format(Locale.ROOT, "完成轮次: %d, 超时: %d, 连接失败: %d, 断开: %d%n",
+                turn.size(), timeouts.get(), connectFailures.get(), disconnects.get()));
+
+        out.append(String.format(Locale.ROOT, "%n%-28s %8s %8s %8s %8s %8s%n", "延迟 (ms)", "count", "p50", "p95", "p99", "max"));
+        appendLatency(out, "说完 → stt", stt);
+        appendLatency(out, "说完 → 首帧", response);
+        appendLatency(out, "说完 → tts stop", turn);
+
+        long received = frames.get();
+        out.append(String.format(Locale.ROOT, "%n下行帧: %d, 客户端迟到帧: %d (%.2f%%)%n",
+                received, lateness.size(), received == 0 ? 0 : lateness.size() * 100.0 / received));
+        appendLatency(out, "迟到帧超出间隔", lateness);
+        if (playbackBefore != null && playbackAfter != null) {
+            out.append(String.format(Locale.ROOT, "服务端迟到帧: %d (最大 %.1fms), 丢弃帧: %d%n",
+                    playbackAfter.lateFrames() - playbackBefore.lateFrames(), playbackAfter.maxLatenessMs(),
+                    playbackAfter.droppedFrames() - playbackBefore.droppedFrames()));
+        }
+
+        if (!cpuCores.isEmpty() || !heapBytes.isEmpty()) {
+            double cpu = average(cpuCores);
+            double heap = average(heapBytes);
+            out.append(String.format(Locale.ROOT, "%n服务端 CPU: 平均 %.2f 核 (每设备 %.3f 核)%n", cpu, cpu / devices));
+            out.append(String.format(Locale.ROOT, "服务端堆内存: 平均 %.1fMB", heap / 1024 / 1024));
+            if (!Double.isNaN(baselineHeapBytes)) {
+                out.append(String.format(Locale.ROOT, ", 基线 %.1fMB, 每设备约 %.1fKB",
+                        baselineHeapBytes / 1024 / 1024, (heap - baselineHeapBytes) / devices / 1024));
+            }
+            out.append(String.format("%n"));
+        } else {
+            out.append(String.format("%n未采集到服务端资源指标（actuator 不可达）%n"));
+        }
+        return out.toString();
+    }
+
+    private static void appendLatency(StringBuilder out, String name, List<Long> samples) {
+        List<Long> sorted;
+        synchronized (samples) {
+            sorted = new ArrayList<>(samples);
+        }
+        Collections.sort(sorted);
+        out.append(String.format(Locale.ROOT, "%-28s %8d %8.1f %8.1f %8.1f %8.1f%n", name, sorted.size(),
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted.isEmpty() ? 0 : sorted.getLast() / 1e6));
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    private static double average(List<Double> samples) {
+        synchronized (samples) {
+            return samples.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+        }
+    }
+}
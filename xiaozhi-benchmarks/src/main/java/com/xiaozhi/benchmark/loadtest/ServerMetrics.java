@@ -0,0 +1,71 @@
+package com.xiaozhi.benchmark.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.xiaozhi.utils.JsonUtil;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * 从服务端 /actuator/metrics 读取资源占用和播放器指标，指标不存在或不可达时返回 NaN / 0
+ */
+class ServerMetrics {
+
+    record Playback(long lateFrames, double maxLatenessMs, long droppedFrames) {
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    ServerMetrics(HttpClient client, String actuatorUrl) {
+        this.client = client;
+        this.baseUrl = actuatorUrl.endsWith("/") ? actuatorUrl : actuatorUrl + "/";
+    }
+
+    /**
+     * 服务端进程占用的 CPU 核数
+     */
+    double cpuCores() {
+        return measurement("process.cpu.usage", "", "VALUE") * measurement("system.cpu.count", "", "VALUE");
+    }
+
+    double heapUsedBytes() {
+        return measurement("jvm.memory.used", "?tag=area:heap", "VALUE");
+    }
+
+    Playback playback() {
+        double late = measurement("xiaozhi.playback.frame-lateness", "", "COUNT");
+        double max = measurement("xiaozhi.playback.frame-lateness", "", "MAX");
+        double dropped = measurement("xiaozhi.playback.dropped-frames", "", "COUNT");
+        return new Playback(Double.isNaN(late) ? 0 : (long) late,
+                Double.isNaN(max) ? 0 : max * 1000,
+                Double.isNaN(dropped) ? 0 : (long) dropped);
+    }
+
+    private double measurement(String name, String query, String statistic) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "metrics/" + name + query))
+                    .timeout(Duration.ofSeconds(3))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return Double.NaN;
+            }
+            JsonNode root = JsonUtil.OBJECT_MAPPER.readTree(response.body());
+            for (JsonNode measurement : root.path("measurements")) {
+                if (statistic.equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,217 @@
+package com.xiaozhi.benchmark.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.xiaozhi.utils.AudioUtils;
+import com.xiaozhi.utils.JsonUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 一台模拟的 ESP32 设备：与固件相同的 hello → listen start → 上行 Opus 帧 → listen stop 流程，
+ * 并在收到下行消息时记录每轮的时间点。
+ *
+ * 一轮的计时起点是 listen stop（文本模式下是 listen text）发出的时刻：
+ * - stt：收到 stt 消息
+ * - response：收到第一个 Opus 帧
+ * - turn：收到 tts stop
+ * 下行帧按到达间隔判断迟到：同一句内间隔超过 60ms + lateToleranceMs 记为一次迟到，
+ * 每句开头两帧（播放开始的预缓冲、句间停顿之后的第一帧）不参与判断。
+ */
+@Slf4j
+class SimulatedDevice implements WebSocket.Listener {
+
+    private static final long FRAME_NS = AudioUtils.OPUS_FRAME_DURATION_MS * 1_000_000L;
+    // 每句开头不参与迟到判断的帧数，与 ScheduledPlayer 的预缓冲帧数一致
+    private static final int BURST_FRAMES = 2;
+
+    private static final String HELLO = """
+            {"type":"hello","version":1,"transport":"websocket",\
+            "audio_params":{"format":"opus","sample_rate":16000,"channels":1,"frame_duration":60}}""";
+    private static final String LISTEN_START = "{\"type\":\"listen\",\"state\":\"start\",\"mode\":\"manual\"}";
+    private static final String LISTEN_STOP = "{\"type\":\"listen\",\"state\":\"stop\",\"mode\":\"manual\"}";
+
+    private final String deviceId;
+    private final LoadTestReport report;
+    private final long lateToleranceNs;
+
+    private WebSocket webSocket;
+    private final StringBuilder textBuffer = new StringBuilder();
+
+    private final CompletableFuture<Void> hello = new CompletableFuture<>();
+    private volatile CompletableFuture<Void> turnDone = new CompletableFuture<>();
+
+    // 本轮时间点，均由 WebSocket 回调线程写入
+    private volatile long turnStart;
+    private long sttAt;
+    private long firstFrameAt;
+    private long lastFrameAt;
+    private int framesInSentence;
+
+    SimulatedDevice(String deviceId, LoadTestReport report, long lateToleranceMs) {
+        this.deviceId = deviceId;
+        this.report = report;
+        this.lateToleranceNs = TimeUnit.MILLISECONDS.toNanos(lateToleranceMs);
+    }
+
+    void connect(HttpClient client, URI uri, Duration timeout) throws Exception {
+        webSocket = client.newWebSocketBuilder()
+                .header("device-id", deviceId)
+                .connectTimeout(timeout)
+                .buildAsync(uri, this)
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        webSocket.sendText(HELLO, true).join();
+        hello.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 以 60ms 的实时节奏上行一段语音，然后结束聆听并等待本轮播放结束
+     */
+    boolean speak(List<byte[]> frames, Duration turnTimeout) throws InterruptedException {
+        turnDone = new CompletableFuture<>();
+        webSocket.sendText(LISTEN_START, true).join();
+        long start = System.nanoTime();
+        for (int i = 0; i < frames.size(); i++) {
+            long wait = start + i * FRAME_NS - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            webSocket.sendBinary(ByteBuffer.wrap(frames.get(i)), true).join();
+        }
+        beginTurn();
+        webSocket.sendText(LISTEN_STOP, true).join();
+        return awaitTurn(turnTimeout);
+    }
+
+    /**
+     * 跳过 VAD/STT，直接发送文本，只测 LLM → TTS → 播放链路
+     */
+    boolean say(String text, Duration turnTimeout) throws InterruptedException {
+        turnDone = new CompletableFuture<>();
+        beginTurn();
+        webSocket.sendText(JsonUtil.toJson(Map.of(
+                "type", "listen", "state", "text", "mode", "manual", "text", text)), true).join();
+        return awaitTurn(turnTimeout);
+    }
+
+    void close() {
+        if (webSocket != null && !webSocket.isOutputClosed()) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "bye").orTimeout(2, TimeUnit.SECONDS);
+        }
+    }
+
+    private void beginTurn() {
+        sttAt = 0;
+        firstFrameAt = 0;
+        lastFrameAt = 0;
+        framesInSentence = 0;
+        turnStart = System.nanoTime();
+    }
+
+    private boolean awaitTurn(Duration turnTimeout) throws InterruptedException {
+        try {
+            turnDone.get(turnTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            report.turnTimedOut();
+            log.warn("本轮等待超时 - DeviceId: {}", deviceId);
+            return false;
+        } catch (ExecutionException e) {
+            report.turnTimedOut();
+            return false;
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+        textBuffer.append(data);
+        if (last) {
+            String payload = textBuffer.toString();
+            textBuffer.setLength(0);
+            onMessage(payload);
+        }
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket ws, ByteBuffer data, boolean last) {
+        if (last && turnStart != 0) {
+            onFrame(System.nanoTime());
+        }
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+        hello.completeExceptionally(new IllegalStateException("连接关闭: " + statusCode + " " + reason));
+        turnDone.completeExceptionally(new IllegalStateException("连接关闭: " + statusCode + " " + reason));
+        report.disconnected();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket ws, Throwable error) {
+        log.warn("连接异常 - DeviceId: {}, 原因: {}", deviceId, error.getMessage());
+        hello.completeExceptionally(error);
+        turnDone.completeExceptionally(error);
+        report.disconnected();
+    }
+
+    private void onMessage(String payload) {
+        JsonNode json;
+        try {
+            json = JsonUtil.OBJECT_MAPPER.readTree(payload);
+        } catch (Exception e) {
+            return;
+        }
+        String type = json.path("type").asText();
+        String state = json.path("state").asText();
+        long now = System.nanoTime();
+        switch (type) {
+            case "hello" -> hello.complete(null);
+            case "stt" -> {
+                if (turnStart != 0 && sttAt == 0) {
+                    sttAt = now;
+                    report.stt(now - turnStart);
+                }
+            }
+            case "tts" -> {
+                if ("sentence_start".equals(state)) {
+                    framesInSentence = 0;
+                } else if ("stop".equals(state) && turnStart != 0) {
+                    report.turn(now - turnStart);
+                    turnStart = 0;
+                    turnDone.complete(null);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void onFrame(long now) {
+        if (firstFrameAt == 0) {
+            firstFrameAt = now;
+            report.response(now - turnStart);
+        } else if (framesInSentence >= BURST_FRAMES && now - lastFrameAt > FRAME_NS + lateToleranceNs) {
+            report.lateFrame(now - lastFrameAt - FRAME_NS);
+        }
+        report.frame();
+        framesInSentence++;
+        lastFrameAt = now;
+    }
+}
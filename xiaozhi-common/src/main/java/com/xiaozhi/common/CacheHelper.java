@@ -2,9 +2,15 @@ package com.xiaozhi.common;
 
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.annotation.Resource;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -12,6 +18,10 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * 缓存助手类
  * 提供带分布式锁的缓存查询,防止缓存击穿
+ * <p>
+ * 对 {@link #LOCAL_CACHE_PREFIXES} 覆盖的 key 额外维护一层进程内近端缓存（L1），
+ * 音频帧路径上的 RoleBO / ConfigBO 查询命中后不再访问 Redis。
+ * L1 由仓储层 evict 和 Redis Pub/Sub 广播失效，TTL 只作为兜底。
  *
  * @author Joey
  */
@@ -19,9 +29,29 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class CacheHelper {
 
+    /**
+     * 允许进入 L1 的 lockKey 前缀。
+     * 只放只读使用的 BO；DeviceBO 会被会话原地修改（sessionId/roleId），共享实例会串数据，不能放进来。
+     */
+    private static final List<String> LOCAL_CACHE_PREFIXES = List.of("role:", "config:");
+
     @Resource
     private RedissonClient redissonClient;
 
+    @Value("${xiaozhi.cache.local.max-size:2000}")
+    private int localMaxSize;
+
+    @Value("${xiaozhi.cache.local.ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    private final ConcurrentHashMap<String, LocalEntry> localCache = new ConcurrentHashMap<>();
+
+    private record LocalEntry(Object value, long expireAt) {
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+
     /**
      * 带分布式锁的缓存查询
      * 防止缓存击穿 - 当缓存失效时,只有一个请求去查询数据库
@@ -33,6 +63,22 @@ public class CacheHelper {
      * @return 数据
      */
     public <T> T getWithLock(String lockKey, Supplier<T> cacheGetter, Supplier<T> dbGetter) {
+        if (!isLocalCacheable(lockKey)) {
+            return loadWithLock(lockKey, cacheGetter, dbGetter);
+        }
+        // 0. 进程内 L1 命中直接返回
+        T local = getLocal(lockKey);
+        if (local != null) {
+            return local;
+        }
+        T result = loadWithLock(lockKey, cacheGetter, dbGetter);
+        if (result != null) {
+            putLocal(lockKey, result);
+        }
+        return result;
+    }
+
+    private <T> T loadWithLock(String lockKey, Supplier<T> cacheGetter, Supplier<T> dbGetter) {
         // 1. 先尝试从缓存获取
         T cached = cacheGetter.get();
         if (cached != null) {
@@ -112,4 +158,86 @@ public class CacheHelper {
             return null;
         }
     }
+
+    /**
+     * 失效单个 L1 条目（key 与 {@link #getWithLock} 的 lockKey 一致）。
+     * 在事务中调用时，提交后再失效一次，防止提交前的并发读把旧值重新写回 L1。
+     */
+    public void evictLocal(String lockKey) {
+        if (lockKey == null) {
+            return;
+        }
+        localCache.remove(lockKey);
+        afterCommit(() -> localCache.remove(lockKey));
+    }
+
+    /**
+     * 按前缀失效 L1 条目，用于无法精确定位 key 的场景（如默认配置切换）
+     */
+    public void evictLocalByPrefix(String prefix) {
+        if (prefix == null) {
+            return;
+        }
+        localCache.keySet().removeIf(key -> key.startsWith(prefix));
+        afterCommit(() -> localCache.keySet().removeIf(key -> key.startsWith(prefix)));
+    }
+
+    private boolean isLocalCacheable(String lockKey) {
+        if (lockKey == null || localMaxSize <= 0) {
+            return false;
+        }
+        for (String prefix : LOCAL_CACHE_PREFIXES) {
+            if (lockKey.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getLocal(String lockKey) {
+        LocalEntry entry = localCache.get(lockKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            localCache.remove(lockKey, entry);
+            return null;
+        }
+        return (T) entry.value();
+    }
+
+    private void putLocal(String lockKey, Object value) {
+        long now = System.currentTimeMillis();
+        if (localCache.size() >= localMaxSize) {
+            shrinkLocal(now);
+        }
+        localCache.put(lockKey, new LocalEntry(value, now + TimeUnit.SECONDS.toMillis(localTtlSeconds)));
+    }
+
+    /**
+     * 超过容量时先清过期条目，仍超限则任意淘汰到容量的 90%。
+     * L1 只是 Redis 前的一层，被误淘汰的条目下次从 Redis 回填即可。
+     */
+    private void shrinkLocal(long now) {
+        localCache.values().removeIf(entry -> entry.isExpired(now));
+        int target = localMaxSize * 9 / 10;
+        Iterator<String> it = localCache.keySet().iterator();
+        while (localCache.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -58,6 +58,10 @@ public class ServerAddressProvider {
         return udpAddress;
     }
 
+    public int getUdpPort() {
+        return udpPort;
+    }
+
     public String getWebsocketAddress() {
         return websocketAddress;
     }
@@ -11,6 +11,7 @@ import jakarta.annotation.Resource;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Map;
 
@@ -56,12 +57,16 @@ public class RedisBroadcast {
         closeDeviceSession(event.getDeviceId());
     }
 
-    @EventListener
+    /**
+     * 配置/角色变更在事务提交后再广播：接收方会立即失效本地缓存并回源，
+     * 提交前广播可能把 Redis 中尚未失效的旧值重新读回本地。
+     */
+    @TransactionalEventListener(fallbackExecution = true)
     public void onAiConfigChanged(AiConfigChangedEvent event) {
         configChanged(event.getConfigType(), event.getConfigId());
     }
 
-    @EventListener
+    @TransactionalEventListener(fallbackExecution = true)
     public void onRoleUpdated(RoleUpdatedEvent event) {
         roleUpdated(event.getRoleId());
     }
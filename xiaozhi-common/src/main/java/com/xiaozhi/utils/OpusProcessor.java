@@ -1,9 +1,6 @@
 package com.xiaozhi.utils;
 
 import io.github.jaredmdobson.concentus.*;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -15,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
  * 后续如果需要优化，可以考虑拆分成三个工具类。
  * 没必要放在Spring Context管理，没有必要作为 @Component 。作为一个过程工具，用完即扔。
  * 一般工具类（或工具类实例对象），没有必要作为长生命周期的对象。
+ * 每个实例持有自己的编解码缓冲，热路径上使用写入调用方缓冲 / 回调 {@link FrameConsumer} 的重载，避免每帧分配。
  */
 @Slf4j
 public class OpusProcessor {
@@ -31,6 +29,15 @@ public class OpusProcessor {
     private static final int CHANNELS = AudioUtils.CHANNELS;
     public static final int OPUS_FRAME_DURATION_MS = AudioUtils.OPUS_FRAME_DURATION_MS;
     private static final int MAX_SIZE = 1275;
+    // 单个 Opus 包最多解出的样本数
+    private static final int MAX_DECODE_SAMPLES = FRAME_SIZE * 12;
+    /** {@link #opusToPcm(byte[], int, int, byte[])} 输出缓冲所需的最小容量 */
+    public static final int MAX_PCM_BYTES = MAX_DECODE_SAMPLES * 2;
+
+    // 每个实例复用的编解码缓冲，实例本身不是线程安全的
+    private final short[] decodeBuf = new short[MAX_DECODE_SAMPLES];
+    private final short[] frameBuf = new short[FRAME_SIZE];
+    private final byte[] opusBuf = new byte[MAX_SIZE];
 
     /**
      * 残留数据状态类
@@ -51,35 +58,44 @@ public class OpusProcessor {
         }
     }
 
+    /**
+     * 接收编码后的 Opus 帧。buffer 是编码器内部复用的缓冲，只在回调期间有效，需要保留时自行拷贝
+     */
+    @FunctionalInterface
+    public interface FrameConsumer {
+        void accept(byte[] buffer, int length);
+    }
+
     /**
      * 刷新残留数据，生成最后一帧
      */
     public List<byte[]> flushLeftover() {
-        LeftoverState state = leftoverStates;
-        List<byte[]> frames = new ArrayList<>();
+        List<byte[]> frames = new ArrayList<>(1);
+        flushLeftover((buffer, length) -> frames.add(Arrays.copyOf(buffer, length)));
+        return frames;
+    }
 
+    /**
+     * 刷新残留数据，用静音补齐后编码为最后一帧交给 consumer
+     *
+     * @return 输出的帧数
+     */
+    public int flushLeftover(FrameConsumer consumer) {
+        LeftoverState state = leftoverStates;
         if (state.leftoverCount <= 0) {
-            return frames;
+            return 0;
         }
 
-        // 获取编码器
-        OpusEncoder encoder = encoders;
-
-        // 准备缓冲区
-        short[] shortBuf = new short[FRAME_SIZE];
-        byte[] opusBuf = new byte[MAX_SIZE];
-
-        // 复制残留数据并填充静音
-        System.arraycopy(state.leftoverBuffer, 0, shortBuf, 0, state.leftoverCount);
-        Arrays.fill(shortBuf, state.leftoverCount, FRAME_SIZE, (short) 0);
+        // 残留数据之后填充静音
+        Arrays.fill(state.leftoverBuffer, state.leftoverCount, FRAME_SIZE, (short) 0);
 
+        int emitted = 0;
         try {
             // 编码最后一帧
-            int opusLen = encoder.encode(shortBuf, 0, FRAME_SIZE, opusBuf, 0, opusBuf.length);
+            int opusLen = encoders.encode(state.leftoverBuffer, 0, FRAME_SIZE, opusBuf, 0, opusBuf.length);
             if (opusLen > 0) {
-                byte[] frame = new byte[opusLen];
-                System.arraycopy(opusBuf, 0, frame, 0, opusLen);
-                frames.add(frame);
+                consumer.accept(opusBuf, opusLen);
+                emitted = 1;
             }
         } catch (OpusException e) {
             log.warn("残留数据编码失败: {}", e.getMessage());
@@ -87,7 +103,7 @@ public class OpusProcessor {
 
         // 清空缓存
         state.clear();
-        return frames;
+        return emitted;
     }
 
     /**
@@ -97,19 +113,30 @@ public class OpusProcessor {
         if (data == null || data.length == 0) {
             return new byte[0];
         }
+        int samples = decode(data, 0, data.length);
+        byte[] pcm = new byte[samples * 2];
+        toLittleEndian(decodeBuf, samples, pcm, 0);
+        return pcm;
+    }
 
-        try {
-            OpusDecoder decoder = decoders;
-            short[] buf = new short[FRAME_SIZE * 12];
-            int samples = decoder.decode(data, 0, data.length, buf, 0, buf.length, false);
-
-            byte[] pcm = new byte[samples * 2];
-            for (int i = 0; i < samples; i++) {
-                pcm[i * 2] = (byte) (buf[i] & 0xFF);
-                pcm[i * 2 + 1] = (byte) ((buf[i] >> 8) & 0xFF);
-            }
+    /**
+     * Opus解码到调用方提供的缓冲，不分配新数组。
+     *
+     * @param pcmOut 输出缓冲，容量至少为 {@link #MAX_PCM_BYTES}
+     * @return 写入 pcmOut 的 PCM 字节数
+     */
+    public int opusToPcm(byte[] data, int offset, int length, byte[] pcmOut) throws OpusException {
+        if (data == null || length == 0) {
+            return 0;
+        }
+        int samples = decode(data, offset, length);
+        toLittleEndian(decodeBuf, samples, pcmOut, 0);
+        return samples * 2;
+    }
 
-            return pcm;
+    private int decode(byte[] data, int offset, int length) throws OpusException {
+        try {
+            return decoders.decode(data, offset, length, decodeBuf, 0, decodeBuf.length, false);
         } catch (OpusException e) {
             log.warn("解码失败: {}", e.getMessage());
             // 重置解码器
@@ -125,120 +152,114 @@ public class OpusProcessor {
         if (pcm == null || pcm.length == 0) {
             return new ArrayList<>();
         }
+        List<byte[]> frames = new ArrayList<>(pcm.length / (FRAME_SIZE * 2) + 1);
+        pcmToOpus(pcm, 0, pcm.length, isStream, (buffer, length) -> frames.add(Arrays.copyOf(buffer, length)));
+        return frames;
+    }
 
-        // 确保PCM长度是偶数
-        int pcmLen = pcm.length;
-        if (pcmLen % 2 != 0) {
-            pcmLen--;
+    /**
+     * PCM转Opus，每编码出一帧回调一次 consumer，编码过程不分配中间数组。
+     *
+     * 流式模式下，不足一帧的尾部样本保留到下一次调用拼接（或由 {@link #flushLeftover} 补齐输出）；
+     * 非流式模式丢弃尾部不足一帧的样本，并对第一帧做 20ms 淡入。
+     *
+     * @return 输出的帧数
+     */
+    public int pcmToOpus(byte[] pcm, int offset, int length, boolean isStream, FrameConsumer consumer) {
+        if (pcm == null || length <= 0) {
+            return 0;
         }
 
-        // 每帧样本数
-        int frameSize = FRAME_SIZE;
-
-        // 获取编码器
-        OpusEncoder encoder = encoders;
-
-        // 处理PCM
-        List<byte[]> frames = new ArrayList<>();
+        // 确保PCM长度是偶数
+        int totalInputSamples = length / 2;
 
         // 获取残留数据状态
         LeftoverState state = leftoverStates;
 
-        // 字节序处理
-        ByteBuffer pcmBuf = ByteBuffer.wrap(pcm, 0, pcmLen).order(ByteOrder.LITTLE_ENDIAN);
-        ShortBuffer inputShorts = pcmBuf.asShortBuffer();
-        int totalInputSamples = inputShorts.remaining();
-
-        // 合并残留数据与当前输入
-        short[] combined;
-        // 缓冲区
-        short[] shortBuf = new short[frameSize];
-        byte[] opusBuf = new byte[MAX_SIZE];
-
+        int position = 0;
+        int emitted = 0;
+        boolean fadeIn;
         if (isStream) {
-            if (state.leftoverCount > 0 || !state.isFirst) {
-                combined = new short[state.leftoverCount + totalInputSamples];
-                System.arraycopy(state.leftoverBuffer, 0, combined, 0, state.leftoverCount);
-                inputShorts.get(combined, state.leftoverCount, totalInputSamples);
-            } else {
-                combined = new short[totalInputSamples];
-                inputShorts.get(combined);
-                state.isFirst = false;
+            state.isFirst = false;
+            fadeIn = false;
+            // 先用本次输入补齐上次残留的半帧
+            if (state.leftoverCount > 0) {
+                int fill = Math.min(FRAME_SIZE - state.leftoverCount, totalInputSamples);
+                fromLittleEndian(pcm, offset, state.leftoverBuffer, state.leftoverCount, fill);
+                state.leftoverCount += fill;
+                position = fill;
+                if (state.leftoverCount < FRAME_SIZE) {
+                    return 0;
+                }
+                emitted += encodeFrame(state.leftoverBuffer, 0, false, consumer);
+                state.leftoverCount = 0;
             }
         } else {
-            combined = new short[totalInputSamples];
-            inputShorts.get(combined);
+            fadeIn = state.isFirst;
         }
 
-        int availableSamples = combined.length;
-        int frameCount = availableSamples / frameSize;
-        int remainingSamples = availableSamples % frameSize;
+        // 处理所有完整帧，非流式模式的第一帧应用淡入效果
+        int frameIndex = 0;
+        while (position + FRAME_SIZE <= totalInputSamples) {
+            fromLittleEndian(pcm, offset + position * 2, frameBuf, 0, FRAME_SIZE);
+            emitted += encodeFrame(frameBuf, frameIndex, fadeIn && frameIndex == 0, consumer);
+            position += FRAME_SIZE;
+            frameIndex++;
+        }
 
-        // 处理第一帧 - 如果是新的音频段，应用淡入效果
-        if (frameCount > 0 && state.isFirst) {
-            System.arraycopy(combined, 0, shortBuf, 0, frameSize);
+        if (isStream) {
+            // 缓存剩余样本
+            int remainingSamples = totalInputSamples - position;
+            state.leftoverCount = remainingSamples;
+            if (remainingSamples > 0) {
+                fromLittleEndian(pcm, offset + position * 2, state.leftoverBuffer, 0, remainingSamples);
+            } else {
+                Arrays.fill(state.leftoverBuffer, (short) 0); // 清空
+            }
+        }
+        return emitted;
+    }
 
+    private int encodeFrame(short[] samples, int index, boolean fadeIn, FrameConsumer consumer) {
+        if (fadeIn) {
             // 应用淡入效果 - 前20毫秒（大约320个样本）
-            int fadeInSamples = Math.min(320, frameSize);
+            int fadeInSamples = Math.min(320, FRAME_SIZE);
             for (int i = 0; i < fadeInSamples; i++) {
                 // 线性淡入
                 float gain = (float) i / fadeInSamples;
-                shortBuf[i] = (short) (shortBuf[i] * gain);
+                samples[i] = (short) (samples[i] * gain);
             }
-
-            try {
-                int opusLen = encoder.encode(shortBuf, 0, frameSize, opusBuf, 0, opusBuf.length);
-                if (opusLen > 0) {
-                    frames.add(Arrays.copyOf(opusBuf, opusLen));
-                }
-            } catch (Exception | AssertionError e) {
+        }
+        try {
+            int opusLen = encoders.encode(samples, 0, FRAME_SIZE, opusBuf, 0, opusBuf.length);
+            if (opusLen > 0) {
+                consumer.accept(opusBuf, opusLen);
+                return 1;
+            }
+        } catch (Exception | AssertionError e) {
+            if (fadeIn) {
                 log.warn("淡入帧编码失败: {}", e.getMessage());
+            } else {
+                log.warn("帧 #{} 编码失败: {}", index, e.getMessage());
             }
+        }
+        return 0;
+    }
 
-            // 处理剩余的完整帧
-            for (int i = 1; i < frameCount; i++) {
-                int start = i * frameSize;
-                System.arraycopy(combined, start, shortBuf, 0, frameSize);
-                try {
-                    int opusLen = encoder.encode(shortBuf, 0, frameSize, opusBuf, 0, opusBuf.length);
-                    if (opusLen > 0) {
-                        frames.add(Arrays.copyOf(opusBuf, opusLen));
-                    }
-                } catch (Exception | AssertionError e) {
-                    log.warn("帧 #{} 编码失败: {}", i, e.getMessage());
-                }
-            }
-        } else {
-            // 处理所有完整帧
-            for (int i = 0; i < frameCount; i++) {
-                int start = i * frameSize;
-                System.arraycopy(combined, start, shortBuf, 0, frameSize);
-                try {
-                    int opusLen = encoder.encode(shortBuf, 0, frameSize, opusBuf, 0, opusBuf.length);
-                    if (opusLen > 0) {
-                        frames.add(Arrays.copyOf(opusBuf, opusLen));
-                    }
-                } catch (Exception | AssertionError e) {
-                    log.warn("帧 #{} 编码失败: {}", i, e.getMessage());
-                }
-            }
+    private static void fromLittleEndian(byte[] src, int offset, short[] dst, int dstOffset, int samples) {
+        for (int i = 0; i < samples; i++) {
+            int b = offset + i * 2;
+            dst[dstOffset + i] = (short) ((src[b] & 0xFF) | (src[b + 1] << 8));
         }
+    }
 
-        if (isStream) {
-            // 缓存剩余样本
-            state.leftoverCount = remainingSamples;
-            if (remainingSamples > 0) {
-                if (state.leftoverBuffer.length < remainingSamples) {
-                    state.leftoverBuffer = new short[frameSize]; // 确保缓冲区足够大
-                }
-                System.arraycopy(combined, frameCount * frameSize, state.leftoverBuffer, 0, remainingSamples);
-            } else {
-                Arrays.fill(state.leftoverBuffer, (short) 0); // 清空
-            }
+    private static void toLittleEndian(short[] src, int samples, byte[] dst, int dstOffset) {
+        for (int i = 0; i < samples; i++) {
+            dst[dstOffset + i * 2] = (byte) (src[i] & 0xFF);
+            dst[dstOffset + i * 2 + 1] = (byte) ((src[i] >> 8) & 0xFF);
         }
-        return frames;
     }
-    
+
     /**
      * 获取解码器
      */
@@ -5,6 +5,7 @@ import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.common.model.bo.MessageBO;
 import com.xiaozhi.ai.tool.ToolsSessionHolder;
 import com.xiaozhi.dialogue.llm.tool.mcp.device.DeviceMcpHolder;
+import com.xiaozhi.dialogue.metrics.TurnTimings;
 import com.xiaozhi.dialogue.runtime.DialogueContext;
 import com.xiaozhi.dialogue.playback.Player;
 import com.xiaozhi.enums.DeviceState;
@@ -107,6 +108,7 @@ public abstract class ChatSession {
     public void addToolCallDetail(String name, String args, String result)     { dialogueContext.addToolCallDetail(name, args, result); }
     public List<DialogueContext.ToolCallInfo> drainToolCallDetails()           { return dialogueContext.drainToolCallDetails(); }
     public boolean isFunctionCalled()                                          { return dialogueContext.isFunctionCalled(); }
+    public TurnTimings getTurnTimings()                                        { return dialogueContext.getTurnTimings(); }
 
     // ========== 超时断连标记 ==========
     private volatile boolean timeoutDisconnect;
@@ -210,6 +212,14 @@ public abstract class ChatSession {
 
     public abstract void sendBinaryMessage(byte[] message);
 
+    /**
+     * 发送可合并的状态消息（如表情），同一 key 还未发出的旧消息会被新消息取代，下行拥塞时可被丢弃。
+     * 默认等同于 {@link #sendTextMessage(String)}，带下行队列的实现会覆盖
+     */
+    public void sendStatusMessage(String key, String message) {
+        sendTextMessage(message);
+    }
+
     public boolean isTimeoutDisconnect()            { return timeoutDisconnect; }
     public void setTimeoutDisconnect(boolean flag)  { this.timeoutDisconnect = flag; }
 
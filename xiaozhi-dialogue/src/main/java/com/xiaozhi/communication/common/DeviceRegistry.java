@@ -2,13 +2,24 @@ package com.xiaozhi.communication.common;
 
 import jakarta.annotation.Resource;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * 设备-实例注册表。
@@ -16,16 +27,35 @@ import java.util.Set;
  * <ul>
  *   <li>设备上线时绑定到当前实例</li>
  *   <li>设备下线时解绑</li>
- *   <li>心跳刷新 TTL，防止映射过期</li>
+ *   <li>心跳刷新，防止映射过期</li>
  *   <li>启动时查询属于本实例的设备（用于精准重置状态）</li>
  * </ul>
+ *
+ * 存储结构：
+ * <ul>
+ *   <li>{@code xiaozhi:device:instance}：Hash，设备ID → 实例ID，全局一份</li>
+ *   <li>{@code xiaozhi:device:presence:{instanceId}}：ZSet，每个实例一份，score 为设备最近一次心跳时间（毫秒）</li>
+ * </ul>
+ * 每次心跳用一次 pipeline 刷新本实例全部设备的 score 并续期 ZSet，Redis 往返次数只与实例数有关、与设备数无关。
+ * 设备映射是否有效以所在实例 ZSet 中的心跳为准：实例宕机后 ZSet 整体过期，超过 TTL 未心跳的设备也视为离线。
+ * 失效的 Hash 字段由心跳顺带清理本实例的部分，已下线实例遗留的部分在启动时扫描清理，避免 Hash 无限增长。
  */
 @Component
 public class DeviceRegistry {
 
-    private static final String KEY_PREFIX = "xiaozhi:device:instance:";
+    private static final String DIRECTORY_KEY = "xiaozhi:device:instance";
+    private static final String PRESENCE_KEY_PREFIX = "xiaozhi:device:presence:";
     private static final Duration TTL = Duration.ofSeconds(300); // 5 分钟
 
+    // 单条 ZADD / 单次清理最多携带的设备数，避免单个命令过大
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    // 一次往返读出设备所在实例及其在该实例 ZSet 中的心跳
+    private static final DefaultRedisScript<List> LOOKUP_SCRIPT = createLookupScript();
+
+    // 清理失效设备：仅当心跳确已过期且 Hash 仍指向该实例时才删除，避免误删刚重新绑定的设备
+    private static final DefaultRedisScript<Long> PRUNE_SCRIPT = createPruneScript();
+
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
@@ -36,49 +66,126 @@ public class DeviceRegistry {
      * 设备上线：绑定到本实例
      */
     public void bind(String deviceId) {
-        stringRedisTemplate.opsForValue().set(
-                KEY_PREFIX + deviceId, instanceIdHolder.getInstanceId(), TTL);
+        String instanceId = instanceIdHolder.getInstanceId();
+        String presenceKey = presenceKey(instanceId);
+        double now = System.currentTimeMillis();
+        pipelined(redis -> {
+            redis.opsForHash().put(DIRECTORY_KEY, deviceId, instanceId);
+            redis.opsForZSet().add(presenceKey, deviceId, now);
+            redis.expire(presenceKey, TTL);
+        });
     }
 
     /**
      * 设备下线：解绑
      */
     public void unbind(String deviceId) {
-        stringRedisTemplate.delete(KEY_PREFIX + deviceId);
+        String presenceKey = presenceKey(instanceIdHolder.getInstanceId());
+        pipelined(redis -> {
+            redis.opsForHash().delete(DIRECTORY_KEY, deviceId);
+            redis.opsForZSet().remove(presenceKey, deviceId);
+        });
     }
 
     /**
-     * 刷新心跳（由 InactiveSessionChecker 定期调用）
+     * 批量解绑（启动时清理本实例旧映射）
      */
-    public void refresh(String deviceId) {
-        stringRedisTemplate.expire(KEY_PREFIX + deviceId, TTL);
+    public void unbind(Collection<String> deviceIds) {
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+        Object[] members = deviceIds.toArray();
+        String presenceKey = presenceKey(instanceIdHolder.getInstanceId());
+        pipelined(redis -> {
+            redis.opsForHash().delete(DIRECTORY_KEY, members);
+            redis.opsForZSet().remove(presenceKey, members);
+        });
     }
 
     /**
-     * 查询设备所在实例
+     * 刷新心跳（由 InactiveSessionChecker 每轮检查调用一次）。
+     * 更新本实例全部在线设备的心跳时间、续期 ZSet，并清理超过 TTL 未心跳的设备及其 Hash 字段。
+     * 先读出一批失效设备，pipeline 刷新后再清理；单轮未清完的留到下一轮。
      */
-    public String getInstance(String deviceId) {
-        return stringRedisTemplate.opsForValue().get(KEY_PREFIX + deviceId);
+    public void refresh(Collection<String> deviceIds) {
+        String instanceId = instanceIdHolder.getInstanceId();
+        String presenceKey = presenceKey(instanceId);
+        long now = System.currentTimeMillis();
+        long expireBefore = now - TTL.toMillis();
+        Set<String> stale = stringRedisTemplate.opsForZSet().rangeByScore(
+                presenceKey, Double.NEGATIVE_INFINITY, expireBefore, 0, REFRESH_BATCH_SIZE);
+        pipelined(redis -> {
+            Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+            for (String deviceId : deviceIds) {
+                batch.add(new DefaultTypedTuple<>(deviceId, (double) now));
+                if (batch.size() >= REFRESH_BATCH_SIZE) {
+                    redis.opsForZSet().add(presenceKey, batch);
+                    batch = new HashSet<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                redis.opsForZSet().add(presenceKey, batch);
+            }
+            redis.expire(presenceKey, TTL);
+        });
+        // 脚本在本轮 ZADD 之后执行，仍在线的设备已有新心跳，不会被清理；
+        // 不放进 pipeline：EVALSHA 未命中脚本缓存时需要同步回退到 EVAL
+        if (stale != null && !stale.isEmpty()) {
+            prune(Map.of(instanceId, stale), expireBefore);
+        }
     }
 
     /**
-     * 查询属于本实例的所有设备 ID。
-     * 通过 SCAN 遍历 {@code xiaozhi:device:instance:*}，筛选 value 等于本实例 ID 的 key。
+     * 扫描整个设备目录，清理心跳已过期的字段（启动时调用一次）。
+     * 实例重启后实例 ID 改变，旧实例的 ZSet 过期后其设备字段不会再被心跳清理，只能在这里回收。
+     *
+     * @return 清理的字段数
      */
-    public Set<String> getOwnDeviceIds() {
-        Set<String> ownDeviceIds = new HashSet<>();
-        String ownInstanceId = instanceIdHolder.getInstanceId();
-        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(100).build();
-        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+    public long pruneStale() {
+        long expireBefore = System.currentTimeMillis() - TTL.toMillis();
+        long removed = 0;
+        Map<String, List<String>> batch = new HashMap<>();
+        int batchSize = 0;
+        ScanOptions options = ScanOptions.scanOptions().count(REFRESH_BATCH_SIZE).build();
+        try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash().scan(DIRECTORY_KEY, options)) {
             while (cursor.hasNext()) {
-                String key = cursor.next();
-                String instanceId = stringRedisTemplate.opsForValue().get(key);
-                if (ownInstanceId.equals(instanceId)) {
-                    ownDeviceIds.add(key.substring(KEY_PREFIX.length()));
+                Map.Entry<Object, Object> entry = cursor.next();
+                batch.computeIfAbsent(entry.getValue().toString(), k -> new ArrayList<>()).add(entry.getKey().toString());
+                if (++batchSize >= REFRESH_BATCH_SIZE) {
+                    removed += prune(batch, expireBefore);
+                    batch.clear();
+                    batchSize = 0;
                 }
             }
         }
-        return ownDeviceIds;
+        return removed + prune(batch, expireBefore);
+    }
+
+    /**
+     * 查询设备所在实例，所在实例超过 TTL 没有该设备的心跳时返回 null。
+     * ZSet 的 key 取决于 Hash 中的实例 ID，两次读取通过脚本在一次往返内完成。
+     */
+    public String getInstance(String deviceId) {
+        List<?> result = stringRedisTemplate.execute(LOOKUP_SCRIPT, List.of(DIRECTORY_KEY), deviceId, PRESENCE_KEY_PREFIX);
+        if (result == null || result.size() < 2) {
+            return null;
+        }
+        String instanceId = result.get(0).toString();
+        double heartbeat = Double.parseDouble(result.get(1).toString());
+        if (System.currentTimeMillis() - heartbeat > TTL.toMillis()) {
+            return null;
+        }
+        return instanceId;
+    }
+
+    /**
+     * 查询属于本实例的所有设备 ID，一次读取本实例的 ZSet。
+     */
+    public Set<String> getOwnDeviceIds() {
+        Set<String> deviceIds = stringRedisTemplate.opsForZSet().rangeByScore(
+                presenceKey(instanceIdHolder.getInstanceId()),
+                System.currentTimeMillis() - TTL.toMillis(), Double.POSITIVE_INFINITY);
+        return deviceIds == null ? new HashSet<>() : new HashSet<>(deviceIds);
     }
 
     /**
@@ -87,4 +194,64 @@ public class DeviceRegistry {
     public boolean isOwned(String deviceId) {
         return instanceIdHolder.getInstanceId().equals(getInstance(deviceId));
     }
+
+    private static String presenceKey(String instanceId) {
+        return PRESENCE_KEY_PREFIX + instanceId;
+    }
+
+    private long prune(Map<String, ? extends Collection<String>> deviceIdsByInstance, long expireBefore) {
+        long removed = 0;
+        for (Map.Entry<String, ? extends Collection<String>> entry : deviceIdsByInstance.entrySet()) {
+            String instanceId = entry.getKey();
+            Long count = stringRedisTemplate.execute(PRUNE_SCRIPT, List.of(DIRECTORY_KEY, presenceKey(instanceId)),
+                    pruneArgs(instanceId, expireBefore, entry.getValue()));
+            removed += count == null ? 0 : count;
+        }
+        return removed;
+    }
+
+    private static Object[] pruneArgs(String instanceId, long expireBefore, Collection<String> deviceIds) {
+        List<String> args = new ArrayList<>(deviceIds.size() + 2);
+        args.add(instanceId);
+        args.add(Long.toString(expireBefore));
+        args.addAll(deviceIds);
+        return args.toArray();
+    }
+
+    private static DefaultRedisScript<List> createLookupScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setResultType(List.class);
+        script.setScriptText("local instance = redis.call('hget', KEYS[1], ARGV[1]) "
+                + "if not instance then return nil end "
+                + "local heartbeat = redis.call('zscore', ARGV[2] .. instance, ARGV[1]) "
+                + "if not heartbeat then return nil end "
+                + "return {instance, heartbeat}");
+        return script;
+    }
+
+    private static DefaultRedisScript<Long> createPruneScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setResultType(Long.class);
+        script.setScriptText("local removed = 0 "
+                + "for i = 3, #ARGV do "
+                + "local heartbeat = redis.call('zscore', KEYS[2], ARGV[i]) "
+                + "if not heartbeat or tonumber(heartbeat) < tonumber(ARGV[2]) then "
+                + "if redis.call('hget', KEYS[1], ARGV[i]) == ARGV[1] then "
+                + "removed = removed + redis.call('hdel', KEYS[1], ARGV[i]) end "
+                + "redis.call('zrem', KEYS[2], ARGV[i]) end "
+                + "end "
+                + "return removed");
+        return script;
+    }
+
+    private void pipelined(Consumer<RedisOperations<String, String>> commands) {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
 }
@@ -1,6 +1,6 @@
 package com.xiaozhi.communication.common;
 
-import com.xiaozhi.communication.server.websocket.WebSocketSession;
+import com.xiaozhi.communication.server.websocket.XiaozhiWebSocketSession;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
@@ -11,6 +11,8 @@ import com.xiaozhi.enums.DeviceState;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -62,12 +64,9 @@ public class InactiveSessionChecker {
 
     private void checkInactiveSessions() {
         Instant now = Instant.now();
+        refreshDeviceRegistry();
         sessionManager.getAllSessions().forEach(session -> {
-            // 刷新设备-实例心跳
-            if (session.getDevice() != null) {
-                deviceRegistry.refresh(session.getDevice().getDeviceId());
-            }
-            if (session instanceof WebSocketSession || session.isAudioChannelOpen()) {
+            if (session instanceof XiaozhiWebSocketSession || session.isAudioChannelOpen()) {
                 Instant lastActivity = session.getLastActivityTime();
                 if (lastActivity != null) {
                     Duration inactiveDuration = Duration.between(lastActivity, now);
@@ -82,7 +81,7 @@ public class InactiveSessionChecker {
                             if (session.getPersona() != null) {
                                 session.getPersona().sendGoodbyeMessage();
                             }
-                            if (session instanceof WebSocketSession) {
+                            if (session instanceof XiaozhiWebSocketSession) {
                                 sessionManager.closeSession(session);
                             }
                         }
@@ -91,4 +90,21 @@ public class InactiveSessionChecker {
             }
         });
     }
+
+    /**
+     * 刷新设备-实例心跳，本实例所有设备一次提交
+     */
+    private void refreshDeviceRegistry() {
+        List<String> deviceIds = new ArrayList<>();
+        for (ChatSession session : sessionManager.getAllSessions()) {
+            if (session.getDevice() != null && session.getDevice().getDeviceId() != null) {
+                deviceIds.add(session.getDevice().getDeviceId());
+            }
+        }
+        try {
+            deviceRegistry.refresh(deviceIds);
+        } catch (Exception e) {
+            log.warn("刷新设备心跳失败 - 设备数: {}, 原因: {}", deviceIds.size(), e.getMessage());
+        }
+    }
 }
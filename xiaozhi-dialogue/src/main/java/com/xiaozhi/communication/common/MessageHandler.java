@@ -1,7 +1,7 @@
 package com.xiaozhi.communication.common;
 
 import com.xiaozhi.communication.domain.*;
-import com.xiaozhi.communication.server.websocket.WebSocketSession;
+import com.xiaozhi.communication.server.websocket.XiaozhiWebSocketSession;
 import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.common.model.bo.RoleBO;
 import com.xiaozhi.common.model.bo.VerifyCodeBO;
@@ -19,7 +19,10 @@ import com.xiaozhi.ai.tool.ToolsSessionHolder;
 import com.xiaozhi.dialogue.llm.tool.device.IotService;
 import com.xiaozhi.dialogue.audio.VadService;
 import com.xiaozhi.dialogue.playback.Player;
+import com.xiaozhi.dialogue.playback.PlaybackScheduler;
 import com.xiaozhi.dialogue.playback.ScheduledPlayer;
+import com.xiaozhi.dialogue.playback.SpeechCache;
+import com.xiaozhi.ai.tts.TtsService;
 import com.xiaozhi.ai.tts.TtsServiceFactory;
 import com.xiaozhi.enums.DeviceState;
 import com.xiaozhi.enums.ListenState;
@@ -32,6 +35,7 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -93,6 +97,12 @@ public class MessageHandler {
     @Resource
     private RedisBroadcast redisBroadcast;
 
+    @Resource
+    private SpeechCache speechCache;
+
+    @Resource
+    private PlaybackScheduler playbackScheduler;
+
     // 用于存储设备ID和验证码生成状态的映射
     private final Map<String, Boolean> captchaGenerationInProgress = new ConcurrentHashMap<>();
 
@@ -302,14 +312,24 @@ public class MessageHandler {
         Thread.startVirtualThread(() -> {
             try {
                 // 对于未绑定设备， 播放器是一次性用途，不需要绑定到ChatSession。
-                Player player = new ScheduledPlayer(chatSession, messageService);
+                Player player = new ScheduledPlayer(chatSession, messageService, playbackScheduler);
                 // 设备已注册但未配置模型
                 if (device.getDeviceName() != null && device.getRoleId() == null) {
                     String message = "设备未配置角色，请到角色配置页面完成配置后开始对话";
 
-                    Path audioFilePath = ttsFactory.getDefaultTtsService().textToSpeech(message);
-
-                    player.play(message, audioFilePath);
+                    // 固定提示语，优先使用缓存的 Opus 帧
+                    TtsService ttsService = ttsFactory.getDefaultTtsService();
+                    List<byte[]> frames = speechCache.get(ttsService, message);
+                    if (frames == null) {
+                        Path audioFilePath = ttsService.textToSpeech(message);
+                        frames = speechCache.put(ttsService, message, audioFilePath);
+                        if (frames == null) {
+                            player.play(message, audioFilePath);
+                        }
+                    }
+                    if (frames != null) {
+                        player.play(SpeechCache.toSpeechFlux(frames, message, null));
+                    }
 
                     // 延迟一段时间后再解除标记
                     try {
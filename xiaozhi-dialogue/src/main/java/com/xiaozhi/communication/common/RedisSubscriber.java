@@ -1,7 +1,9 @@
 package com.xiaozhi.communication.common;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.xiaozhi.common.CacheHelper;
 import com.xiaozhi.common.model.bo.DeviceBO;
+import com.xiaozhi.ai.llm.factory.ChatModelFactory;
 import com.xiaozhi.dialogue.runtime.Persona;
 import com.xiaozhi.ai.stt.SttServiceFactory;
 import com.xiaozhi.token.TokenService;
@@ -41,6 +43,9 @@ public class RedisSubscriber {
     @Resource
     private TtsServiceFactory ttsServiceFactory;
 
+    @Resource
+    private ChatModelFactory chatModelFactory;
+
     @Resource
     private TokenService tokenService;
 
@@ -50,6 +55,9 @@ public class RedisSubscriber {
     @Resource
     private DeviceService deviceService;
 
+    @Resource
+    private CacheHelper cacheHelper;
+
     @Bean
     public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
@@ -91,7 +99,7 @@ public class RedisSubscriber {
             DeviceBO freshDevice = deviceService.getBO(deviceId);
             if (freshDevice != null) {
                 freshDevice.setSessionId(session.getSessionId());
-                session.setDevice(freshDevice);
+                sessionManager.updateDevice(session, freshDevice);
             }
             Persona persona = session.getPersona();
             if (persona != null) {
@@ -103,21 +111,20 @@ public class RedisSubscriber {
     }
 
     /**
-     * 角色属性变更（如音色）：遍历本实例 session，清理使用该角色的 Persona
+     * 角色属性变更（如音色）：失效本地角色缓存，按角色索引找到本实例使用该角色的 session，清理其 Persona
      */
     public void onRoleUpdated(String message) {
         try {
             Integer roleId = Integer.parseInt(message.trim());
+            cacheHelper.evictLocal("role:" + roleId);
+            chatModelFactory.removeCacheByRole(roleId);
             int count = 0;
-            for (ChatSession session : sessionManager.getAllSessions()) {
-                DeviceBO device = session.getDevice();
-                if (device != null && roleId.equals(device.getRoleId())) {
-                    Persona persona = session.getPersona();
-                    if (persona != null) {
-                        persona.getConversation().clear();
-                        session.setPersona(null);
-                        count++;
-                    }
+            for (ChatSession session : sessionManager.getSessionsByRoleId(roleId)) {
+                Persona persona = session.getPersona();
+                if (persona != null) {
+                    persona.getConversation().clear();
+                    session.setPersona(null);
+                    count++;
                 }
             }
             if (count > 0) {
@@ -148,14 +155,14 @@ public class RedisSubscriber {
             DeviceBO freshDevice = deviceService.getBO(deviceId);
             if (freshDevice != null) {
                 freshDevice.setSessionId(session.getSessionId());
-                session.setDevice(freshDevice);
+                sessionManager.updateDevice(session, freshDevice);
                 log.info("已刷新设备信息（来自跨实例广播） - deviceId: {}", deviceId);
             }
         }
     }
 
     /**
-     * 配置变更：清除对应工厂缓存（STT/TTS/Token）
+     * 配置变更：清除本地配置缓存和对应工厂缓存（LLM/STT/TTS/Token）
      */
     public void onConfigChanged(String message) {
         try {
@@ -163,6 +170,14 @@ public class RedisSubscriber {
             String configType = (String) payload.get("configType");
             Integer configId = (Integer) payload.get("configId");
 
+            // 先失效本地 L1，保证下面读到的是最新配置
+            cacheHelper.evictLocal("config:" + configId);
+            cacheHelper.evictLocalByPrefix("config:default:");
+            // ChatModel 按 configId 失效，配置被删除时同样需要清理
+            if ("llm".equals(configType)) {
+                chatModelFactory.removeCache(configId);
+            }
+
             ConfigBO config = configService.getBO(configId);
             if (config != null) {
                 if ("stt".equals(configType)) {
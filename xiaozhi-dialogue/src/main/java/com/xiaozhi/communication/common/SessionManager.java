@@ -1,6 +1,6 @@
 package com.xiaozhi.communication.common;
 
-import com.xiaozhi.communication.server.websocket.WebSocketSession;
+import com.xiaozhi.communication.server.websocket.XiaozhiWebSocketSession;
 import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.ai.llm.memory.Conversation;
 import com.xiaozhi.device.domain.repository.DeviceRepository;
@@ -19,7 +19,10 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +46,12 @@ public class SessionManager {
     /** deviceId → sessionId 反向索引，O(1) 查找设备所在会话 */
     private final ConcurrentHashMap<String, String> deviceIdToSessionId = new ConcurrentHashMap<>();
 
+    /** roleId → sessionId 集合，角色变更广播只处理使用该角色的会话 */
+    private final ConcurrentHashMap<Integer, Set<String>> roleIdToSessionIds = new ConcurrentHashMap<>();
+
+    /** sessionId → 已登记到 roleIdToSessionIds 的 roleId，角色切换时据此从旧角色移除 */
+    private final ConcurrentHashMap<String, Integer> sessionIdToRoleId = new ConcurrentHashMap<>();
+
     // 存储验证码生成状态
     private final ConcurrentHashMap<String, Boolean> captchaState = new ConcurrentHashMap<>();
 
@@ -79,9 +88,12 @@ public class SessionManager {
                         int updated = deviceRepository.batchUpdateState(ownDeviceIds, DeviceBO.DEVICE_STATE_OFFLINE);
                         log.info("项目启动，重置本实例 {} 个设备状态为离线", updated);
                         // 清理本实例旧的 Redis 映射
-                        for (String deviceId : ownDeviceIds) {
-                            deviceRegistry.unbind(deviceId);
-                        }
+                        deviceRegistry.unbind(ownDeviceIds);
+                    }
+                    // 清理已下线实例遗留的设备映射
+                    long pruned = deviceRegistry.pruneStale();
+                    if (pruned > 0) {
+                        log.info("项目启动，清理 {} 条失效的设备-实例映射", pruned);
                     }
                     log.info("项目启动，instanceId: {}", instanceIdHolder.getInstanceId());
                 } catch (Exception e) {
@@ -132,7 +144,7 @@ public class SessionManager {
                     device.setRoleName(currentDevice.getRoleName());
                 }
             }
-            session.setDevice(device);
+            updateDevice(session, device);
         }
     }
 
@@ -140,6 +152,7 @@ public class SessionManager {
 
     public void registerSession(String sessionId, ChatSession chatSession) {
         sessions.put(sessionId, chatSession);
+        updateRoleIndex(chatSession);
         log.info("会话已注册 - SessionId: {}  SessionType: {}", sessionId, chatSession.getClass().getSimpleName());
         String deviceId = chatSession.getDevice() != null ? chatSession.getDevice().getDeviceId() : null;
         applicationContext.publishEvent(new ChatSessionOpenedEvent(this, sessionId, deviceId));
@@ -150,6 +163,10 @@ public class SessionManager {
         if (removed != null && removed.getDevice() != null) {
             deviceIdToSessionId.remove(removed.getDevice().getDeviceId());
         }
+        Integer roleId = sessionIdToRoleId.remove(sessionId);
+        if (roleId != null) {
+            removeFromRoleIndex(roleId, sessionId);
+        }
     }
 
     public ChatSession getSession(String sessionId) {
@@ -169,6 +186,30 @@ public class SessionManager {
         return null;
     }
 
+    /**
+     * 获取当前设备使用该角色的会话，不遍历全部会话
+     */
+    public List<ChatSession> getSessionsByRoleId(Integer roleId) {
+        Set<String> sessionIds = roleIdToSessionIds.get(roleId);
+        if (sessionIds == null) {
+            return List.of();
+        }
+        List<ChatSession> result = new ArrayList<>(sessionIds.size());
+        for (String sessionId : sessionIds) {
+            ChatSession session = sessions.get(sessionId);
+            if (session == null) {
+                // 映射残留，清理
+                removeFromRoleIndex(roleId, sessionId);
+                continue;
+            }
+            DeviceBO device = session.getDevice();
+            if (device != null && roleId.equals(device.getRoleId())) {
+                result.add(session);
+            }
+        }
+        return result;
+    }
+
     /**
      * 获取所有会话（供 InactiveSessionChecker 等遍历使用）
      */
@@ -190,7 +231,7 @@ public class SessionManager {
             return;
         }
         try {
-            if (chatSession instanceof WebSocketSession) {
+            if (chatSession instanceof XiaozhiWebSocketSession) {
                 removeSession(chatSession.getSessionId());
             }
             // 解除设备-实例绑定
@@ -219,7 +260,7 @@ public class SessionManager {
         }
         ChatSession chatSession = sessions.get(sessionId);
         if (chatSession != null) {
-            chatSession.setDevice(device);
+            updateDevice(chatSession, device);
             deviceIdToSessionId.put(device.getDeviceId(), sessionId);
             updateLastActivity(sessionId);
             deviceRegistry.bind(device.getDeviceId());
@@ -228,6 +269,47 @@ public class SessionManager {
         }
     }
 
+    /**
+     * 替换会话的设备信息，并同步角色索引
+     */
+    public void updateDevice(ChatSession session, DeviceBO device) {
+        session.setDevice(device);
+        updateRoleIndex(session);
+    }
+
+    /**
+     * 会话设备的 roleId 变化后（设备信息替换、语音切换角色等）更新角色索引
+     */
+    public void updateRoleIndex(ChatSession session) {
+        String sessionId = session.getSessionId();
+        DeviceBO device = session.getDevice();
+        Integer roleId = device != null ? device.getRoleId() : null;
+        sessionIdToRoleId.compute(sessionId, (k, previous) -> {
+            if (Objects.equals(previous, roleId)) {
+                return previous;
+            }
+            if (previous != null) {
+                removeFromRoleIndex(previous, sessionId);
+            }
+            if (roleId == null || !sessions.containsKey(sessionId)) {
+                return null;
+            }
+            roleIdToSessionIds.compute(roleId, (r, sessionIds) -> {
+                Set<String> updated = sessionIds != null ? sessionIds : ConcurrentHashMap.newKeySet();
+                updated.add(sessionId);
+                return updated;
+            });
+            return roleId;
+        });
+    }
+
+    private void removeFromRoleIndex(Integer roleId, String sessionId) {
+        roleIdToSessionIds.computeIfPresent(roleId, (r, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
     public void updateLastActivity(String sessionId) {
         ChatSession session = sessions.get(sessionId);
         if (session != null) {
@@ -10,6 +10,10 @@ public final class HelloMessage extends Message {
         super("hello");
     }
 
+    /**
+     * 设备期望的音频传输方式，"udp" 表示请求协商 UDP 音频通道，缺省为 websocket
+     */
+    private String transport;
     private HelloFeatures features;
     private AudioParams audioParams;
 }
@@ -0,0 +1,18 @@
+package com.xiaozhi.communication.domain;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * hello 响应中下发的 UDP 音频通道参数。
+ * key 和 nonce 均为 16 字节的十六进制字符串：key 用于 AES-128-CTR 加解密，
+ * nonce 是数据包头模板（其中 4~7 字节为服务端分配的连接号）。
+ */
+@Data
+@Accessors(chain = true)
+public class UdpParams {
+    private String server;
+    private int port;
+    private String key;
+    private String nonce;
+}
@@ -1,45 +1,69 @@
 package com.xiaozhi.communication.message;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.xiaozhi.communication.common.ChatSession;
 import com.xiaozhi.event.TtsPlaybackCompletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * 下行 JSON 消息。
+ *
+ * tts / stt / llm(表情) 的结构是固定的，直接按模板拼接字符串，只对动态文本做 JSON 转义，
+ * 不再为每条消息创建 ObjectNode 再序列化；不带文本的 tts 状态消息整条缓存。
+ * 每条消息只打 debug 日志，发送量和失败数通过 xiaozhi.websocket.messages 计数。
+ */
 @Slf4j
 @Service
 public class MessageSender {
 
+    private static final String TTS_PREFIX = "{\"type\":\"tts\",\"state\":";
+    private static final String STT_PREFIX = "{\"type\":\"stt\",\"text\":";
+    private static final String SESSION_PREFIX = "{\"session_id\":";
+    private static final String TTS_START = "{\"type\":\"tts\",\"state\":\"start\"}";
+    private static final String TTS_STOP = "{\"type\":\"tts\",\"state\":\"stop\"}";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private final ApplicationEventPublisher eventPublisher;
 
-    public MessageSender(ApplicationEventPublisher eventPublisher) {
+    private final Counter ttsSent;
+    private final Counter sttSent;
+    private final Counter emotionSent;
+    private final Counter iotSent;
+    private final Counter skipped;
+
+    public MessageSender(ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.eventPublisher = eventPublisher;
+        this.ttsSent = sentCounter(meterRegistry, "tts");
+        this.sttSent = sentCounter(meterRegistry, "stt");
+        this.emotionSent = sentCounter(meterRegistry, "llm");
+        this.iotSent = sentCounter(meterRegistry, "iot");
+        this.skipped = Counter.builder("xiaozhi.websocket.messages.skipped")
+                .description("会话为空或已关闭而未发送的下行消息数")
+                .register(meterRegistry);
     }
 
     public void sendTtsMessage(ChatSession session, String text, String state) {
         if (session == null || !session.isOpen()) {
-            log.error("ChatSession为null 或者已关闭，请检查！{}", Arrays.toString(Thread.currentThread().getStackTrace()));
+            skipped.increment();
+            log.debug("sendTtsMessage无法发送消息 - 会话已关闭或为null, state: {}", state);
             return;
         }
-        ObjectNode messageJson = objectMapper.createObjectNode();
-        messageJson.put("type", "tts");
-        messageJson.put("state", state);
-        if (text != null) {
-            messageJson.put("text", text);
-        }
-
-        String jsonMessage = messageJson.toString();
-        log.info("sendTtsMessage发送消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
+        String jsonMessage = ttsJson(text, state);
+        log.debug("sendTtsMessage发送消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
         sendTextMessage(session, jsonMessage);
+        ttsSent.increment();
 
         if ("stop".equals(state)) {
             eventPublisher.publishEvent(new TtsPlaybackCompletedEvent(this, session.getSessionId()));
@@ -48,46 +72,60 @@ public class MessageSender {
 
     public void sendSttMessage(ChatSession session, String text) {
         if (session == null || !session.isOpen()) {
-            log.warn("sendSttMessage无法发送消息 - 会话已关闭或为null");
+            skipped.increment();
+            log.debug("sendSttMessage无法发送消息 - 会话已关闭或为null");
             return;
         }
-        ObjectNode messageJson = objectMapper.createObjectNode();
-        messageJson.put("type", "stt");
-        messageJson.put("text", text);
-
-        String jsonMessage = messageJson.toString();
-        log.info("sendSttMessage发送消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
+        StringBuilder json = new StringBuilder(STT_PREFIX.length() + lengthHint(text) + 2);
+        json.append(STT_PREFIX);
+        appendString(json, text);
+        String jsonMessage = json.append('}').toString();
+        log.debug("sendSttMessage发送消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
         sendTextMessage(session, jsonMessage);
+        sttSent.increment();
     }
 
     public void sendIotCommandMessage(ChatSession session, List<Map<String, Object>> commands) {
         if (session == null || !session.isOpen()) {
-            log.warn("sendIotCommandMessage无法发送消息 - 会话已关闭或为null");
+            skipped.increment();
+            log.debug("sendIotCommandMessage无法发送消息 - 会话已关闭或为null");
             return;
         }
-        ObjectNode messageJson = objectMapper.createObjectNode();
-        messageJson.put("session_id", session.getSessionId());
-        messageJson.put("type", "iot");
-        messageJson.set("commands", objectMapper.valueToTree(commands));
-
-        String jsonMessage = messageJson.toString();
-        log.debug("sendIotCommandMessage发送iot消息 - SessionId: {}, Message: {}", session.getSessionId(), messageJson);
+        String commandsJson;
+        try {
+            commandsJson = objectMapper.writeValueAsString(commands);
+        } catch (JsonProcessingException e) {
+            log.warn("iot指令序列化失败 - SessionId: {}, 原因: {}", session.getSessionId(), e.getMessage());
+            return;
+        }
+        StringBuilder json = new StringBuilder(64 + commandsJson.length());
+        json.append(SESSION_PREFIX);
+        appendString(json, session.getSessionId());
+        json.append(",\"type\":\"iot\",\"commands\":").append(commandsJson).append('}');
+        String jsonMessage = json.toString();
+        log.debug("sendIotCommandMessage发送iot消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
         sendTextMessage(session, jsonMessage);
+        iotSent.increment();
     }
 
     public void sendEmotion(ChatSession session, String emotion) {
         if (session == null || !session.isOpen()) {
-            log.warn("sendEmotion无法发送消息 - 会话已关闭或为null");
+            skipped.increment();
+            log.debug("sendEmotion无法发送消息 - 会话已关闭或为null");
             return;
         }
-        ObjectNode messageJson = objectMapper.createObjectNode();
-        messageJson.put("session_id", session.getSessionId());
-        messageJson.put("type", "llm");
-        messageJson.put("emotion", emotion);
-        messageJson.put("text", emotion);
-        String jsonMessage = messageJson.toString();
-        log.info("sendEmotion发送Emotion消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
-        sendTextMessage(session, jsonMessage);
+        StringBuilder json = new StringBuilder(64 + 2 * lengthHint(emotion));
+        json.append(SESSION_PREFIX);
+        appendString(json, session.getSessionId());
+        json.append(",\"type\":\"llm\",\"emotion\":");
+        appendString(json, emotion);
+        json.append(",\"text\":");
+        appendString(json, emotion);
+        String jsonMessage = json.append('}').toString();
+        log.debug("sendEmotion发送Emotion消息 - SessionId: {}, Message: {}", session.getSessionId(), jsonMessage);
+        // 表情只需最新的一条，下行拥塞时可合并或丢弃
+        session.sendStatusMessage("emotion", jsonMessage);
+        emotionSent.increment();
     }
 
     public void sendTextMessage(ChatSession chatSession, String message) {
@@ -113,4 +151,69 @@ public class MessageSender {
             throw new RuntimeException("发送音频消息失败, 消息内容", e);
         }
     }
+
+    /**
+     * tts 消息，字段顺序与原先 ObjectNode 输出一致：type, state, text
+     */
+    static String ttsJson(String text, String state) {
+        if (text == null) {
+            if ("start".equals(state)) {
+                return TTS_START;
+            }
+            if ("stop".equals(state)) {
+                return TTS_STOP;
+            }
+        }
+        StringBuilder json = new StringBuilder(TTS_PREFIX.length() + lengthHint(state) + lengthHint(text) + 12);
+        json.append(TTS_PREFIX);
+        appendString(json, state);
+        if (text != null) {
+            json.append(",\"text\":");
+            appendString(json, text);
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * 按 Jackson 默认规则写出 JSON 字符串：转义引号、反斜杠和控制字符，非 ASCII 字符原样输出
+     */
+    static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.append(value, start, i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.append(value, start, length).append('"');
+    }
+
+    private static int lengthHint(String value) {
+        return value == null ? 4 : value.length() + 2;
+    }
+
+    private static Counter sentCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("xiaozhi.websocket.messages")
+                .description("下行 JSON 消息数")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,190 @@
+package com.xiaozhi.communication.server.udp;
+
+import com.xiaozhi.communication.domain.UdpParams;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.socket.DatagramPacket;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 单个会话的 UDP 音频通道。
+ *
+ * 数据包格式与固件 MQTT+UDP 模式一致：16 字节包头 + AES-128-CTR 加密的 Opus 帧，包头同时作为 CTR 的 IV。
+ * <pre>
+ * | type 1B | flags 1B | payload len 2B | conn id 4B | timestamp 4B | sequence 4B | encrypted opus ... |
+ * </pre>
+ * 上行包按序号去重、丢弃迟到包和序号跳跃过大的包，通过校验后按到达顺序串行交给对话管道；
+ * 下行包直接写入 Netty DatagramChannel，不阻塞播放线程，也不受 TCP 队头阻塞影响。
+ */
+@Slf4j
+public class UdpAudioChannel {
+
+    static final int HEADER_SIZE = 16;
+    static final byte PACKET_TYPE_AUDIO = 0x01;
+    /**
+     * 序号相对上一个已接受包允许的最大跳跃。AES-CTR 没有完整性校验，伪造包也能"解密成功"，
+     * 限制跳跃幅度可避免一个超大序号（如 0xFFFFFFFF）让之后的正常包全部被当作迟到包丢弃。
+     * 按 60ms 一帧计，约可容纳 1 小时的连续丢包。
+     */
+    static final long MAX_SEQUENCE_GAP = 60_000;
+
+    private final String sessionId;
+    private final int connectionId;
+    private final byte[] key;
+    private final byte[] nonce;
+    private final Channel channel;
+    private final Consumer<byte[]> inboundHandler;
+    private final long openedAt = System.currentTimeMillis();
+
+    private volatile InetSocketAddress remoteAddress;
+    private final AtomicInteger sendSequence = new AtomicInteger();
+    // 固件打开音频通道时序号从 0 开始，首个包的序号为 1
+    private long lastReceivedSequence = 0;
+
+    // 上行帧串行派发，同一会话内保持顺序，不占用 Netty IO 线程
+    private final ConcurrentLinkedQueue<byte[]> inbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    UdpAudioChannel(String sessionId, int connectionId, byte[] key, Channel channel, Consumer<byte[]> inboundHandler) {
+        this.sessionId = sessionId;
+        this.connectionId = connectionId;
+        this.key = key;
+        this.channel = channel;
+        this.inboundHandler = inboundHandler;
+        this.nonce = new byte[HEADER_SIZE];
+        ByteBuffer.wrap(nonce).put(PACKET_TYPE_AUDIO).put((byte) 0).putShort((short) 0).putInt(connectionId);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public int getConnectionId() {
+        return connectionId;
+    }
+
+    /**
+     * 设备发来第一个有效包之后才知道 NAT 映射后的地址，此前下行仍走 WebSocket
+     */
+    public boolean isConnected() {
+        return remoteAddress != null && channel.isActive();
+    }
+
+    public UdpParams toUdpParams(String server, int port) {
+        HexFormat hex = HexFormat.of();
+        return new UdpParams()
+                .setServer(server)
+                .setPort(port)
+                .setKey(hex.formatHex(key))
+                .setNonce(hex.formatHex(nonce));
+    }
+
+    /**
+     * 发送一个 Opus 帧
+     */
+    public void send(byte[] opusFrame) {
+        InetSocketAddress target = remoteAddress;
+        if (target == null) {
+            return;
+        }
+        byte[] header = nonce.clone();
+        ByteBuffer.wrap(header)
+                .putShort(2, (short) opusFrame.length)
+                .putInt(8, (int) (System.currentTimeMillis() - openedAt))
+                .putInt(12, sendSequence.incrementAndGet());
+        try {
+            byte[] packet = new byte[HEADER_SIZE + opusFrame.length];
+            System.arraycopy(header, 0, packet, 0, HEADER_SIZE);
+            cipher(Cipher.ENCRYPT_MODE, header).doFinal(opusFrame, 0, opusFrame.length, packet, HEADER_SIZE);
+            channel.writeAndFlush(new DatagramPacket(Unpooled.wrappedBuffer(packet), target));
+        } catch (GeneralSecurityException e) {
+            log.warn("UDP音频加密失败 - SessionId: {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 处理一个上行数据包（已由 UdpAudioServer 按连接号路由到本通道）
+     */
+    void onPacket(byte[] header, byte[] payload, InetSocketAddress sender) {
+        long sequence = Integer.toUnsignedLong(ByteBuffer.wrap(header).getInt(12));
+        byte[] opus;
+        try {
+            opus = cipher(Cipher.DECRYPT_MODE, header).doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            log.warn("UDP音频解密失败 - SessionId: {}: {}", sessionId, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (sequence <= lastReceivedSequence) {
+                // 重复或迟到的包，Opus 解码器按顺序工作，直接丢弃
+                dropped.incrementAndGet();
+                return;
+            }
+            if (sequence - lastReceivedSequence > MAX_SEQUENCE_GAP) {
+                // 序号跳跃过大，视为伪造或错乱的包，不推进序号也不更新来源地址
+                dropped.incrementAndGet();
+                return;
+            }
+            lost.addAndGet(sequence - lastReceivedSequence - 1);
+            lastReceivedSequence = sequence;
+            // 设备网络切换后 NAT 映射可能变化，以序号最新且通过校验的包的来源为准
+            remoteAddress = sender;
+        }
+        received.incrementAndGet();
+
+        inbound.offer(opus);
+        if (draining.compareAndSet(false, true)) {
+            Thread.startVirtualThread(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            byte[] frame;
+            while ((frame = inbound.poll()) != null) {
+                try {
+                    inboundHandler.accept(frame);
+                } catch (Exception e) {
+                    log.error("UDP音频帧处理失败 - SessionId: {}", sessionId, e);
+                }
+            }
+            draining.set(false);
+            // 置位后再检查一次，防止与 onPacket 的入队竞争导致帧滞留
+        } while (!inbound.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private Cipher cipher(int mode, byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(mode, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        return cipher;
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getLostCount() {
+        return lost.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,152 @@
+package com.xiaozhi.communication.server.udp;
+
+import com.xiaozhi.communication.common.MessageHandler;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UDP 音频服务器（Netty）。
+ *
+ * 设备在 WebSocket hello 中声明 transport=udp 时，由 WebSocketHandler 调用 {@link #open(String)} 分配连接号和密钥，
+ * 通过 hello 响应下发；之后 Opus 帧走 UDP，控制/JSON 消息仍走 WebSocket。
+ * 上行帧解密后交给 {@link MessageHandler#handleBinaryMessage}，与 WebSocket 二进制消息走同一条对话管道。
+ */
+@Slf4j
+@Component
+public class UdpAudioServer {
+
+    @Value("${udp.server.enabled:false}")
+    private boolean enabled;
+
+    @Value("${udp.server.port:1884}")
+    private int port;
+
+    @Resource
+    private MessageHandler messageHandler;
+
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentHashMap<Integer, UdpAudioChannel> channelsByConnection = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UdpAudioChannel> channelsBySession = new ConcurrentHashMap<>();
+
+    private EventLoopGroup group;
+    private volatile Channel channel;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        group = new NioEventLoopGroup(1, new DefaultThreadFactory("udp-audio"));
+        try {
+            channel = new Bootstrap()
+                    .group(group)
+                    .channel(NioDatagramChannel.class)
+                    .option(ChannelOption.SO_RCVBUF, 1024 * 1024)
+                    .option(ChannelOption.SO_SNDBUF, 1024 * 1024)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                            onPacket(packet);
+                        }
+                    })
+                    .bind(port)
+                    .sync()
+                    .channel();
+            log.info("UDP音频服务已启动 - 端口: {}", port);
+        } catch (Exception e) {
+            log.error("UDP音频服务启动失败，设备将继续使用WebSocket传输音频 - 端口: {}", port, e);
+            group.shutdownGracefully();
+            channel = null;
+        }
+    }
+
+    /**
+     * UDP 服务是否可用于协商
+     */
+    public boolean isAvailable() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    /**
+     * 为会话分配 UDP 通道（连接号 + 随机密钥），重复调用时替换旧通道
+     */
+    public UdpAudioChannel open(String sessionId) {
+        close(sessionId);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        UdpAudioChannel udpChannel;
+        do {
+            int connectionId = random.nextInt();
+            udpChannel = new UdpAudioChannel(sessionId, connectionId, key, channel,
+                    frame -> messageHandler.handleBinaryMessage(sessionId, frame));
+        } while (channelsByConnection.putIfAbsent(udpChannel.getConnectionId(), udpChannel) != null);
+        channelsBySession.put(sessionId, udpChannel);
+        return udpChannel;
+    }
+
+    /**
+     * 释放会话的 UDP 通道
+     */
+    public void close(String sessionId) {
+        UdpAudioChannel udpChannel = channelsBySession.remove(sessionId);
+        if (udpChannel != null) {
+            channelsByConnection.remove(udpChannel.getConnectionId(), udpChannel);
+            log.info("UDP音频通道已关闭 - SessionId: {}, 收包: {}, 丢包: {}, 乱序丢弃: {}", sessionId,
+                    udpChannel.getReceivedCount(), udpChannel.getLostCount(), udpChannel.getDroppedCount());
+        }
+    }
+
+    private void onPacket(DatagramPacket packet) {
+        ByteBuf content = packet.content();
+        if (content.readableBytes() < UdpAudioChannel.HEADER_SIZE) {
+            return;
+        }
+        byte[] header = new byte[UdpAudioChannel.HEADER_SIZE];
+        content.readBytes(header);
+        ByteBuffer view = ByteBuffer.wrap(header);
+        if (view.get(0) != UdpAudioChannel.PACKET_TYPE_AUDIO) {
+            return;
+        }
+        int payloadLength = Short.toUnsignedInt(view.getShort(2));
+        if (payloadLength == 0 || payloadLength > content.readableBytes()) {
+            return;
+        }
+        UdpAudioChannel udpChannel = channelsByConnection.get(view.getInt(4));
+        if (udpChannel == null) {
+            return;
+        }
+        byte[] payload = new byte[payloadLength];
+        content.readBytes(payload);
+        udpChannel.onPacket(header, payload, packet.sender());
+    }
+
+    @PreDestroy
+    public void stop() {
+        channelsBySession.clear();
+        channelsByConnection.clear();
+        if (group != null) {
+            group.shutdownGracefully();
+            log.info("UDP音频服务已停止");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.xiaozhi.communication.server.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 下行写出的共享部分：写出线程、队列参数和指标。
+ *
+ * 每个连接持有一个 {@link OutboundQueue}，播放器和业务线程只负责入队；
+ * 队列非空时在虚拟线程上启动一个写出任务，把队列写空后退出，同一连接同一时刻只有一个写出者。
+ * 慢设备只会让自己的队列变长，不会阻塞播放器的发帧任务。
+ *
+ * 指标：
+ * - xiaozhi.websocket.outbound.queued：所有连接排队中的消息总数
+ * - xiaozhi.websocket.outbound.send：消息从入队到写出完成的耗时，按 kind（audio / text）打标签
+ * - xiaozhi.websocket.outbound.dropped：因队列已满或被新状态取代而未发送的消息数
+ * - xiaozhi.websocket.outbound.overflow-closed：持续溢出被关闭的连接数
+ */
+@Slf4j
+@Component
+public class OutboundDispatcher {
+
+    /** 单个连接允许排队的消息数，60ms 一帧时 256 约等于 15 秒音频 */
+    @Value("${websocket.outbound.max-queue:256}")
+    private int maxQueue;
+
+    /** 队列持续溢出超过该时间后关闭连接 */
+    @Value("${websocket.outbound.overflow-close-ms:5000}")
+    private long overflowCloseMs;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    private final AtomicLong queued = new AtomicLong();
+
+    private Timer audioSend;
+    private Timer textSend;
+    private Counter audioDropped;
+    private Counter textDropped;
+    private Counter overflowClosed;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-outbound-", 0).factory());
+        Gauge.builder("xiaozhi.websocket.outbound.queued", queued, AtomicLong::get)
+                .description("所有连接排队中的下行消息数")
+                .register(meterRegistry);
+        audioSend = sendTimer("audio");
+        textSend = sendTimer("text");
+        audioDropped = droppedCounter("audio");
+        textDropped = droppedCounter("text");
+        overflowClosed = Counter.builder("xiaozhi.websocket.outbound.overflow-closed")
+                .description("下行队列持续溢出被关闭的连接数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 为一个连接创建下行队列
+     */
+    public OutboundQueue newQueue(WebSocketSession session) {
+        return new OutboundQueue(session, this);
+    }
+
+    int getMaxQueue() {
+        return maxQueue;
+    }
+
+    long getOverflowCloseNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(overflowCloseMs);
+    }
+
+    boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // 应用关闭期间不再写出
+            log.debug("下行写出线程已停止，丢弃写出任务");
+            return false;
+        }
+    }
+
+    void onEnqueued() {
+        queued.incrementAndGet();
+    }
+
+    void onDequeued(int count) {
+        queued.addAndGet(-count);
+    }
+
+    void onSent(boolean audio, long nanos) {
+        (audio ? audioSend : textSend).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void onDropped(boolean audio) {
+        (audio ? audioDropped : textDropped).increment();
+    }
+
+    void onOverflowClosed() {
+        overflowClosed.increment();
+    }
+
+    private Timer sendTimer(String kind) {
+        return Timer.builder("xiaozhi.websocket.outbound.send")
+                .description("下行消息从入队到写出完成的耗时")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private Counter droppedCounter(String kind) {
+        return Counter.builder("xiaozhi.websocket.outbound.dropped")
+                .description("未发送而被丢弃的下行消息数")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,213 @@
+package com.xiaozhi.communication.server.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个 WebSocket 连接的下行队列，所有文本和音频按入队顺序由同一个写出任务发送。
+ *
+ * 队列策略：
+ * - 音频帧和控制消息（tts start/stop、stt 等）严格保序，不合并、不重排
+ * - 状态消息（如表情）按 key 合并：同 key 的旧消息还没发出就被新消息取代，写出时跳过
+ * - 队列满时丢弃新的音频帧和状态消息，控制消息仍然入队，避免设备状态错乱
+ * - 溢出持续超过 overflow-close-ms 时关闭连接，由设备重连恢复
+ */
+@Slf4j
+public class OutboundQueue {
+
+    private static final int TEXT = 0;
+    private static final int AUDIO = 1;
+    private static final int CLOSE = 2;
+
+    private static final class Entry {
+        final int kind;
+        final String text;
+        final byte[] audio;
+        final String statusKey;
+        final long enqueuedAt = System.nanoTime();
+        // 被同 key 的新状态取代
+        volatile boolean stale;
+
+        Entry(int kind, String text, byte[] audio, String statusKey) {
+            this.kind = kind;
+            this.text = text;
+            this.audio = audio;
+            this.statusKey = statusKey;
+        }
+    }
+
+    private final WebSocketSession session;
+    private final OutboundDispatcher dispatcher;
+    private final int maxQueue;
+    private final long overflowCloseNanos;
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    // 是否已有写出任务在运行，保证单写出者
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // 每个 key 最近一条尚未发出的状态消息
+    private final Map<String, Entry> pendingStatus = new ConcurrentHashMap<>();
+
+    // 开始溢出的时间，0 表示未溢出
+    private volatile long overflowSince;
+    private volatile boolean closed;
+
+    OutboundQueue(WebSocketSession session, OutboundDispatcher dispatcher) {
+        this.session = session;
+        this.dispatcher = dispatcher;
+        this.maxQueue = dispatcher.getMaxQueue();
+        this.overflowCloseNanos = dispatcher.getOverflowCloseNanos();
+    }
+
+    public void sendText(String message) {
+        offer(new Entry(TEXT, message, null, null), false);
+    }
+
+    public void sendStatus(String key, String message) {
+        Entry entry = new Entry(TEXT, message, null, key);
+        if (!offer(entry, true)) {
+            return;
+        }
+        Entry previous = pendingStatus.put(key, entry);
+        if (previous != null) {
+            previous.stale = true;
+        }
+    }
+
+    public void sendAudio(byte[] frame) {
+        offer(new Entry(AUDIO, null, frame, null), true);
+    }
+
+    /**
+     * 发完已排队的消息后关闭连接；已经处于溢出状态时立即关闭
+     */
+    public void close() {
+        if (overflowSince != 0) {
+            closeNow(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+        offer(new Entry(CLOSE, null, null, null), false);
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * 已入队的消息是否都已写出。出队时先减深度再写出，正在写的一条仍由 draining 标记占用，
+     * 因此先看队列再看标记，两者都空闲才算写完
+     */
+    public boolean isIdle() {
+        return queue.isEmpty() && !draining.get();
+    }
+
+    private boolean offer(Entry entry, boolean droppable) {
+        if (closed || !session.isOpen()) {
+            return false;
+        }
+        if (droppable && depth.get() >= maxQueue) {
+            dispatcher.onDropped(entry.kind == AUDIO);
+            onOverflow();
+            return false;
+        }
+        queue.offer(entry);
+        depth.incrementAndGet();
+        dispatcher.onEnqueued();
+        if (draining.compareAndSet(false, true) && !dispatcher.execute(this::drain)) {
+            draining.set(false);
+        }
+        return true;
+    }
+
+    private void onOverflow() {
+        long now = System.nanoTime();
+        long since = overflowSince;
+        if (since == 0) {
+            overflowSince = now;
+            log.warn("下行队列已满，开始丢弃音频和状态消息 - SessionId: {}, 队列: {}", session.getId(), depth.get());
+        } else if (now - since > overflowCloseNanos) {
+            log.warn("下行队列持续溢出，关闭连接 - SessionId: {}, 持续: {}ms",
+                    session.getId(), (now - since) / 1_000_000);
+            dispatcher.onOverflowClosed();
+            closeNow(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                depth.decrementAndGet();
+                dispatcher.onDequeued(1);
+                write(entry);
+                if (overflowSince != 0 && depth.get() < maxQueue / 2) {
+                    overflowSince = 0;
+                    log.info("下行队列已恢复 - SessionId: {}", session.getId());
+                }
+            }
+            draining.set(false);
+            // 释放标记后可能又有消息入队，但入队方抢标记失败，需要由这里接着写
+            if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        if (entry.kind == CLOSE) {
+            closeNow(CloseStatus.NORMAL);
+            return;
+        }
+        if (entry.statusKey != null) {
+            pendingStatus.remove(entry.statusKey, entry);
+        }
+        if (entry.stale) {
+            dispatcher.onDropped(false);
+            return;
+        }
+        if (closed || !session.isOpen()) {
+            return;
+        }
+        try {
+            if (entry.kind == AUDIO) {
+                session.sendMessage(new BinaryMessage(entry.audio));
+            } else {
+                session.sendMessage(new TextMessage(entry.text));
+            }
+            dispatcher.onSent(entry.kind == AUDIO, System.nanoTime() - entry.enqueuedAt);
+        } catch (Exception e) {
+            // 容器对已关闭连接可能抛出各种运行时异常，不能让异常逃出写出任务，否则 draining 标记不会释放，连接下行永久卡住
+            log.warn("下行消息写出失败 - SessionId: {}, 原因: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void closeNow(CloseStatus status) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        int discarded = 0;
+        while (queue.poll() != null) {
+            discarded++;
+        }
+        if (discarded > 0) {
+            depth.addAndGet(-discarded);
+            dispatcher.onDequeued(discarded);
+        }
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            log.error("关闭WebSocket会话时发生错误 - SessionId: {}", session.getId(), e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.xiaozhi.communication.server.websocket;
 
+import com.xiaozhi.communication.ServerAddressProvider;
 import com.xiaozhi.communication.common.*;
 import com.xiaozhi.communication.domain.*;
+import com.xiaozhi.communication.server.udp.UdpAudioChannel;
+import com.xiaozhi.communication.server.udp.UdpAudioServer;
 import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.dialogue.llm.tool.mcp.device.DeviceMcpService;
 import com.xiaozhi.utils.JsonUtil;
@@ -32,6 +35,15 @@ public class WebSocketHandler extends AbstractWebSocketHandler {
     @Resource
     private DeviceMcpService deviceMcpService;
 
+    @Resource
+    private UdpAudioServer udpAudioServer;
+
+    @Resource
+    private ServerAddressProvider serverAddressProvider;
+
+    @Resource
+    private OutboundDispatcher outboundDispatcher;
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         Map<String, String> headers = getHeadersFromSession(session);
@@ -47,8 +59,7 @@ public class WebSocketHandler extends AbstractWebSocketHandler {
             return;
         }
 
-        com.xiaozhi.communication.server.websocket.WebSocketSession xiaoZhiSession
-                = new com.xiaozhi.communication.server.websocket.WebSocketSession(session);
+        XiaozhiWebSocketSession xiaoZhiSession = new XiaozhiWebSocketSession(session, outboundDispatcher.newQueue(session));
         messageHandler.afterConnection(xiaoZhiSession, deviceIdAuth);
         sessionManager.openAudioChannel(xiaoZhiSession.getSessionId(), deviceIdAuth);
 
@@ -102,6 +113,7 @@ public class WebSocketHandler extends AbstractWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         String sessionId = session.getId();
+        udpAudioServer.close(sessionId);
         messageHandler.afterConnectionClosed(sessionId);
 
         log.info("WebSocket连接关闭 - SessionId: {}, 状态: {}", sessionId, status);
@@ -114,6 +126,7 @@ public class WebSocketHandler extends AbstractWebSocketHandler {
         if (isClientCloseRequest(exception)) {
             // 客户端主动关闭，记录为信息级别日志而非错误
             log.info("WebSocket连接被客户端主动关闭 - SessionId: {}", sessionId);
+            udpAudioServer.close(sessionId);
             messageHandler.afterConnectionClosed(sessionId);
         } else {
             // 真正的传输错误
@@ -158,8 +171,24 @@ public class WebSocketHandler extends AbstractWebSocketHandler {
                 .setSessionId(sessionId)
                 .setAudioParams(AudioParams.Opus);
 
+        // 设备请求 UDP 传输且服务端已启用时，分配 UDP 音频通道；控制消息仍走 WebSocket
+        if ("udp".equalsIgnoreCase(message.getTransport()) && udpAudioServer.isAvailable()
+                && sessionManager.getSession(sessionId) instanceof XiaozhiWebSocketSession xiaoZhiSession) {
+            UdpAudioChannel udpChannel = udpAudioServer.open(sessionId);
+            xiaoZhiSession.bindUdpChannel(udpChannel);
+            resp.setTransport("udp")
+                    .setUdp(udpChannel.toUdpParams(serverAddressProvider.getUdpAddress(), serverAddressProvider.getUdpPort()));
+            log.info("已协商UDP音频通道 - SessionId: {}, ConnectionId: {}", sessionId, udpChannel.getConnectionId());
+        }
+
         try {
-            session.sendMessage(new TextMessage(JsonUtil.toJson(resp)));
+            // 经由下行队列发送，不与播放器的写出并发
+            ChatSession helloSession = sessionManager.getSession(sessionId);
+            if (helloSession != null) {
+                helloSession.sendTextMessage(JsonUtil.toJson(resp));
+            } else {
+                session.sendMessage(new TextMessage(JsonUtil.toJson(resp)));
+            }
             if(message.getFeatures() != null && message.getFeatures().getMcp()) {
                 //如果客户端开启mcp协议，异步初始化MCP工具
                 ChatSession chatSession = sessionManager.getSession(sessionId);
@@ -0,0 +1,125 @@
+package com.xiaozhi.communication.server.websocket;
+
+import com.xiaozhi.communication.common.ChatSession;
+import com.xiaozhi.communication.server.udp.UdpAudioChannel;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class XiaozhiWebSocketSession extends ChatSession {
+    /**
+     * 当前会话的链接 session
+     */
+    protected WebSocketSession session;
+
+    /**
+     * hello 中协商出的 UDP 音频通道，存在且已收到设备首包时，下行 Opus 帧改走 UDP。
+     * 文本消息始终经 WebSocket 下行队列发送，为保证 tts start 等控制消息先于其后的音频发出，
+     * 队列里还有未写完的消息时音频帧也排进同一个队列，队列写空后才切回 UDP。
+     * 这里只保证发送顺序，UDP 与 TCP 在网络上的到达顺序仍可能不同。
+     */
+    private volatile UdpAudioChannel udpChannel;
+
+    /**
+     * 下行队列，为 null 时直接在调用线程上同步写出
+     */
+    private OutboundQueue outbound;
+
+    public XiaozhiWebSocketSession(String sessionId) {
+        super(sessionId);
+    }
+
+    public XiaozhiWebSocketSession(WebSocketSession session) {
+        super(session.getId());
+        this.session = session;
+    }
+
+    public XiaozhiWebSocketSession(WebSocketSession session, OutboundQueue outbound) {
+        this(session);
+        this.outbound = outbound;
+    }
+
+    @Override
+    public String getSessionId() {
+        return session.getId();
+    }
+
+    public WebSocketSession getSession() {
+        return this.session;
+    }
+
+    public void bindUdpChannel(UdpAudioChannel udpChannel) {
+        this.udpChannel = udpChannel;
+    }
+
+    @Override
+    public void close() {
+        if (outbound != null) {
+            // 排在已入队的消息之后关闭，避免告别语等最后几条消息丢失
+            outbound.close();
+            return;
+        }
+        if(session != null){
+            try {
+                session.close();
+            } catch (IOException e) {
+                log.error("关闭WebSocket会话时发生错误 - SessionId: {}", getSessionId(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return session.isOpen();
+    }
+
+    @Override
+    public boolean isAudioChannelOpen() {
+        return session.isOpen();
+    }
+
+    @Override
+    public void sendTextMessage(String message) {
+        if (outbound != null) {
+            outbound.sendText(message);
+            return;
+        }
+        try {
+            session.sendMessage(new TextMessage(message));
+        } catch (IOException e) {
+            log.error("发送Text消息失败, message: {}", message, e);
+        }
+    }
+
+    @Override
+    public void sendBinaryMessage(byte[] message) {
+        UdpAudioChannel udp = udpChannel;
+        if (udp != null && udp.isConnected() && (outbound == null || outbound.isIdle())) {
+            udp.send(message);
+            return;
+        }
+        if (outbound != null) {
+            outbound.sendAudio(message);
+            return;
+        }
+        try {
+            session.sendMessage(new BinaryMessage(message));
+        } catch (IOException e) {
+            log.error("发送Binary消息失败", e);
+        }
+    }
+
+    @Override
+    public void sendStatusMessage(String key, String message) {
+        if (outbound != null) {
+            outbound.sendStatus(key, message);
+            return;
+        }
+        sendTextMessage(message);
+    }
+}
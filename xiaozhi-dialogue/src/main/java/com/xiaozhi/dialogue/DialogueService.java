@@ -6,6 +6,7 @@ import com.xiaozhi.communication.message.MessageSender;
 import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.common.model.bo.MessageBO;
 import com.xiaozhi.dialogue.audio.VadService;
+import com.xiaozhi.dialogue.metrics.DialogueMetrics;
 import com.xiaozhi.dialogue.llm.factory.PersonaFactory;
 import com.xiaozhi.ai.llm.memory.MessageTimeMetadata;
 import com.xiaozhi.ai.llm.service.IntentService;
@@ -70,6 +71,9 @@ public class DialogueService{
     @Resource
     private StorageServiceFactory storageServiceFactory;
 
+    @Resource
+    private DialogueMetrics dialogueMetrics;
+
     @org.springframework.context.event.EventListener
     public void onApplicationEvent(ChatAbortedEvent event) {
         ChatSession chatSession = sessionManager.getSession(event.getSessionId());
@@ -131,6 +135,7 @@ public class DialogueService{
                 case SPEECH_END:
                     // 语音结束，完成流式识别；状态切换为 THINKING 等待 LLM 响应
                     if (session.getDeviceState() == DeviceState.LISTENING) {
+                        dialogueMetrics.onSpeechEnd(session);
                         session.completeAudioStream();
                         session.transitionTo(DeviceState.THINKING);
                     }
@@ -176,11 +181,16 @@ public class DialogueService{
                     return;
                 }
 
-                var sttResult = persona.getSttService().stream(session.getAudioSinks().asFlux());
+                var sttService = persona.getSttService();
+                var sttResult = sttService.supportsPartialResults()
+                        ? sttService.stream(session.getAudioSinks().asFlux(),
+                                partial -> onPartialStt(session, persona, partial))
+                        : sttService.stream(session.getAudioSinks().asFlux());
 
                 if (sttResult == null || !StringUtils.hasText(sttResult.text())) {
                     return;
                 }
+                dialogueMetrics.onSttResult(session, sttService.getProviderName());
 
                 // 发送STT识别结果到设备
                 persona.getPlayer().sendStt(sttResult.text());
@@ -203,6 +213,18 @@ public class DialogueService{
         });
     }
 
+    /**
+     * 处理 STT 中间结果：实时下发 stt 文本。
+     * 中间结果随时可能被后续音频改写（"我走了" 可能是 "我走了很远才到" 的前缀），
+     * 不据此做意图判断，仍以 VAD 判定说完后的最终结果为准。
+     */
+    private void onPartialStt(ChatSession session, Persona persona, String partial) {
+        if (session.getDeviceState() != DeviceState.LISTENING) {
+            return;
+        }
+        persona.getPlayer().sendStt(partial);
+    }
+
     /**
      * 处理语音唤醒
      */
@@ -352,8 +374,7 @@ public class DialogueService{
      * 保存用户音频数据为WAV文件
      */
     private void saveUserAudio(ChatSession session, Path path) {
-        List<byte[]> pcmFrames = vadService.getPcmData(session.getSessionId());
-        byte[] fullPcmData = AudioUtils.joinPcmFrames(pcmFrames);
+        byte[] fullPcmData = vadService.getPcmData(session.getSessionId());
         if (fullPcmData.length == 0) {
             return;
         }
@@ -6,11 +6,22 @@ import com.xiaozhi.utils.OpusProcessor;
 import dev.onvoid.webrtc.media.audio.AudioProcessing;
 import dev.onvoid.webrtc.media.audio.AudioProcessingConfig;
 import dev.onvoid.webrtc.media.audio.AudioProcessingStreamConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.extern.slf4j.Slf4j;
 /**
@@ -25,6 +36,11 @@ import lombok.extern.slf4j.Slf4j;
  * - 两者都直接驱动 AEC3，保持各自的实时时间线；AEC3 内置延迟估计器
  *   自动找到参考信号与回声之间的延迟，无需手动对齐。
  * - setStreamDelayMs 仅作为初始提示加速收敛。
+ * - APM 实例在会话之间复用：会话结束时归还到有上限的空闲池，新会话从池中取出时重置回声消除、降噪、
+ *   增益控制和参考解码器，不带入上一个设备的自适应状态；TTS 播放结束时只在原实例上重置回声消除器。
+ * - 子帧输入输出缓冲按会话复用，每帧处理不分配新数组。
+ *
+ * 指标：xiaozhi.aec.pool.created（新建实例数）、xiaozhi.aec.pool.reused（复用次数）、xiaozhi.aec.pool.idle（空闲实例数）。
  */
 @Slf4j
 @Service
@@ -38,12 +54,38 @@ public class AecService {
     @Value("${aec.noise.suppression.level:MODERATE}")
     private String noiseSuppressionLevel;
 
+    // 空闲池最多保留的 APM 实例数，超出的直接释放
+    @Value("${aec.pool.max-idle:16}")
+    private int poolMaxIdle;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
     // 每会话 AEC 状态
     private final ConcurrentHashMap<String, AecState> states = new ConcurrentHashMap<>();
 
+    // 会话结束后归还的实例
+    private final Queue<AecState> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
     // 10ms 帧参数 (16kHz mono, 16-bit)
     private static final int FRAME_BYTES_10MS = 320;      // bytes
 
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("xiaozhi.aec.pool.created", created, AtomicLong::get)
+                .description("新建的 AEC 实例数")
+                .register(meterRegistry);
+        FunctionCounter.builder("xiaozhi.aec.pool.reused", reused, AtomicLong::get)
+                .description("从空闲池复用 AEC 实例的次数")
+                .register(meterRegistry);
+        Gauge.builder("xiaozhi.aec.pool.idle", idleCount, AtomicInteger::get)
+                .description("空闲池中的 AEC 实例数")
+                .register(meterRegistry);
+    }
+
     /**
      * 确保会话的 AEC 状态已初始化。
      * 如果已存在则复用（保留已收敛的滤波器状态），不存在才新建。
@@ -52,8 +94,10 @@ public class AecService {
         if (!enabled) return;
         if (states.containsKey(sessionId)) return;
         try {
-            AecState existing = states.putIfAbsent(sessionId, new AecState());
-            if (existing == null) {
+            AecState state = acquire(sessionId);
+            if (states.putIfAbsent(sessionId, state) != null) {
+                // 并发初始化，归还刚取出的实例
+                release(state);
             }
         } catch (Exception e) {
             log.error("AEC会话初始化失败: {}", sessionId, e);
@@ -61,46 +105,88 @@ public class AecService {
     }
 
     /**
-     * 重置（销毁）会话的 AEC 状态
+     * 结束会话的 AEC 状态，实例归还到空闲池
      */
     public void resetSession(String sessionId) {
         AecState state = states.remove(sessionId);
         if (state != null) {
-            // 在 apmLock 内 dispose，确保等待正在进行的 processStream/processReverseStream 完成
-            synchronized (state.apmLock) {
-                state.dispose();
-            }
+            release(state);
         }
     }
 
     /**
-     * TTS 播放结束时重建 AEC 实例。
+     * TTS 播放结束时重置回声消除器。
      * AEC3 在 TTS 停止后仍保留旧的回声滤波器，会把用户说话当回声消除（过度消除）。
-     * 重建 APM 实例可以清除旧滤波器，避免误消除用户声音。
+     * 在原 APM 实例上重置回声消除器即可清除旧滤波器，降噪和增益控制的状态保留。
      */
     @EventListener
     public void onTtsPlaybackEnd(TtsPlaybackCompletedEvent event) {
         if (!enabled) return;
         String sessionId = event.getSessionId();
-        AecState old = states.get(sessionId);
-        if (old == null) return;
+        AecState state = states.get(sessionId);
+        if (state == null) return;
         try {
-            AecState fresh = new AecState();
-            // 原子替换：用新实例替换旧实例
-            if (states.replace(sessionId, old, fresh)) {
-                // 在 apmLock 内 dispose，确保等待正在进行的 processStream/processReverseStream 完成
-                synchronized (old.apmLock) {
-                    old.dispose();
-                }
-            } else {
-                // 并发竞争，新实例被抢先替换，释放刚创建的
-                synchronized (fresh.apmLock) {
-                    fresh.dispose();
+            // 在 apmLock 内重置，确保等待正在进行的 processStream/processReverseStream 完成
+            synchronized (state.apmLock) {
+                if (!state.disposed && sessionId.equals(state.owner)) {
+                    state.resetEchoCanceller();
                 }
             }
         } catch (Exception e) {
-            log.warn("AEC重建失败: {}: {}", sessionId, e.getMessage());
+            log.warn("AEC重置失败: {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 从空闲池取出实例并重置全部自适应状态，池为空时新建
+     */
+    private AecState acquire(String sessionId) {
+        AecState state;
+        while ((state = idle.poll()) != null) {
+            idleCount.decrementAndGet();
+            synchronized (state.apmLock) {
+                if (state.disposed) {
+                    continue;
+                }
+                state.resetAll();
+                state.owner = sessionId;
+            }
+            reused.incrementAndGet();
+            return state;
+        }
+        state = new AecState();
+        state.owner = sessionId;
+        created.incrementAndGet();
+        return state;
+    }
+
+    /**
+     * 归还实例，空闲池已满时释放
+     */
+    private void release(AecState state) {
+        // 在 apmLock 内解除归属，确保等待正在进行的 processStream/processReverseStream 完成，
+        // 之后旧会话残留的调用会因 owner 不匹配而跳过
+        synchronized (state.apmLock) {
+            if (state.disposed) return;
+            state.owner = null;
+            if (idleCount.incrementAndGet() > poolMaxIdle) {
+                idleCount.decrementAndGet();
+                state.dispose();
+                return;
+            }
+        }
+        idle.offer(state);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        AecState state;
+        while ((state = idle.poll()) != null) {
+            synchronized (state.apmLock) {
+                state.dispose();
+            }
         }
+        idleCount.set(0);
     }
 
     /**
@@ -111,21 +197,22 @@ public class AecService {
     public void feedReference(String sessionId, byte[] opusFrame) {
         if (!enabled) return;
         AecState state = states.get(sessionId);
-        if (state == null) return;
+        if (state == null || opusFrame == null) return;
 
         try {
-            // 用独立解码器解码参考 Opus 帧
-            byte[] pcm = state.refDecoder.opusToPcm(opusFrame);
-            if (pcm == null || pcm.length == 0) return;
-
-            // 立即逐子帧调用 processReverseStream，以 TTS 实时节奏驱动参考通道
             synchronized (state.apmLock) {
-                if (state.disposed) return;
+                if (state.disposed || !sessionId.equals(state.owner)) return;
+                // 用独立解码器解码参考 Opus 帧；解码器随实例复用，在锁内使用，归还后旧会话的残留调用不会污染它
+                byte[] pcm = state.refPcm;
+                int pcmLength = state.refDecoder.opusToPcm(opusFrame, 0, opusFrame.length, pcm);
+                if (pcmLength == 0) return;
+
+                // 立即逐子帧调用 processReverseStream，以 TTS 实时节奏驱动参考通道
+                byte[] subFrame = state.refSubFrame;
+                byte[] refOutput = state.refOutput;
                 int offset = 0;
-                while (offset + FRAME_BYTES_10MS <= pcm.length) {
-                    byte[] subFrame = new byte[FRAME_BYTES_10MS];
+                while (offset + FRAME_BYTES_10MS <= pcmLength) {
                     System.arraycopy(pcm, offset, subFrame, 0, FRAME_BYTES_10MS);
-                    byte[] refOutput = new byte[FRAME_BYTES_10MS];
                     state.apm.processReverseStream(subFrame, state.streamConfig, state.streamConfig, refOutput);
                     offset += FRAME_BYTES_10MS;
                 }
@@ -142,38 +229,38 @@ public class AecService {
      * AEC3 内部延迟估计器自动将参考通道与麦克风通道对齐。
      */
     public byte[] process(String sessionId, byte[] micPcm) {
-        if (!enabled) return micPcm;
+        if (!enabled || !states.containsKey(sessionId)) return micPcm;
+        byte[] aecOutput = micPcm.clone();
+        return process(sessionId, aecOutput, aecOutput.length) ? aecOutput : micPcm;
+    }
+
+    /**
+     * 原地处理麦克风 PCM：pcm 前 length 个字节被替换为消除回声后的数据，不足 10ms 的尾部保持原样。
+     *
+     * @return 是否经过了 AEC 处理；未启用、会话不存在或处理失败时返回 false
+     */
+    public boolean process(String sessionId, byte[] pcm, int length) {
+        if (!enabled) return false;
         AecState state = states.get(sessionId);
-        if (state == null) return micPcm;
+        if (state == null) return false;
 
         try {
-            int totalBytes = micPcm.length;
-            byte[] aecOutput = new byte[totalBytes];
-            int offset = 0;
-            int outOffset = 0;
-
             synchronized (state.apmLock) {
-                if (state.disposed) return micPcm;
-                while (offset + FRAME_BYTES_10MS <= totalBytes) {
-                    byte[] micSubFrame = new byte[FRAME_BYTES_10MS];
-                    System.arraycopy(micPcm, offset, micSubFrame, 0, FRAME_BYTES_10MS);
-                    byte[] outputFrame = new byte[FRAME_BYTES_10MS];
+                if (state.disposed || !sessionId.equals(state.owner)) return false;
+                byte[] micSubFrame = state.micSubFrame;
+                byte[] outputFrame = state.micOutput;
+                int offset = 0;
+                while (offset + FRAME_BYTES_10MS <= length) {
+                    System.arraycopy(pcm, offset, micSubFrame, 0, FRAME_BYTES_10MS);
                     state.apm.processStream(micSubFrame, state.streamConfig, state.streamConfig, outputFrame);
-                    System.arraycopy(outputFrame, 0, aecOutput, outOffset, FRAME_BYTES_10MS);
+                    System.arraycopy(outputFrame, 0, pcm, offset, FRAME_BYTES_10MS);
                     offset += FRAME_BYTES_10MS;
-                    outOffset += FRAME_BYTES_10MS;
                 }
             }
-
-            // 处理不足 10ms 的尾部数据
-            if (offset < totalBytes) {
-                System.arraycopy(micPcm, offset, aecOutput, outOffset, totalBytes - offset);
-            }
-
-            return aecOutput;
+            return true;
         } catch (Exception e) {
             log.warn("AEC process 失败 - SessionId: {}: {}", sessionId, e.getMessage());
-            return micPcm;
+            return false;
         }
     }
 
@@ -186,15 +273,25 @@ public class AecService {
      */
     private class AecState {
         final AudioProcessing apm;
-        final OpusProcessor refDecoder;
+        // 参考帧解码器，在 apmLock 内使用，实例换会话时重建
+        OpusProcessor refDecoder;
+        // 参考帧解码输出的复用缓冲，只在 feedReference 的 apmLock 内使用
+        final byte[] refPcm = new byte[OpusProcessor.MAX_PCM_BYTES];
+        // 10ms 子帧的输入输出缓冲，在 apmLock 内使用
+        final byte[] refSubFrame = new byte[FRAME_BYTES_10MS];
+        final byte[] refOutput = new byte[FRAME_BYTES_10MS];
+        final byte[] micSubFrame = new byte[FRAME_BYTES_10MS];
+        final byte[] micOutput = new byte[FRAME_BYTES_10MS];
+        final AudioProcessingConfig config;
         final AudioProcessingStreamConfig streamConfig;
         final Object apmLock = new Object();  // feedReference 和 process 共用同一把锁，保证 APM 调用线程安全
         volatile boolean disposed = false;     // dispose 标志，在 apmLock 内设置和检查
+        String owner;                          // 当前使用该实例的会话，在 apmLock 内设置和检查
 
         AecState() {
             apm = new AudioProcessing();
 
-            AudioProcessingConfig config = new AudioProcessingConfig();
+            config = new AudioProcessingConfig();
             config.echoCanceller.enabled = true;
             config.echoCanceller.enforceHighPassFiltering = false;
 
@@ -224,6 +321,38 @@ public class AecService {
             streamConfig = new AudioProcessingStreamConfig(16000, 1);
         }
 
+        /**
+         * 关闭再打开回声消除器，APM 会重新创建 AEC3，清除已收敛的回声滤波器和延迟估计
+         */
+        void resetEchoCanceller() {
+            config.echoCanceller.enabled = false;
+            apm.applyConfig(config);
+            config.echoCanceller.enabled = true;
+            apm.applyConfig(config);
+            apm.setStreamDelayMs(streamDelayMs);
+        }
+
+        /**
+         * 换会话前清除上一个设备的全部自适应状态：
+         * 关闭再打开回声消除、降噪、高通滤波和增益控制，APM 会重新创建这些子模块；参考解码器重建
+         */
+        void resetAll() {
+            config.echoCanceller.enabled = false;
+            config.noiseSuppression.enabled = false;
+            config.highPassFilter.enabled = false;
+            config.gainControl.enabled = false;
+            config.gainControl.adaptiveDigital.enabled = false;
+            apm.applyConfig(config);
+            config.echoCanceller.enabled = true;
+            config.noiseSuppression.enabled = true;
+            config.highPassFilter.enabled = true;
+            config.gainControl.enabled = true;
+            config.gainControl.adaptiveDigital.enabled = true;
+            apm.applyConfig(config);
+            apm.setStreamDelayMs(streamDelayMs);
+            refDecoder = new OpusProcessor();
+        }
+
         void dispose() {
             disposed = true;
             try {
@@ -5,6 +5,7 @@ import com.xiaozhi.communication.common.SessionManager;
 import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.common.model.bo.RoleBO;
 import com.xiaozhi.dialogue.audio.vad.VadModel.InferenceResult;
+import com.xiaozhi.dialogue.audio.vad.SileroVadBatcher;
 import com.xiaozhi.dialogue.audio.vad.SileroVadModel;
 import com.xiaozhi.role.service.RoleService;
 import com.xiaozhi.utils.AudioUtils;
@@ -19,9 +20,7 @@ import com.xiaozhi.event.TtsPlaybackCompletedEvent;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.*;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
@@ -45,9 +44,17 @@ public class VadService {
     private static final int VAD_CONTEXT_SIZE = SileroVadModel.CONTEXT_SIZE;
     // 连续静音帧数阈值，超过时重置GRU状态，防止长时间静音后GRU深度收敛（30帧 ≈ 约2秒）
     private static final int SILENCE_RESET_FRAMES = 30;
+    private static final int PROB_HISTORY = 10;
+    // 语音 PCM 缓冲初始 64KB（约 2 秒），超过 1MB（约 30 秒）的缓冲在会话重置时释放
+    private static final int PCM_INITIAL_CAPACITY = 64 * 1024;
+    private static final int PCM_RETAIN_CAPACITY = 1024 * 1024;
+
+    // 不携带数据的结果不可变，复用同一实例
+    private static final VadResult NO_SPEECH_RESULT = new VadResult(VadStatus.NO_SPEECH, null);
+    private static final VadResult ERROR_RESULT = new VadResult(VadStatus.ERROR, null);
 
     @Autowired
-    private SileroVadModel vadModel;
+    private SileroVadBatcher vadBatcher;
 
     @Autowired
     private RoleService roleService;
@@ -65,6 +72,10 @@ public class VadService {
         locks.clear();
     }
 
+    /**
+     * 单个会话的 VAD 状态。
+     * 所有缓冲在创建时一次性分配（语音数据缓冲按需倍增后复用），稳态下每帧处理不产生新对象。
+     */
     private class VadState {
         private boolean speaking = false;
         private long silenceTime = 0;
@@ -75,23 +86,39 @@ public class VadService {
         // 静音期间累计帧数，用于SPEECH_END时按比例移除静音帧
         private int silenceFrameCount = 0;
 
-        private final List<Float> originalProbs = new ArrayList<>();
-        private float[][][] sileroState = new float[2][1][128];
-        // 跨帧样本拼接缓冲
-        private float[] sampleCarryOver = new float[0];
-        private float[] vadContext = new float[VAD_CONTEXT_SIZE];
-
-        private final LinkedList<byte[]> preBuffer = new LinkedList<>();
+        // 最近 PROB_HISTORY 帧的原始概率（环形）
+        private final float[] originalProbs = new float[PROB_HISTORY];
+        private int originalProbCount = 0;
+        private int originalProbPos = 0;
+
+        // Silero GRU 隐状态，推理结果原地拷贝回来
+        private final float[][][] sileroState = new float[2][1][128];
+        // 当前推理窗口，跨帧不足一个窗口的样本留在窗口中等待下一帧补齐
+        private final float[] window = new float[VAD_SAMPLE_SIZE];
+        private int windowFill = 0;
+        private final float[] vadContext = new float[VAD_CONTEXT_SIZE];
+        // PCM 转 float 的复用缓冲，按帧长扩容一次
+        private float[] samples = new float[0];
+
+        // 语音开始前的预缓冲（环形）
+        private final byte[] preBuffer;
+        private int preBufferStart = 0;
         private int preBufferSize = 0;
-        private final int maxPreBufferSize;
 
-        private final List<byte[]> pcmData = new ArrayList<>();
+        // 本次语音的 PCM，连续存放；frameEnds 记录每帧结束位置，用于 SPEECH_END 时移除尾部静音帧
+        private byte[] pcmData = new byte[PCM_INITIAL_CAPACITY];
+        private int pcmSize = 0;
+        private int[] frameEnds = new int[64];
+        private int frameCount = 0;
 
         // 每个 session 复用同一个 OpusProcessor，避免每帧重新创建 native 编解码器
         private final OpusProcessor opusProcessor = new OpusProcessor();
+        // Opus 解码输出的复用缓冲
+        private final byte[] decodeBuf = new byte[OpusProcessor.MAX_PCM_BYTES];
 
         public VadState() {
-            this.maxPreBufferSize = preBufferMs * 32; // 16kHz, 16bit, mono = 32 bytes/ms
+            // 16kHz, 16bit, mono = 32 bytes/ms
+            this.preBuffer = new byte[preBufferMs * 32];
         }
 
         public boolean isSpeaking() { return speaking; }
@@ -135,38 +162,102 @@ public class VadService {
         public void resetSilenceFrameCount() { silenceFrameCount = 0; }
 
         public void addOriginalProb(float prob) {
-            originalProbs.add(prob);
-            if (originalProbs.size() > 10) originalProbs.remove(0);
+            originalProbs[originalProbPos] = prob;
+            originalProbPos = (originalProbPos + 1) % PROB_HISTORY;
+            originalProbCount = Math.min(originalProbCount + 1, PROB_HISTORY);
         }
 
-        public void addToPreBuffer(byte[] data) {
-            if (speaking) return;
-            preBuffer.add(data.clone());
-            preBufferSize += data.length;
-            while (preBufferSize > maxPreBufferSize && !preBuffer.isEmpty()) {
-                byte[] removed = preBuffer.removeFirst();
-                preBufferSize -= removed.length;
+        /**
+         * 将 PCM 转为 [-1, 1) 的 float 样本，写入复用缓冲
+         *
+         * @return 样本数
+         */
+        public int toSamples(byte[] pcm, int length) {
+            int count = length / 2;
+            if (samples.length < count) {
+                samples = new float[count];
+            }
+            for (int i = 0; i < count; i++) {
+                samples[i] = (short) ((pcm[2 * i + 1] << 8) | (pcm[2 * i] & 0xff)) / 32768.0f;
+            }
+            return count;
+        }
+
+        public void addToPreBuffer(byte[] data, int length) {
+            if (speaking || preBuffer.length == 0) return;
+            int capacity = preBuffer.length;
+            int from = 0;
+            if (length >= capacity) {
+                // 单帧超过容量时只保留末尾
+                from = length - capacity;
+                length = capacity;
+                preBufferStart = 0;
+                preBufferSize = 0;
+            }
+            int writePos = (preBufferStart + preBufferSize) % capacity;
+            int first = Math.min(length, capacity - writePos);
+            System.arraycopy(data, from, preBuffer, writePos, first);
+            System.arraycopy(data, from + first, preBuffer, 0, length - first);
+            int overflow = preBufferSize + length - capacity;
+            if (overflow > 0) {
+                preBufferStart = (preBufferStart + overflow) % capacity;
+                preBufferSize = capacity;
+            } else {
+                preBufferSize += length;
             }
         }
 
         public byte[] drainPreBuffer() {
-            if (preBuffer.isEmpty()) return new byte[0];
+            if (preBufferSize == 0) return new byte[0];
             byte[] result = new byte[preBufferSize];
-            int offset = 0;
-            for (byte[] chunk : preBuffer) {
-                System.arraycopy(chunk, 0, result, offset, chunk.length);
-                offset += chunk.length;
-            }
-            preBuffer.clear();
+            int first = Math.min(preBufferSize, preBuffer.length - preBufferStart);
+            System.arraycopy(preBuffer, preBufferStart, result, 0, first);
+            System.arraycopy(preBuffer, 0, result, first, preBufferSize - first);
+            preBufferStart = 0;
             preBufferSize = 0;
             return result;
         }
 
-        public void addPcm(byte[] pcm) {
-            if (pcm != null && pcm.length > 0) pcmData.add(pcm.clone());
+        public void addPcm(byte[] pcm, int length) {
+            if (pcm == null || length == 0) return;
+            if (pcmSize + length > pcmData.length) {
+                pcmData = Arrays.copyOf(pcmData, Math.max(pcmData.length * 2, pcmSize + length));
+            }
+            if (frameCount == frameEnds.length) {
+                frameEnds = Arrays.copyOf(frameEnds, frameEnds.length * 2);
+            }
+            System.arraycopy(pcm, 0, pcmData, pcmSize, length);
+            pcmSize += length;
+            frameEnds[frameCount++] = pcmSize;
+        }
+
+        /**
+         * 从末尾移除最多 count 帧
+         */
+        public void removeLastFrames(int count) {
+            frameCount = Math.max(0, frameCount - count);
+            pcmSize = frameCount > 0 ? frameEnds[frameCount - 1] : 0;
+        }
+
+        public void clearPcm() {
+            pcmSize = 0;
+            frameCount = 0;
         }
 
-        public List<byte[]> getPcmData() { return new ArrayList<>(pcmData); }
+        public byte[] getPcmData() { return Arrays.copyOf(pcmData, pcmSize); }
+
+        /**
+         * 重置 Silero 隐状态、推理窗口和上下文
+         */
+        public void resetModelState() {
+            for (float[][] layer : sileroState) {
+                Arrays.fill(layer[0], 0f);
+            }
+            Arrays.fill(vadContext, 0f);
+            windowFill = 0;
+            originalProbCount = 0;
+            originalProbPos = 0;
+        }
 
         public void reset() {
             speaking = false;
@@ -174,13 +265,15 @@ public class VadService {
             consecutiveSilenceFrames = 0;
             consecutiveSpeechFrames = 0;
             silenceFrameCount = 0;
-            originalProbs.clear();
-            sileroState = new float[2][1][128];
-            sampleCarryOver = new float[0];
-            vadContext = new float[VAD_CONTEXT_SIZE];
-            preBuffer.clear();
+            resetModelState();
+            preBufferStart = 0;
             preBufferSize = 0;
-            pcmData.clear();
+            clearPcm();
+            // 超长语音撑大的缓冲不长期占用
+            if (pcmData.length > PCM_RETAIN_CAPACITY) {
+                pcmData = new byte[PCM_INITIAL_CAPACITY];
+                frameEnds = new int[64];
+            }
         }
     }
 
@@ -223,10 +316,10 @@ public class VadService {
         if (device != null && device.getRoleId() != null) {
             RoleBO role = roleService.getBO(device.getRoleId());
             if (role != null) {
-                speechThreshold = Optional.ofNullable(role.getVadSpeechTh()).orElse(speechThreshold);
-                silenceThreshold = Optional.ofNullable(role.getVadSilenceTh()).orElse(silenceThreshold);
-                energyThreshold = Optional.ofNullable(role.getVadEnergyTh()).orElse(energyThreshold);
-                silenceTimeoutMs = Optional.ofNullable(role.getVadSilenceMs()).orElse(silenceTimeoutMs);
+                speechThreshold = role.getVadSpeechTh() != null ? role.getVadSpeechTh() : speechThreshold;
+                silenceThreshold = role.getVadSilenceTh() != null ? role.getVadSilenceTh() : silenceThreshold;
+                energyThreshold = role.getVadEnergyTh() != null ? role.getVadEnergyTh() : energyThreshold;
+                silenceTimeoutMs = role.getVadSilenceMs() != null ? role.getVadSilenceMs() : silenceTimeoutMs;
             }
         }
 
@@ -234,29 +327,32 @@ public class VadService {
             try {
                 VadState state = states.computeIfAbsent(sessionId, k -> new VadState());
 
-                byte[] pcmData;
+                // 解码到会话复用缓冲，只有需要交给下游的帧才拷贝出独立数组
+                byte[] pcm = state.decodeBuf;
+                int pcmLength;
                 try {
-                    pcmData = state.opusProcessor.opusToPcm(opusData);
-                    if (pcmData == null || pcmData.length == 0) {
-                        return new VadResult(VadStatus.NO_SPEECH, null);
+                    pcmLength = opusData == null ? 0
+                            : state.opusProcessor.opusToPcm(opusData, 0, opusData.length, pcm);
+                    if (pcmLength == 0) {
+                        return NO_SPEECH_RESULT;
                     }
                 } catch (Exception e) {
                     log.error("Opus解码失败: {}", e.getMessage());
-                    return new VadResult(VadStatus.ERROR, null);
+                    return ERROR_RESULT;
                 }
 
-                // AEC 处理：消除麦克风中的扬声器回声
+                // AEC 处理：原地消除麦克风中的扬声器回声
                 if (aecService != null && aecService.isEnabled()) {
-                    pcmData = aecService.process(sessionId, pcmData);
+                    aecService.process(sessionId, pcm, pcmLength);
                 }
 
-                float[] samples = bytesToFloats(pcmData);
-                float energy = calcEnergy(samples);
+                int sampleCount = state.toSamples(pcm, pcmLength);
+                float energy = calcEnergy(state.samples, sampleCount);
 
-                float speechProb = Math.min(1.0f, detectSpeech(state, samples));
+                float speechProb = Math.min(1.0f, detectSpeech(state, sampleCount));
 
                 state.addOriginalProb(speechProb);
-                state.addToPreBuffer(pcmData);
+                state.addToPreBuffer(pcm, pcmLength);
 
                 boolean hasEnergy = energy > energyThreshold;
 
@@ -268,10 +364,7 @@ public class VadService {
 
                 // 连续静音超过阈值时自动重置GRU状态，防止GRU深度收敛，导致在长时间静音状态下VAD无法被拉起
                 if (state.getConsecutiveSilenceFrames() >= SILENCE_RESET_FRAMES) {
-                    state.sileroState = new float[2][1][128];
-                    state.sampleCarryOver = new float[0];
-                    state.vadContext = new float[VAD_CONTEXT_SIZE];
-                    state.originalProbs.clear();
+                    state.resetModelState();
                     state.consecutiveSilenceFrames = 0;
                 }
 
@@ -286,7 +379,7 @@ public class VadService {
                 //         hasEnergy ? "+E" : "");
 
                 if (!state.isSpeaking() && isSpeech && speechStartAllowed) {
-                    state.pcmData.clear();
+                    state.clearPcm();
                     state.setSpeaking(true);
                     state.resetSilenceFrameCount();
 
@@ -295,8 +388,8 @@ public class VadService {
                             String.format("%.6f", energy), String.format("%.4f", speechThreshold));
 
                     byte[] preBufferData = state.drainPreBuffer();
-                    byte[] result = preBufferData.length > 0 ? preBufferData : pcmData;
-                    state.addPcm(result);
+                    byte[] result = preBufferData.length > 0 ? preBufferData : Arrays.copyOf(pcm, pcmLength);
+                    state.addPcm(result, result.length);
                     return new VadResult(VadStatus.SPEECH_START, result);
 
                 } else if (state.isSpeaking() && isSilence) {
@@ -312,68 +405,64 @@ public class VadService {
                                     (int) Math.ceil((double) totalSilenceFrames * silenceToRemoveMs / silenceDuration),
                                     totalSilenceFrames
                                 );
-                                for (int i = 0; i < framesToRemove && !state.pcmData.isEmpty(); i++) {
-                                    state.pcmData.remove(state.pcmData.size() - 1);
-                                }
+                                state.removeLastFrames(framesToRemove);
                             }
                         }
                         log.debug("语音结束: {}, 静音: {}ms", sessionId, silenceDuration);
 
                         state.resetSilenceFrameCount();
 
-                        return new VadResult(VadStatus.SPEECH_END, pcmData);
+                        return new VadResult(VadStatus.SPEECH_END, Arrays.copyOf(pcm, pcmLength));
                     } else {
-                        state.addPcm(pcmData);
+                        state.addPcm(pcm, pcmLength);
                         state.incrementSilenceFrameCount();
-                        return new VadResult(VadStatus.SPEECH_CONTINUE, pcmData);
+                        return new VadResult(VadStatus.SPEECH_CONTINUE, Arrays.copyOf(pcm, pcmLength));
                     }
                 } else if (state.isSpeaking()) {
-                    state.addPcm(pcmData);
+                    state.addPcm(pcm, pcmLength);
                     state.resetSilenceFrameCount();
-                    return new VadResult(VadStatus.SPEECH_CONTINUE, pcmData);
+                    return new VadResult(VadStatus.SPEECH_CONTINUE, Arrays.copyOf(pcm, pcmLength));
                 } else {
-                    return new VadResult(VadStatus.NO_SPEECH, null);
+                    return NO_SPEECH_RESULT;
                 }
             } catch (Exception e) {
                 log.error("处理音频失败: {}, 错误: {}", sessionId, e.getMessage(), e);
-                return new VadResult(VadStatus.ERROR, null);
+                return ERROR_RESULT;
             }
         }
     }
 
     /**
-     * 将上一帧剩余样本（sampleCarryOver）与本帧拼接，按VAD_SAMPLE_SIZE逐块推理。
+     * 将本帧样本依次填入会话的推理窗口，窗口满 VAD_SAMPLE_SIZE 时推理一次，不足的部分留到下一帧。
      * 始终使用有状态推理，通过连续静音定期重置GRU防止深度收敛。
+     * 推理经 SileroVadBatcher 与其他会话的窗口合并为批量调用；调用同步返回，窗口和上下文可以原地复用。
      */
-    private float detectSpeech(VadState state, float[] samples) {
-        if (vadModel == null || samples == null || samples.length == 0) {
+    private float detectSpeech(VadState state, int sampleCount) {
+        if (vadBatcher == null || sampleCount == 0) {
             log.warn("VAD模型为空或样本为空");
             return 0.0f;
         }
         try {
-            float[] all;
-            if (state.sampleCarryOver.length > 0) {
-                all = new float[state.sampleCarryOver.length + samples.length];
-                System.arraycopy(state.sampleCarryOver, 0, all, 0, state.sampleCarryOver.length);
-                System.arraycopy(samples, 0, all, state.sampleCarryOver.length, samples.length);
-            } else {
-                all = samples;
-            }
-
             float maxProb = 0.0f;
             int offset = 0;
-            while (offset + VAD_SAMPLE_SIZE <= all.length) {
-                float[] chunk = Arrays.copyOfRange(all, offset, offset + VAD_SAMPLE_SIZE);
-                InferenceResult r = vadModel.infer(chunk, state.vadContext, state.sileroState);
-                state.vadContext = Arrays.copyOfRange(chunk, chunk.length - VAD_CONTEXT_SIZE, chunk.length);
-                state.sileroState = r.state;
+            while (offset < sampleCount) {
+                int n = Math.min(VAD_SAMPLE_SIZE - state.windowFill, sampleCount - offset);
+                System.arraycopy(state.samples, offset, state.window, state.windowFill, n);
+                state.windowFill += n;
+                offset += n;
+                if (state.windowFill < VAD_SAMPLE_SIZE) {
+                    break;
+                }
+                InferenceResult r = vadBatcher.infer(state.window, state.vadContext, state.sileroState);
+                System.arraycopy(state.window, VAD_SAMPLE_SIZE - VAD_CONTEXT_SIZE, state.vadContext, 0, VAD_CONTEXT_SIZE);
+                if (r.state != null && r.state != state.sileroState) {
+                    for (int layer = 0; layer < state.sileroState.length; layer++) {
+                        System.arraycopy(r.state[layer][0], 0, state.sileroState[layer][0], 0, state.sileroState[layer][0].length);
+                    }
+                }
+                state.windowFill = 0;
                 maxProb = Math.max(maxProb, r.probability);
-                offset += VAD_SAMPLE_SIZE;
             }
-
-            int remaining = all.length - offset;
-            state.sampleCarryOver = remaining > 0 ? Arrays.copyOfRange(all, offset, all.length) : new float[0];
-
             return maxProb;
         } catch (Exception e) {
             log.error("VAD推断失败: {}", e.getMessage());
@@ -381,20 +470,10 @@ public class VadService {
         }
     }
 
-    private float[] bytesToFloats(byte[] pcmData) {
-        int sampleCount = pcmData.length / 2;
-        float[] samples = new float[sampleCount];
-        ByteBuffer buffer = ByteBuffer.wrap(pcmData).order(ByteOrder.LITTLE_ENDIAN);
-        for (int i = 0; i < sampleCount; i++) {
-            samples[i] = buffer.getShort() / 32768.0f;
-        }
-        return samples;
-    }
-
-    private float calcEnergy(float[] samples) {
+    private float calcEnergy(float[] samples, int count) {
         float sum = 0;
-        for (float sample : samples) sum += Math.abs(sample);
-        return sum / samples.length;
+        for (int i = 0; i < count; i++) sum += Math.abs(samples[i]);
+        return sum / count;
     }
 
     /**
@@ -410,10 +489,7 @@ public class VadService {
         synchronized (lock) {
             VadState state = states.get(sessionId);
             if (state != null) {
-                state.sileroState = new float[2][1][128];
-                state.sampleCarryOver = new float[0];
-                state.vadContext = new float[VAD_CONTEXT_SIZE];
-                state.originalProbs.clear();
+                state.resetModelState();
             }
         }
     }
@@ -428,11 +504,14 @@ public class VadService {
         }
     }
 
-    public List<byte[]> getPcmData(String sessionId) {
+    /**
+     * 本次语音的完整 PCM（已移除尾部多余静音帧）
+     */
+    public byte[] getPcmData(String sessionId) {
         Object lock = getLock(sessionId);
         synchronized (lock) {
             VadState state = states.get(sessionId);
-            return state != null ? state.getPcmData() : new ArrayList<>();
+            return state != null ? state.getPcmData() : new byte[0];
         }
     }
 
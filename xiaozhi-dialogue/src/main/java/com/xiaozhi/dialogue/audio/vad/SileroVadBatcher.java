@@ -0,0 +1,236 @@
+package com.xiaozhi.dialogue.audio.vad;
+
+import com.xiaozhi.dialogue.audio.vad.VadModel.InferenceResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Silero VAD 跨会话微批调度器。
+ *
+ * 设备并发推流时，每个会话每 32ms 产生一个 512 采样点窗口，逐个做 batch=1 的 ONNX 调用开销主要花在调度和张量分配上。
+ * 本类收集各会话在短时间窗口内提交的推理请求（窗口 + 上下文 + GRU 隐状态），
+ * 凑满 max-size 或等待超过 max-wait 后合并为一次批量推理，再把概率和新隐状态分发回各会话。
+ *
+ * 正确性：启动时用随机输入比对批量推理与逐条推理的结果，要求概率和隐状态逐位相同（floatToRawIntBits），
+ * 不一致时（不同 ONNX Runtime 版本 / CPU 指令集的 GEMM 实现可能不同）自动关闭批处理，退回逐条推理。
+ */
+@Slf4j
+@Component
+public class SileroVadBatcher {
+
+    private static final long RESULT_TIMEOUT_MS = 1000;
+
+    @Value("${xiaozhi.vad.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${xiaozhi.vad.batch.max-size:32}")
+    private int maxBatchSize;
+
+    /** 第一个请求到达后最多等待的时间，决定单帧 VAD 额外增加的最大延迟 */
+    @Value("${xiaozhi.vad.batch.max-wait-micros:2000}")
+    private long maxWaitMicros;
+
+    @Value("${xiaozhi.vad.batch.workers:1}")
+    private int workers;
+
+    @Resource
+    private SileroVadModel vadModel;
+
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong windows = new AtomicLong();
+
+    private record Request(float[] samples, float[] context, float[][][] state,
+                           CompletableFuture<InferenceResult> result) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!verifyBitIdentical()) {
+            log.warn("VAD批量推理结果与逐条推理不一致，已关闭批处理");
+            enabled = false;
+            return;
+        }
+        running = true;
+        for (int i = 0; i < Math.max(workers, 1); i++) {
+            Thread worker = Thread.ofPlatform().daemon(true).name("vad-batcher-" + i).start(this::workLoop);
+            workerThreads.add(worker);
+        }
+        log.info("VAD微批推理已启用 - maxBatchSize: {}, maxWait: {}μs, workers: {}",
+                maxBatchSize, maxWaitMicros, workerThreads.size());
+    }
+
+    /**
+     * 提交一个窗口并等待推理结果，语义与 {@link SileroVadModel#infer(float[], float[], float[][][])} 相同。
+     * 批处理未启用时直接逐条推理。
+     */
+    public InferenceResult infer(float[] samples, float[] context, float[][][] prevState) {
+        if (!running) {
+            return vadModel.infer(samples, context, prevState);
+        }
+        Request request = new Request(samples, context, prevState, new CompletableFuture<>());
+        queue.offer(request);
+        try {
+            return request.result().get(RESULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new InferenceResult(0.0f, prevState);
+        } catch (TimeoutException e) {
+            // 调度线程已停止或卡住，退回逐条推理
+            return vadModel.infer(samples, context, prevState);
+        } catch (ExecutionException e) {
+            log.error("VAD批量推理失败: {}", e.getCause().getMessage());
+            return new InferenceResult(0.0f, prevState);
+        }
+    }
+
+    /**
+     * 平均每次模型调用处理的窗口数
+     */
+    public double getAverageBatchSize() {
+        long b = batches.get();
+        return b == 0 ? 0 : (double) windows.get() / b;
+    }
+
+    private void workLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+                while (batch.size() < maxBatchSize) {
+                    // 先取走已在排队的请求，不足时再等到截止时间
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                run(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(r -> r.result().complete(vadModel.infer(r.samples(), r.context(), r.state())));
+                break;
+            } catch (Exception e) {
+                log.error("VAD批处理调度异常", e);
+                batch.forEach(r -> r.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void run(List<Request> batch) {
+        int size = batch.size();
+        if (size == 1) {
+            Request r = batch.getFirst();
+            r.result().complete(vadModel.infer(r.samples(), r.context(), r.state()));
+        } else {
+            float[][] samples = new float[size][];
+            float[][] contexts = new float[size][];
+            float[][][][] states = new float[size][][][];
+            for (int i = 0; i < size; i++) {
+                Request r = batch.get(i);
+                samples[i] = r.samples();
+                contexts[i] = r.context();
+                states[i] = r.state();
+            }
+            InferenceResult[] results = vadModel.inferBatch(samples, contexts, states);
+            for (int i = 0; i < size; i++) {
+                batch.get(i).result().complete(results[i]);
+            }
+        }
+        batches.incrementAndGet();
+        windows.addAndGet(size);
+    }
+
+    /**
+     * 用随机窗口和隐状态比对批量推理与逐条推理的输出是否逐位相同
+     */
+    private boolean verifyBitIdentical() {
+        int size = Math.max(2, Math.min(maxBatchSize, 8));
+        Random random = new Random(42);
+        float[][] samples = new float[size][SileroVadModel.WINDOW_SIZE];
+        float[][] contexts = new float[size][SileroVadModel.CONTEXT_SIZE];
+        float[][][][] states = new float[size][][][];
+        for (int i = 0; i < size; i++) {
+            fill(random, samples[i]);
+            fill(random, contexts[i]);
+            // 第一条使用零状态，其余使用上一步推理得到的真实隐状态
+            states[i] = i == 0 ? null : vadModel.infer(samples[i - 1], contexts[i - 1], null).state;
+        }
+        InferenceResult[] batched = vadModel.inferBatch(samples, contexts, states);
+        for (int i = 0; i < size; i++) {
+            InferenceResult single = vadModel.infer(samples[i], contexts[i], states[i]);
+            if (!sameBits(single, batched[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void fill(Random random, float[] target) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = random.nextFloat() * 2 - 1;
+        }
+    }
+
+    private static boolean sameBits(InferenceResult a, InferenceResult b) {
+        if (Float.floatToRawIntBits(a.probability) != Float.floatToRawIntBits(b.probability)) {
+            return false;
+        }
+        for (int layer = 0; layer < 2; layer++) {
+            float[] x = a.state[layer][0];
+            float[] y = b.state[layer][0];
+            for (int i = 0; i < x.length; i++) {
+                if (Float.floatToRawIntBits(x[i]) != Float.floatToRawIntBits(y[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+        // 停止后仍在排队的请求退回逐条推理，避免调用方永久等待
+        Request pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().complete(vadModel.infer(pending.samples(), pending.context(), pending.state()));
+        }
+        log.info("VAD微批推理已停止 - 平均批大小: {}", String.format("%.2f", getAverageBatchSize()));
+    }
+}
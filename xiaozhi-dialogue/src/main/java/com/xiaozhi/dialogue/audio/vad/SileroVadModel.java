@@ -23,13 +23,14 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class SileroVadModel implements VadModel {
     public static final int CONTEXT_SIZE = 64;
+    public static final int WINDOW_SIZE = AudioUtils.BUFFER_SIZE;
 
     @Value("${xiaozhi.vad.model.path:models/silero_vad.onnx}")
     private String modelPath;
 
     private OrtEnvironment env;
     private OrtSession session;
-    private final int windowSize = AudioUtils.BUFFER_SIZE;
+    private final int windowSize = WINDOW_SIZE;
     private final int effectiveWindowSize = windowSize + CONTEXT_SIZE;
 
     @PostConstruct
@@ -98,6 +99,54 @@ public class SileroVadModel implements VadModel {
         }
     }
 
+    /**
+     * 批量推理：将多个会话的窗口沿 batch 维拼成一次模型调用，再按行拆回各自的概率和隐状态。
+     * 输入 [B][576]、隐状态 [2][B][128]，各行之间在模型内部互不影响。
+     *
+     * @param samples   每个会话的 512 个采样点
+     * @param contexts  每个会话上一窗口末尾的 64 个采样点
+     * @param prevStates 每个会话的隐状态 [2][1][128]，允许元素为 null 表示零状态
+     */
+    public InferenceResult[] inferBatch(float[][] samples, float[][] contexts, float[][][][] prevStates) {
+        int batch = samples.length;
+        InferenceResult[] results = new InferenceResult[batch];
+        try {
+            float[][] x = new float[batch][];
+            float[][][] state = new float[2][batch][];
+            for (int i = 0; i < batch; i++) {
+                if (samples[i].length != windowSize) {
+                    throw new IllegalArgumentException("样本数量必须是" + windowSize);
+                }
+                x[i] = buildInput(samples[i], contexts[i]);
+                float[][][] prev = prevStates[i];
+                state[0][i] = prev != null ? prev[0][0] : new float[128];
+                state[1][i] = prev != null ? prev[1][0] : new float[128];
+            }
+
+            try (OnnxTensor inputTensor = OnnxTensor.createTensor(env, x);
+                 OnnxTensor stateTensor = OnnxTensor.createTensor(env, state);
+                 OnnxTensor srTensor = OnnxTensor.createTensor(env, new long[] { AudioUtils.SAMPLE_RATE });
+                 OrtSession.Result result = session.run(Map.of(
+                         "input", inputTensor,
+                         "sr", srTensor,
+                         "state", stateTensor
+                 ))) {
+                float[][] output = (float[][]) result.get(0).getValue();
+                float[][][] nextState = (float[][][]) result.get(1).getValue();
+                for (int i = 0; i < batch; i++) {
+                    results[i] = new InferenceResult(output[i][0],
+                            new float[][][] { { nextState[0][i] }, { nextState[1][i] } });
+                }
+            }
+        } catch (OrtException e) {
+            log.error("VAD模型批量推理失败, batch={}", batch, e);
+            for (int i = 0; i < batch; i++) {
+                results[i] = new InferenceResult(0.0f, prevStates[i]);
+            }
+        }
+        return results;
+    }
+
     private float[] buildInput(float[] samples, float[] context) {
         float[] input = new float[effectiveWindowSize];
         if (context != null && context.length > 0) {
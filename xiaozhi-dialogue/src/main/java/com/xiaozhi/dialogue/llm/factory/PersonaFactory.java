@@ -7,9 +7,12 @@ import com.xiaozhi.common.model.bo.DeviceBO;
 import com.xiaozhi.ai.llm.memory.Conversation;
 import com.xiaozhi.ai.llm.memory.ConversationFactory;
 import com.xiaozhi.dialogue.audio.AecService;
+import com.xiaozhi.dialogue.metrics.DialogueMetrics;
 import com.xiaozhi.dialogue.playback.OpusRecorder;
+import com.xiaozhi.dialogue.playback.PlaybackScheduler;
 import com.xiaozhi.dialogue.playback.Player;
 import com.xiaozhi.dialogue.playback.ScheduledPlayer;
+import com.xiaozhi.dialogue.playback.SpeechCache;
 import com.xiaozhi.dialogue.playback.Synthesizer;
 import com.xiaozhi.dialogue.playback.SynthesizerFactory;
 import com.xiaozhi.dialogue.runtime.GoodbyeMessageSupplier;
@@ -23,6 +26,7 @@ import com.xiaozhi.common.model.bo.ConfigBO;
 import com.xiaozhi.common.model.bo.RoleBO;
 import com.xiaozhi.role.service.RoleService;
 import com.xiaozhi.ai.tool.ToolRegistrationService;
+import com.xiaozhi.ai.tool.selection.ToolPreSelector;
 import com.xiaozhi.dialogue.adapter.ChatSessionToolAdapter;
 import com.xiaozhi.config.service.ConfigService;
 import com.xiaozhi.dialogue.llm.handler.DialogueListener;
@@ -69,6 +73,14 @@ public class PersonaFactory {
     private DialogueListener dialogueListener;
     @Resource
     private StorageServiceFactory storageServiceFactory;
+    @Resource
+    private SpeechCache speechCache;
+    @Resource
+    private PlaybackScheduler playbackScheduler;
+    @Resource
+    private ToolPreSelector toolPreSelector;
+    @Resource
+    private DialogueMetrics dialogueMetrics;
 
     /**
      * 构建完整的 Persona 实例。
@@ -92,10 +104,11 @@ public class PersonaFactory {
         // Player应该是可以独立于Persona而存在的，同时也可以看作是角色的嘴巴/声带。
         Player player = session.getPlayer();
         if(player == null){
-            player = new ScheduledPlayer(session, sessionMessageService);
+            player = new ScheduledPlayer(session, sessionMessageService, playbackScheduler);
             player.setOpusRecorder(new OpusRecorder(session, chatMessageService, aecService, storageServiceFactory));
             session.setPlayer(player);
         }
+        player.setDialogueMetrics(dialogueMetrics);
         // 初始化Conversation(相当于角色的记忆）
         String ownerId = device.getDeviceId();
         Integer userId = device.getUserId();
@@ -112,6 +125,7 @@ public class PersonaFactory {
 
         // 获取ChatModel
         ChatModel chatModel = chatModelFactory.getChatModel(role);
+        ConfigBO llmConfig = configService.getBO(role.getModelId());
 
         // MCP/IoT 工具已注册完毕，获取完整的工具列表传给 Persona
         var toolCallbacks = session.getToolCallbacks();
@@ -125,6 +139,9 @@ public class PersonaFactory {
                 .synthesizer(synthesizer)
                 .player(session.getPlayer())
                 .toolCallbacks(toolCallbacks)
+                .toolPreSelector(toolPreSelector)
+                .dialogueMetrics(dialogueMetrics)
+                .llmProvider(llmConfig != null ? llmConfig.getProvider() : null)
                 .listener(dialogueListener)
                 .goodbyeMessages(goodbyeMessages)
                 .build();
@@ -180,7 +197,9 @@ public class PersonaFactory {
         String voiceName = role.getVoiceName();
         TtsService ttsService = ttsFactory.getTtsService(ttsConfig, voiceName, role.getTtsPitch(), role.getTtsSpeed());
 
-        return SynthesizerFactory.create(session, ttsService, player);
+        Synthesizer synthesizer = SynthesizerFactory.create(session, ttsService, player, speechCache);
+        synthesizer.setDialogueMetrics(dialogueMetrics);
+        return synthesizer;
 
     }
 
@@ -69,6 +69,7 @@ public class ChangeRoleFunction implements ToolsGlobalRegistry.GlobalFunction {
                                 });
                                 device.setRoleId(role.getRoleId());
                                 device.setRoleName(role.getRoleName());
+                                sessionManager.updateRoleIndex(chatSession);
                                 // 切换了角色，需要更换Conversation
                                 if(chatSession.getPersona().getConversation()!=null){
                                     chatSession.getPersona().getConversation().clear();
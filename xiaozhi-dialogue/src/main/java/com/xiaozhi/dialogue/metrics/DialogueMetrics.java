@@ -0,0 +1,129 @@
+package com.xiaozhi.dialogue.metrics;
+
+import com.xiaozhi.communication.common.ChatSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语音对话各阶段的延迟指标，通过 actuator 的 /actuator/metrics 查看。
+ *
+ * 一轮对话 DialogueService → Persona → FileSynthesizer → ScheduledPlayer 拆成四段，按 provider 打标签：
+ * - xiaozhi.dialogue.stt：用户说完 → STT 最终结果
+ * - xiaozhi.dialogue.llm.first-token：STT 结果 → LLM 首个 token
+ * - xiaozhi.dialogue.first-sentence：首个 token → 分句器给出第一句
+ * - xiaozhi.dialogue.first-frame：第一句 → 第一个 Opus 帧下发
+ * 以及整体的 xiaozhi.dialogue.response：用户说完 → 第一个 Opus 帧下发。
+ *
+ * 每段只在上一段的时间点存在时记录，唤醒词、告别语等不经过完整链路的播报不会混入。
+ *
+ * 播放器下行另有两项：
+ * - xiaozhi.playback.frame-lateness：晚于计划发送时间超过一帧（60ms）的帧及其延迟，调度器过载或 TTS 跟不上播放速度时出现
+ * - xiaozhi.playback.dropped-frames：打断等原因被丢弃、未下发的帧数
+ */
+@Component
+public class DialogueMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * VAD 判定用户说完，开始新一轮计时
+     */
+    public void onSpeechEnd(ChatSession session) {
+        TurnTimings timings = session.getTurnTimings();
+        timings.reset();
+        timings.speechEnd.set(System.nanoTime());
+    }
+
+    /**
+     * STT 返回最终结果
+     */
+    public void onSttResult(ChatSession session, String provider) {
+        TurnTimings timings = session.getTurnTimings();
+        long now = System.nanoTime();
+        record("xiaozhi.dialogue.stt", "STT 识别耗时", provider, timings.speechEnd.get(), now);
+        timings.sttResult.set(now);
+    }
+
+    /**
+     * LLM 输出首个 token
+     */
+    public void onFirstToken(ChatSession session, String provider) {
+        TurnTimings timings = session.getTurnTimings();
+        long now = System.nanoTime();
+        long sttResult = timings.sttResult.get();
+        if (sttResult == 0 || !timings.firstToken.compareAndSet(0, now)) {
+            return;
+        }
+        record("xiaozhi.dialogue.llm.first-token", "STT 结果到 LLM 首 token", provider, sttResult, now);
+    }
+
+    /**
+     * 分句器给出本轮第一句
+     */
+    public void onFirstSentence(ChatSession session, String provider) {
+        TurnTimings timings = session.getTurnTimings();
+        long now = System.nanoTime();
+        long firstToken = timings.firstToken.get();
+        if (firstToken == 0 || !timings.firstSentence.compareAndSet(0, now)) {
+            return;
+        }
+        timings.ttsProvider = provider;
+        record("xiaozhi.dialogue.first-sentence", "LLM 首 token 到第一句", provider, firstToken, now);
+    }
+
+    /**
+     * 播放器下发 Opus 帧，只有本轮第一帧会被记录
+     */
+    public void onOpusFrameSent(ChatSession session) {
+        TurnTimings timings = session.getTurnTimings();
+        long firstSentence = timings.firstSentence.get();
+        if (firstSentence == 0 || !timings.firstSentence.compareAndSet(firstSentence, 0)) {
+            return;
+        }
+        long now = System.nanoTime();
+        String provider = timings.ttsProvider;
+        record("xiaozhi.dialogue.first-frame", "第一句到首个 Opus 帧下发", provider, firstSentence, now);
+        record("xiaozhi.dialogue.response", "用户说完到首个 Opus 帧下发", provider, timings.speechEnd.get(), now);
+        timings.reset();
+    }
+
+    /**
+     * 播放器发出一帧时已晚于计划时间超过一帧
+     */
+    public void onLateFrame(long lateNanos) {
+        Timer.builder("xiaozhi.playback.frame-lateness")
+                .description("晚于计划发送时间超过一帧的 Opus 帧")
+                .register(meterRegistry)
+                .record(lateNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 播放器停止时丢弃了尚未下发的帧
+     */
+    public void onFramesDropped(int frames) {
+        if (frames > 0) {
+            meterRegistry.counter("xiaozhi.playback.dropped-frames").increment(frames);
+        }
+    }
+
+    private void record(String name, String description, String provider, long startNanos, long endNanos) {
+        if (startNanos == 0) {
+            return;
+        }
+        Timer.builder(name)
+                .description(description)
+                .tag("provider", StringUtils.hasText(provider) ? provider : UNKNOWN)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
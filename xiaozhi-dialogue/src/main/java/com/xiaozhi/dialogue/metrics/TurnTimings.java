@@ -0,0 +1,30 @@
+package com.xiaozhi.dialogue.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一轮对话中各阶段的时间点（System.nanoTime），0 表示尚未到达。
+ * 每个会话一份，由 {@link DialogueMetrics} 在阶段边界读写，首帧下发后清零等待下一轮。
+ */
+public class TurnTimings {
+
+    /** 用户说完（VAD 判定语音结束） */
+    final AtomicLong speechEnd = new AtomicLong();
+    /** STT 给出最终结果 */
+    final AtomicLong sttResult = new AtomicLong();
+    /** LLM 首个 token */
+    final AtomicLong firstToken = new AtomicLong();
+    /** 分句器给出第一句 */
+    final AtomicLong firstSentence = new AtomicLong();
+
+    /** 第一句所用的 TTS provider，首帧计时按它打标签 */
+    volatile String ttsProvider;
+
+    void reset() {
+        speechEnd.set(0);
+        sttResult.set(0);
+        firstToken.set(0);
+        firstSentence.set(0);
+        ttsProvider = null;
+    }
+}
@@ -8,6 +8,7 @@ import com.xiaozhi.ai.tts.TtsService;
 import com.xiaozhi.utils.AudioUtils;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
 import java.nio.file.Path;
 import java.util.List;
@@ -18,6 +19,9 @@ import lombok.extern.slf4j.Slf4j;
  * 适用于不支持流式输出的TTS Provider（如 SherpaOnnx）。
  *
  * 数据流：LLM token流 → SentenceHelper分句 → 逐句调用TTS生成完整音频文件 → 读取PCM → 交给播放器播放
+ *
+ * 短句先查 {@link SpeechCache}，命中时直接把缓存的 Opus 帧交给播放器，不再合成和编码；
+ * 未命中时合成后编码入缓存，同样以 Opus 帧下发。
  */
 @Slf4j
 public class FileSynthesizer extends Synthesizer {
@@ -25,8 +29,11 @@ public class FileSynthesizer extends Synthesizer {
     // 保存LLM输出流的订阅引用，以便在cancel时取消上游订阅
     private volatile Disposable llmDisposable;
 
-    public FileSynthesizer(ChatSession session, TtsService ttsService, Player player) {
+    protected final SpeechCache speechCache;
+
+    public FileSynthesizer(ChatSession session, TtsService ttsService, Player player, SpeechCache speechCache) {
         super(session, ttsService, player);
+        this.speechCache = speechCache;
     }
 
     @Override
@@ -49,31 +56,57 @@ public class FileSynthesizer extends Synthesizer {
      */
     @Override
     public void synthesize(Flux<String> stringFlux) {
-        llmDisposable = new SentenceHelper().convert(stringFlux).subscribe(result -> {
-            String text = result.text();
-            String mood = result.mood();
-            Flux<Speech> lazyTtsFlux = Flux.create(sink -> {
-                try {
-                    Path audioPath = ttsService.textToSpeech(text);
-                    if (audioPath != null) {
-                        List<byte[]> chunks = AudioUtils.readAsPcmChunks(audioPath.toString());
-                        boolean first = true;
-                        for (byte[] chunk : chunks) {
-                            sink.next(first ? new Speech(chunk, text).withMood(mood) : new Speech(chunk));
-                            first = false;
-                        }
-                    } else {
-                        log.error("TTS服务返回空音频文件 - SessionId: {}", chatSession.getSessionId());
+        llmDisposable = new SentenceHelper().convert(stringFlux)
+                .subscribe(result -> {
+                    if (getDialogueMetrics() != null) {
+                        getDialogueMetrics().onFirstSentence(chatSession, ttsService.getProviderName());
                     }
-                } catch (Exception e) {
-                    log.error("TTS合成出错: {} - SessionId: {}", e.getMessage(), chatSession.getSessionId());
+                    player.play(speak(result.text(), result.mood()));
+                });
+    }
+
+    /**
+     * 将一句文本编排为惰性的音频流，Player 订阅时才开始合成。
+     * 子类可覆写以改变单句的合成方式（如 StreamingSynthesizer 的流式合成）。
+     */
+    protected Flux<Speech> speak(String text, String mood) {
+        return Flux.create(sink -> {
+            try {
+                List<byte[]> cachedFrames = speechCache.get(ttsService, text);
+                if (cachedFrames != null) {
+                    emitOpus(sink, cachedFrames, text, mood);
+                    sink.complete();
+                    return;
                 }
-                sink.complete();
-            });
-            player.play(lazyTtsFlux);
+                Path audioPath = ttsService.textToSpeech(text);
+                List<byte[]> encodedFrames = audioPath != null ? speechCache.put(ttsService, text, audioPath) : null;
+                if (encodedFrames != null) {
+                    emitOpus(sink, encodedFrames, text, mood);
+                } else if (audioPath != null) {
+                    List<byte[]> chunks = AudioUtils.readAsPcmChunks(audioPath.toString());
+                    boolean first = true;
+                    for (byte[] chunk : chunks) {
+                        sink.next(first ? new Speech(chunk, text).withMood(mood) : new Speech(chunk));
+                        first = false;
+                    }
+                } else {
+                    log.error("TTS服务返回空音频文件 - SessionId: {}", chatSession.getSessionId());
+                }
+            } catch (Exception e) {
+                log.error("TTS合成出错: {} - SessionId: {}", e.getMessage(), chatSession.getSessionId());
+            }
+            sink.complete();
         });
     }
 
+    private void emitOpus(FluxSink<Speech> sink, List<byte[]> frames, String text, String mood) {
+        boolean first = true;
+        for (byte[] frame : frames) {
+            sink.next(first ? Speech.ofOpus(frame, text).withMood(mood) : Speech.ofOpus(frame));
+            first = false;
+        }
+    }
+
     /**
      * 直接合成单个文本
      * @param text 待合成的文本
@@ -0,0 +1,102 @@
+package com.xiaozhi.dialogue.playback;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 所有播放器共享的发帧调度器。
+ *
+ * 原先每个 ScheduledPlayer 持有一个虚拟线程，靠 sleep 对齐 60ms 帧间隔，空闲时每 10ms 轮询一次队列。
+ * 现在由一个时间轮（单个平台线程）统一计时，到点后把发帧任务交给虚拟线程执行：
+ * - 时间轮线程只负责计时，不做 I/O，慢连接不会拖慢其它设备
+ * - 播放器只在有帧要发时挂一个定时任务，没有待播内容的播放器不占线程、不产生任何唤醒
+ *
+ * tick-ms 是时间轮精度，帧的目标时间仍按播放器自己的绝对时间戳计算，精度只影响单帧抖动，不会累积。
+ *
+ * 指标：
+ * - xiaozhi.playback.pending-timeouts：时间轮中等待触发的定时任务数，约等于当前正在播放的播放器数
+ * - xiaozhi.playback.dispatched：累计交给虚拟线程执行的发帧任务数
+ */
+@Slf4j
+@Component
+public class PlaybackScheduler {
+
+    @Value("${xiaozhi.playback.tick-ms:10}")
+    private long tickMs;
+
+    @Value("${xiaozhi.playback.wheel-size:512}")
+    private int wheelSize;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private HashedWheelTimer timer;
+    private ExecutorService executor;
+
+    private final AtomicLong dispatched = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        timer = new HashedWheelTimer(Thread.ofPlatform().name("playback-timer").daemon(true).factory(),
+                tickMs, TimeUnit.MILLISECONDS, wheelSize);
+        timer.start();
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("playback-", 0).factory());
+        Gauge.builder("xiaozhi.playback.pending-timeouts", timer, HashedWheelTimer::pendingTimeouts)
+                .description("时间轮中等待触发的发帧定时任务数")
+                .register(meterRegistry);
+        FunctionCounter.builder("xiaozhi.playback.dispatched", dispatched, AtomicLong::get)
+                .description("累计执行的发帧任务数")
+                .register(meterRegistry);
+        log.info("播放调度器已启动 - tick: {}ms, wheelSize: {}", tickMs, wheelSize);
+    }
+
+    /**
+     * 在 delayNanos 之后执行任务，delayNanos <= 0 时立即执行
+     *
+     * @return 可用于取消的定时句柄，立即执行时返回 null
+     */
+    public Timeout schedule(Runnable task, long delayNanos) {
+        if (delayNanos <= 0) {
+            dispatch(task);
+            return null;
+        }
+        try {
+            return timer.newTimeout(timeout -> dispatch(task), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (IllegalStateException e) {
+            // 应用关闭期间时间轮已停止，不再调度
+            log.debug("播放调度器已停止，丢弃定时任务");
+            return null;
+        }
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            executor.execute(task);
+            dispatched.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            log.debug("播放调度器已停止，丢弃发帧任务");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.stop();
+        executor.shutdownNow();
+        log.info("播放调度器已停止 - 累计发帧任务: {}", dispatched.get());
+    }
+}
@@ -4,6 +4,7 @@ import com.xiaozhi.common.Speech;
 
 import com.xiaozhi.communication.common.ChatSession;
 import com.xiaozhi.communication.message.MessageSender;
+import com.xiaozhi.dialogue.metrics.DialogueMetrics;
 import com.xiaozhi.enums.DeviceState;
 import com.xiaozhi.utils.AudioUtils;
 import com.xiaozhi.utils.OpusProcessor;
@@ -67,6 +68,10 @@ public abstract class Player {
     @Setter
     @Getter
     private OpusRecorder opusRecorder;
+    /**
+     * 可选的延迟指标，记录每轮对话首个 Opus 帧的下发时间
+     */
+    private DialogueMetrics dialogueMetrics;
 
     /**
      * 音频播放器构造方法
@@ -112,6 +117,9 @@ public abstract class Player {
         if (opusRecorder != null) {
             opusRecorder.onSendOpusFrame(opusFrame);
         }
+        if (dialogueMetrics != null) {
+            dialogueMetrics.onOpusFrameSent(session);
+        }
     }
 
     /**
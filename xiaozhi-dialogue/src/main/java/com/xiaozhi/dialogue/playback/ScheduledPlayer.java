@@ -7,27 +7,30 @@ import com.xiaozhi.communication.common.ChatSession;
 import com.xiaozhi.communication.message.MessageSender;
 import com.xiaozhi.utils.AudioUtils;
 import io.jsonwebtoken.lang.Assert;
-import org.springframework.util.CollectionUtils;
+import io.netty.util.Timeout;
 import org.springframework.util.StringUtils;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import lombok.extern.slf4j.Slf4j;
 /**
- * 基于虚拟线程的音频流播放器。
+ * 基于共享时间轮调度的音频流播放器。
  *
  * 核心特性：
- * 1. 虚拟线程：每个播放器独立虚拟线程，支持无限并发
+ * 1. 共享调度：所有播放器共用 {@link PlaybackScheduler}，不再每个播放器常驻一个 sleep 的线程；
+ *    没有待播帧时不挂任何定时任务，TTS 产出新帧时再唤醒
  * 2. Burst模式：前2帧预缓冲（-120ms），避免首帧破音/丢字
- * 3. 精确调度：纳秒级时间控制，保证60ms精确间隔
+ * 3. 精确调度：每次只为下一帧挂一个定时任务，保证60ms间隔
  * 4. 绝对时间：基于startTimestamp的绝对时间调度，避免累积误差
  *
  * Burst模式原理：
@@ -67,12 +70,25 @@ public class ScheduledPlayer extends Player {
     // 当前正在订阅的Flux
     private AtomicReference<Disposable> fluxDisposable = new AtomicReference<>(null);
 
-    // 虚拟线程控制
+    // 播放调度
+    private final PlaybackScheduler scheduler;
     private volatile boolean running = false;
-    private Thread senderThread;
-
-    public ScheduledPlayer(ChatSession session, MessageSender messageService) {
+    // 是否已有发帧任务在排队或执行，保证同一播放器同一时刻只有一条发帧链
+    private final AtomicBoolean armed = new AtomicBoolean(false);
+    // stop()时递增，使已挂在时间轮上的旧任务失效
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ReentrantLock emitLock = new ReentrantLock();
+    private volatile Timeout pendingTimeout;
+    // 队列清空后等待发送stop的截止时间（纳秒），0表示未进入等待
+    private long stopDeadline = 0;
+
+    // 发帧任务返回值：无需再调度，等待新数据入队时唤醒
+    private static final long PARKED = 0;
+
+    public ScheduledPlayer(ChatSession session, MessageSender messageService, PlaybackScheduler scheduler) {
         super(session, messageService);
+        Assert.notNull(scheduler, "scheduler不能为空");
+        this.scheduler = scheduler;
     }
 
     /**
@@ -87,14 +103,13 @@ public class ScheduledPlayer extends Player {
             if (fluxDisposable.get() == null) {
                 subscribe(speechFlux);
 
-                // 启动发送线程（只启动一次）
+                // 开始播放（只发送一次start）
                 if (!running) {
                     running = true;
                     sendStart();
-
-                    // 使用虚拟线程，轻量级，可以创建成千上万个
-                    senderThread = Thread.startVirtualThread(this::sendFramesLoop);
                 }
+                // 订阅线程可能在running置位前就已入队
+                wake();
             } else {
                 // 当前已有TTS在工作，加入队列排队
                 fluxQueue.offer(speechFlux);
@@ -124,6 +139,7 @@ public class ScheduledPlayer extends Player {
                         // 预编码的 Opus 帧（来自缓存直读），直接入队无需转换
                         if (speech.isOpusEncoded()) {
                             allOpusFrames.add(speech);
+                            wake();
                             return;
                         }
 
@@ -136,22 +152,10 @@ public class ScheduledPlayer extends Player {
                             text = pendingText.getAndSet(null);
                         }
 
-                        List<byte[]> opusFrames = opusProcessor.pcmToOpus(pcmData, true);
-
-                        if (!CollectionUtils.isEmpty(opusFrames)) {
-                            // 创建Speech列表，第一帧附带文本
-                            List<Speech> speechList = opusFrames.stream()
-                                    .map(Speech::new)
-                                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-
-                            if (StringUtils.hasText(text)) {
-                                // 将第一帧替换为带文本的Speech
-                                Speech firstSpeech = speechList.remove(0);
-                                speechList.add(0, new Speech(firstSpeech.getOutput(), text));
-                                pendingText.set(null);
-                            }
-
-                            allOpusFrames.addAll(speechList);
+                        int frames = encode(pcmData, text);
+                        if (frames > 0) {
+                            pendingText.set(null);
+                            wake();
                         } else if (StringUtils.hasText(text)) {
                             // PCM不足一个Opus帧（已进入编码器内部缓冲），暂存文本等待下一帧
                             pendingText.set(text);
@@ -161,36 +165,47 @@ public class ScheduledPlayer extends Player {
                         log.error("TTS模型生成输出内容时发生错误：{}", throwable.getMessage());
                         // 当前TTS抛出异常，尝试订阅下一个Flux
                         subscribeNext();
+                        wake();
                     },
                     () -> {
                         // 当前Flux完成，flush剩余数据
-                        List<byte[]> opusFrames = opusProcessor.flushLeftover();
-                        if (!CollectionUtils.isEmpty(opusFrames)) {
-                            List<Speech> speechList = opusFrames.stream()
-                                    .map(Speech::new)
-                                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-
-                            // 若有暂存文本（最后一句的第一帧太小），附加到flush出来的第一帧
-                            String pt = pendingText.getAndSet(null);
-                            if (pt != null) {
-                                Speech firstSpeech = speechList.remove(0);
-                                speechList.add(0, new Speech(firstSpeech.getOutput(), pt));
-                            }
-
-                            allOpusFrames.addAll(speechList);
-                        }
+                        // 若有暂存文本（最后一句的第一帧太小），附加到flush出来的第一帧
+                        String pt = pendingText.getAndSet(null);
+                        opusProcessor.flushLeftover((buffer, length) -> allOpusFrames.add(toSpeech(buffer, length, pt)));
 
                         // 添加句子间隔标记，避免句子粘连
                         allOpusFrames.add(SENTENCE_GAP_MARKER);
 
                         // 尝试订阅下一个Flux
                         subscribeNext();
+                        wake();
                     }
                 );
 
         fluxDisposable.set(disposable);
     }
 
+    /**
+     * 将一段PCM编码为Opus帧并入队，第一帧附带文本
+     *
+     * @return 入队的帧数，为0表示PCM不足一帧，已进入编码器内部缓冲
+     */
+    private int encode(byte[] pcmData, String text) {
+        boolean[] first = {StringUtils.hasText(text)};
+        return opusProcessor.pcmToOpus(pcmData, 0, pcmData.length, true, (buffer, length) -> {
+            allOpusFrames.add(toSpeech(buffer, length, first[0] ? text : null));
+            first[0] = false;
+        });
+    }
+
+    /**
+     * 编码器回调的缓冲会被复用，入队前拷贝出独立的帧
+     */
+    private static Speech toSpeech(byte[] buffer, int length, String text) {
+        byte[] frame = Arrays.copyOf(buffer, length);
+        return text != null ? new Speech(frame, text) : new Speech(frame);
+    }
+
     /**
      * 订阅队列中的下一个Flux
      */
@@ -206,72 +221,135 @@ public class ScheduledPlayer extends Player {
     }
 
     /**
-     * 音频帧发送循环（虚拟线程）
+     * 工具调用结束时唤醒发帧任务，队列已空且没有新的Flux时据此进入结束流程
+     */
+    @Override
+    public void setToolCalling(boolean toolCalling) {
+        super.setToolCalling(toolCalling);
+        if (!toolCalling) {
+            wake();
+        }
+    }
+
+    /**
+     * 有新帧入队或播放状态变化时唤醒：没有发帧任务在排队时立即调度一次
+     */
+    private void wake() {
+        if (running && armed.compareAndSet(false, true)) {
+            int gen = generation.get();
+            pendingTimeout = scheduler.schedule(() -> emit(gen), 0);
+        }
+    }
+
+    /**
+     * 发帧任务（由PlaybackScheduler在虚拟线程上执行）
      *
-     * 采用Burst模式 + 绝对时间调度：
+     * 发送所有已到目标时间的帧；下一帧未到时间时只挂一个定时任务后返回，
+     * 队列为空且Flux仍在生成时不再调度，等入队时由wake()唤醒。
+     */
+    private void emit(int gen) {
+        long delay;
+        emitLock.lock();
+        try {
+            if (gen != generation.get()) {
+                // 已被stop()作废
+                return;
+            }
+            delay = sendDueFrames();
+        } finally {
+            emitLock.unlock();
+        }
+
+        if (delay > 0) {
+            pendingTimeout = scheduler.schedule(() -> emit(gen), delay);
+            return;
+        }
+        if (gen != generation.get()) {
+            return;
+        }
+        armed.set(false);
+        // 释放后再检查一次，避免与入队线程的唤醒错过
+        if (!allOpusFrames.isEmpty() || (fluxDisposable.get() == null && !isToolCalling())) {
+            wake();
+        }
+    }
+
+    /**
+     * 采用Burst模式 + 绝对时间调度发送到期的帧：
      * 1. 第一帧时设置startTimestamp
      * 2. 根据playPosition计算目标发送时间
      * 3. playPosition初始为-120ms，前2帧立即发送（预缓冲）
      * 4. 后续帧精确按60ms间隔发送
+     *
+     * @return 距下一次需要执行的纳秒数，{@link #PARKED} 表示等待新数据唤醒或已结束
      */
-    private void sendFramesLoop() {
+    private long sendDueFrames() {
         while (running) {
-            Speech speech = allOpusFrames.poll();
+            Speech speech = allOpusFrames.peek();
 
-            if (speech != null) {
-                if (speech == SENTENCE_GAP_MARKER) {
-                    // 句子间隔：推进playPosition，不发送音频
-                    playPosition += SENTENCE_GAP_NS;
-                    continue;
+            if (speech == null) {
+                if (fluxDisposable.get() != null || isToolCalling()) {
+                    // 还有Flux在生成数据，等待入队唤醒
+                    stopDeadline = 0;
+                    return PARKED;
                 }
-                // 有数据，发送音频帧
-                sendSpeechWithBurstMode(speech);
-            } else {
-                // 队列为空，检查是否播放结束
-                if (fluxDisposable.get() == null && !isToolCalling()) {
-                    // 没有新的Flux在生成数据，准备结束
-                    try {
-                        Thread.sleep(WAIT_TIME_MS_TO_SEND_STOP);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-
-                    // 再次检查，确保没有新数据
-                    if (allOpusFrames.isEmpty() && fluxDisposable.get() == null && !isToolCalling()) {
-                        running = false;
-                        // 重置Burst模式状态，避免下次play()时因旧的startTimestamp导致所有帧以零延迟发送
-                        startTimestamp = 0;
-                        playPosition = BURST_PREBUFFER_NS;
-                        sendStop();
-                        break;
-                    }
-                } else {
-                    // 还有Flux在生成数据，短暂休眠等待
-                    try {
-                        Thread.sleep(10);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+                // 没有新的Flux在生成数据，等待设备播完后结束
+                long now = System.nanoTime();
+                if (stopDeadline == 0) {
+                    stopDeadline = now + WAIT_TIME_MS_TO_SEND_STOP * 1_000_000L;
+                }
+                if (stopDeadline - now > 0) {
+                    return stopDeadline - now;
                 }
+                // 等待期间没有新数据
+                stopDeadline = 0;
+                running = false;
+                // 重置Burst模式状态，避免下次play()时因旧的startTimestamp导致所有帧以零延迟发送
+                startTimestamp = 0;
+                playPosition = BURST_PREBUFFER_NS;
+                sendStop();
+                return PARKED;
+            }
+            stopDeadline = 0;
+
+            if (speech == SENTENCE_GAP_MARKER) {
+                // 句子间隔：推进playPosition，不发送音频
+                allOpusFrames.poll();
+                playPosition += SENTENCE_GAP_NS;
+                continue;
+            }
+
+            // 设置开始时间戳（只在第一帧时）
+            if (startTimestamp == 0) {
+                startTimestamp = System.nanoTime();
+            }
+
+            // playPosition初始为-120ms，前2帧会立即通过（targetSendTime < currentTime）
+            long delay = startTimestamp + playPosition - System.nanoTime();
+            if (delay > 0) {
+                return delay;
+            }
+            allOpusFrames.poll();
+            // 预缓冲帧本来就立即发送，不计入迟到
+            if (playPosition >= 0 && -delay > OPUS_FRAME_SEND_INTERVAL_NS && getDialogueMetrics() != null) {
+                getDialogueMetrics().onLateFrame(-delay);
             }
+            sendSpeech(speech);
         }
+        return PARKED;
     }
 
     /**
-     * 使用Burst模式发送单个Speech
+     * 发送单个Speech
      *
      * Burst模式时序：
      * - 第1帧：playPosition = -120ms → 立即发送（预缓冲）
      * - 第2帧：playPosition = -60ms  → 立即发送（预缓冲）
-     * - 第3帧：playPosition = 0ms    → 等待到startTimestamp后发送
-     * - 第4帧：playPosition = 60ms   → 等待到startTimestamp+60ms后发送
+     * - 第3帧：playPosition = 0ms    → 到startTimestamp后发送
+     * - 第4帧：playPosition = 60ms   → 到startTimestamp+60ms后发送
      * - ...
      */
-    private void sendSpeechWithBurstMode(Speech speech) {
-        byte[] frame = speech.getOutput();
-
+    private void sendSpeech(Speech speech) {
         // 更新活跃时间
         session.setLastActivityTime(Instant.now());
 
@@ -289,35 +367,8 @@ public class ScheduledPlayer extends Player {
             sendStart();
         }
 
-        // 设置开始时间戳（只在第一帧时）
-        if (startTimestamp == 0) {
-            startTimestamp = System.nanoTime();
-        }
-
-        // 计算目标发送时间（绝对时间戳）
-        // playPosition初始为-120ms，前2帧会立即通过（targetSendTime < currentTime）
-        long targetSendTime = startTimestamp + playPosition;
-
-        // 等待到目标时间
-        long currentTime = System.nanoTime();
-        long delay = targetSendTime - currentTime;
-
-        if (delay > 0) {
-            // 需要等待
-            try {
-                long delayMs = delay / 1_000_000L;
-                int delayNs = (int) (delay % 1_000_000L);
-                Thread.sleep(delayMs, delayNs);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                running = false;
-                return;
-            }
-        }
-        // else: delay <= 0，立即发送（预缓冲阶段）
-
         // 发送音频帧
-        sendOpusFrame(frame);
+        sendOpusFrame(speech.getOutput());
 
         // 更新播放位置（每帧增加60ms）
         playPosition += OPUS_FRAME_SEND_INTERVAL_NS;
@@ -331,13 +382,19 @@ public class ScheduledPlayer extends Player {
         super.stop();
         running = false;
 
-        // 中断发送线程
-        if (senderThread != null) {
-            senderThread.interrupt();
+        // 作废已调度的发帧任务
+        generation.incrementAndGet();
+        Timeout timeout = pendingTimeout;
+        if (timeout != null) {
+            timeout.cancel();
         }
+        armed.set(false);
 
         // 清空队列
         fluxQueue.clear();
+        if (getDialogueMetrics() != null) {
+            getDialogueMetrics().onFramesDropped(allOpusFrames.size());
+        }
         allOpusFrames.clear();
 
         // 取消Flux订阅
@@ -349,6 +406,7 @@ public class ScheduledPlayer extends Player {
         // 重置Burst模式状态
         startTimestamp = 0;
         playPosition = BURST_PREBUFFER_NS;
+        stopDeadline = 0;
 
         // 中断时主动关闭文件，避免产生损坏的 Opus 文件
         if (getOpusRecorder() != null) {
@@ -0,0 +1,354 @@
+package com.xiaozhi.dialogue.playback;
+
+import com.xiaozhi.ai.tts.TtsService;
+import com.xiaozhi.common.Speech;
+import com.xiaozhi.common.config.RuntimePathConfig;
+import com.xiaozhi.utils.AudioUtils;
+import com.xiaozhi.utils.OpusProcessor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 合成语音的内容寻址缓存，保存最终下发给设备的 60ms Opus 帧。
+ *
+ * 设备每天反复播报相同的句子（问候语、未配置角色提示、工具确认、常见短回复），
+ * 命中后 Player 直接走 {@link Speech#isOpusEncoded()} 快速通道，跳过 TTS 合成、文件读写和 Opus 编码。
+ *
+ * 缓存键 = provider + 音色 + 音调 + 语速 + 归一化文本 的 SHA-256。
+ * 两级存储：
+ * - 内存：按条目数限制的 LRU，保存热点句子
+ * - 磁盘：{audioDir}/tts-cache/*.opus，按总字节数限制，超限时按最后访问时间淘汰
+ *
+ * 指标：
+ * - xiaozhi.tts.cache.hits（tier=memory/disk）、xiaozhi.tts.cache.misses：命中与未命中次数
+ * - xiaozhi.tts.cache.evictions：磁盘淘汰的文件数
+ * - xiaozhi.tts.cache.memory.entries、xiaozhi.tts.cache.disk.bytes：内存条目数与磁盘占用
+ */
+@Slf4j
+@Component
+public class SpeechCache {
+
+    private static final String CACHE_DIR_NAME = "tts-cache";
+    private static final String FILE_SUFFIX = ".opus";
+
+    @Value("${xiaozhi.tts.cache.enabled:true}")
+    private boolean enabled;
+
+    /** 只缓存短句，长句基本不会重复，缓存只会挤占空间 */
+    @Value("${xiaozhi.tts.cache.max-text-length:60}")
+    private int maxTextLength;
+
+    @Value("${xiaozhi.tts.cache.memory-entries:512}")
+    private int memoryEntries;
+
+    @Value("${xiaozhi.tts.cache.disk-max-mb:512}")
+    private long diskMaxMb;
+
+    @Resource
+    private RuntimePathConfig runtimePathConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Path cacheDir;
+    private Map<String, List<byte[]>> memory;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    // 正在写入磁盘的缓存键，同一句话并发合成时只由一个线程落盘并计入占用
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(memoryEntries, 0);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<byte[]>> eldest) {
+                return size() > capacity;
+            }
+        };
+        registerMetrics();
+        if (!enabled) {
+            return;
+        }
+        cacheDir = runtimePathConfig.resolveAudioDir().resolve(CACHE_DIR_NAME);
+        try {
+            Files.createDirectories(cacheDir);
+            try (Stream<Path> files = Files.list(cacheDir)) {
+                diskBytes.set(files.filter(p -> p.toString().endsWith(FILE_SUFFIX))
+                        .mapToLong(SpeechCache::sizeOf)
+                        .sum());
+            }
+            log.info("TTS语音缓存已启用 - 目录: {}, 已占用: {}KB", cacheDir, diskBytes.get() / 1024);
+        } catch (IOException e) {
+            log.warn("TTS语音缓存目录初始化失败，仅使用内存缓存: {}", e.getMessage());
+            cacheDir = null;
+        }
+    }
+
+    /**
+     * 查询缓存的 Opus 帧
+     *
+     * @return 命中时返回 Opus 帧列表（只读共享，调用方不得修改），未命中或不可缓存时返回 null
+     */
+    public List<byte[]> get(TtsService ttsService, String text) {
+        if (!isCacheable(text)) {
+            return null;
+        }
+        String key = cacheKey(ttsService, text);
+        List<byte[]> frames;
+        synchronized (memory) {
+            frames = memory.get(key);
+        }
+        if (frames != null) {
+            memoryHits.incrementAndGet();
+            return frames;
+        }
+
+        Path file = diskFile(key);
+        if (file != null && Files.exists(file)) {
+            frames = AudioUtils.readOpus(file.toFile());
+            if (!frames.isEmpty()) {
+                touch(file);
+                putMemory(key, frames);
+                diskHits.incrementAndGet();
+                return frames;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 将 TTS 生成的音频文件编码为 Opus 帧并写入缓存
+     *
+     * @return 编码后的 Opus 帧；文本不可缓存时返回 null，调用方按原 PCM 路径播放
+     */
+    public List<byte[]> put(TtsService ttsService, String text, Path audioPath) throws IOException {
+        if (!isCacheable(text) || audioPath == null) {
+            return null;
+        }
+        return put(ttsService, text, AudioUtils.readAsPcm(audioPath.toString()));
+    }
+
+    /**
+     * 将整句 PCM（16kHz 单声道 16bit）编码为 Opus 帧并写入缓存，供流式合成结束后回填
+     *
+     * @return 编码后的 Opus 帧；文本不可缓存或 PCM 为空时返回 null
+     */
+    public List<byte[]> put(TtsService ttsService, String text, byte[] pcm) {
+        if (!isCacheable(text) || pcm == null || pcm.length == 0) {
+            return null;
+        }
+        // 每句使用独立编码器，缓存的帧序列不依赖上一句的编码器状态，可在任意会话中重放
+        OpusProcessor encoder = new OpusProcessor();
+        List<byte[]> frames = new ArrayList<>(pcm.length / (AudioUtils.FRAME_SIZE * 2) + 1);
+        OpusProcessor.FrameConsumer collector = (buffer, length) -> frames.add(Arrays.copyOf(buffer, length));
+        encoder.pcmToOpus(pcm, 0, pcm.length, true, collector);
+        encoder.flushLeftover(collector);
+        if (frames.isEmpty()) {
+            return null;
+        }
+        List<byte[]> cached = List.copyOf(frames);
+
+        String key = cacheKey(ttsService, text);
+        putMemory(key, cached);
+        writeDisk(key, cached);
+        return cached;
+    }
+
+    /**
+     * 将缓存的 Opus 帧包装为 Player 可消费的音频流，文本和情绪附加在第一帧上
+     */
+    public static Flux<Speech> toSpeechFlux(List<byte[]> frames, String text, String mood) {
+        List<Speech> speeches = new ArrayList<>(frames.size());
+        for (byte[] frame : frames) {
+            speeches.add(speeches.isEmpty()
+                    ? Speech.ofOpus(frame, text).withMood(mood)
+                    : Speech.ofOpus(frame));
+        }
+        return Flux.fromIterable(speeches);
+    }
+
+    public boolean isCacheable(String text) {
+        return enabled && StringUtils.hasText(text) && text.length() <= maxTextLength;
+    }
+
+    /**
+     * 归一化文本：全角/半角统一（NFKC）、折叠空白，避免同一句话因格式差异重复缓存
+     */
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.strip().replaceAll("\\s+", " ");
+    }
+
+    static String cacheKey(TtsService ttsService, String text) {
+        String raw = ttsService.getProviderName() + '\u0000'
+                + ttsService.getVoiceName() + '\u0000'
+                + ttsService.getPitch() + '\u0000'
+                + ttsService.getSpeed() + '\u0000'
+                + normalize(text);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private void registerMetrics() {
+        FunctionCounter.builder("xiaozhi.tts.cache.hits", memoryHits, AtomicLong::get)
+                .description("TTS语音缓存命中次数")
+                .tag("tier", "memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("xiaozhi.tts.cache.hits", diskHits, AtomicLong::get)
+                .description("TTS语音缓存命中次数")
+                .tag("tier", "disk")
+                .register(meterRegistry);
+        FunctionCounter.builder("xiaozhi.tts.cache.misses", misses, AtomicLong::get)
+                .description("TTS语音缓存未命中次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("xiaozhi.tts.cache.evictions", evictions, AtomicLong::get)
+                .description("TTS语音缓存磁盘淘汰的文件数")
+                .register(meterRegistry);
+        Gauge.builder("xiaozhi.tts.cache.memory.entries", this, SpeechCache::memorySize)
+                .description("TTS语音缓存内存条目数")
+                .register(meterRegistry);
+        Gauge.builder("xiaozhi.tts.cache.disk.bytes", diskBytes, AtomicLong::get)
+                .description("TTS语音缓存磁盘占用字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private int memorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private void putMemory(String key, List<byte[]> frames) {
+        synchronized (memory) {
+            memory.put(key, frames);
+        }
+    }
+
+    private Path diskFile(String key) {
+        return cacheDir == null ? null : cacheDir.resolve(key + FILE_SUFFIX);
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免并发读到写了一半的文件。
+     * 同一缓存键只允许一个线程写入，只有新生成的文件才计入磁盘占用。
+     */
+    private void writeDisk(String key, List<byte[]> frames) {
+        Path file = diskFile(key);
+        if (file == null || !writing.add(key)) {
+            return;
+        }
+        Path tmp = cacheDir.resolve(key + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            if (Files.exists(file)) {
+                return;
+            }
+            AudioUtils.saveAsOpus(frames, tmp.toString());
+            long size = sizeOf(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(size) > diskMaxMb * 1024 * 1024) {
+                evictDisk();
+            }
+        } catch (IOException e) {
+            log.warn("写入TTS语音缓存失败: {}", e.getMessage());
+            AudioUtils.deleteFile(tmp.toString());
+        } finally {
+            writing.remove(key);
+        }
+    }
+
+    /**
+     * 按最后访问时间从旧到新删除，直到占用降到上限的 90%
+     */
+    private void evictDisk() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        long target = diskMaxMb * 1024 * 1024 * 9 / 10;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> oldestFirst = files.filter(p -> p.toString().endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparing(SpeechCache::lastModified))
+                    .toList();
+            for (Path file : oldestFirst) {
+                if (diskBytes.get() <= target) {
+                    break;
+                }
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                    evictions.incrementAndGet();
+                }
+            }
+            log.debug("TTS语音缓存淘汰完成 - 当前占用: {}KB", diskBytes.get() / 1024);
+        } catch (IOException e) {
+            log.warn("TTS语音缓存淘汰失败: {}", e.getMessage());
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // 访问时间只影响淘汰顺序
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
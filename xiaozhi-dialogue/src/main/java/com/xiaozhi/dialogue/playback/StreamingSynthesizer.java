@@ -0,0 +1,96 @@
+package com.xiaozhi.dialogue.playback;
+
+import com.xiaozhi.ai.tts.StreamingTextToSpeech;
+import com.xiaozhi.ai.tts.TtsService;
+import com.xiaozhi.common.Speech;
+import com.xiaozhi.communication.common.ChatSession;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 流式语音合成器，用于实现了 {@link StreamingTextToSpeech} 的 Provider。
+ *
+ * 数据流：LLM token流 → SentenceHelper分句 → 逐句流式合成 → PCM 分片直接交给播放器编码发送
+ *
+ * 与 FileSynthesizer 的区别只在单句合成方式：不再等整句音频落盘，Provider 推送的第一个 PCM 分片
+ * 就进入 ScheduledPlayer，首句首帧延迟从"整句合成耗时"降到"Provider 首包耗时"。
+ *
+ * 短句同样先查 {@link SpeechCache}；未命中时边播放边累积 PCM，合成完成后再编码回填缓存。
+ * 流式合成在产出任何音频前失败时，回退到文件路径重新合成该句。
+ */
+@Slf4j
+public class StreamingSynthesizer extends FileSynthesizer {
+
+    private final StreamingTextToSpeech streamingTts;
+
+    public StreamingSynthesizer(ChatSession session, TtsService ttsService, Player player, SpeechCache speechCache) {
+        super(session, ttsService, player, speechCache);
+        this.streamingTts = (StreamingTextToSpeech) ttsService;
+    }
+
+    @Override
+    protected Flux<Speech> speak(String text, String mood) {
+        return Flux.defer(() -> {
+            List<byte[]> cachedFrames = speechCache.get(ttsService, text);
+            if (cachedFrames != null) {
+                return SpeechCache.toSpeechFlux(cachedFrames, text, mood);
+            }
+
+            ByteArrayOutputStream pcm = speechCache.isCacheable(text) ? new ByteArrayOutputStream() : null;
+            AtomicBoolean emitted = new AtomicBoolean(false);
+            PcmAligner aligner = new PcmAligner();
+
+            return streamingTts.streamSpeech(text)
+                    .map(aligner::align)
+                    .filter(chunk -> chunk.length > 0)
+                    .map(chunk -> {
+                        if (pcm != null) {
+                            pcm.writeBytes(chunk);
+                        }
+                        // 第一个分片附带文本和情绪
+                        return emitted.compareAndSet(false, true)
+                                ? new Speech(chunk, text).withMood(mood)
+                                : new Speech(chunk);
+                    })
+                    .doOnComplete(() -> {
+                        if (pcm != null) {
+                            speechCache.put(ttsService, text, pcm.toByteArray());
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (emitted.get()) {
+                            // 已经播放了一部分，重试会重复内容，直接结束该句
+                            log.error("TTS流式合成中断: {} - SessionId: {}", e.getMessage(), chatSession.getSessionId());
+                            return Flux.empty();
+                        }
+                        log.warn("TTS流式合成失败，回退到文件合成: {} - SessionId: {}",
+                                e.getMessage(), chatSession.getSessionId());
+                        return super.speak(text, mood);
+                    });
+        });
+    }
+
+    /**
+     * 网络分片不保证按 16bit 采样对齐，奇数字节留到下一个分片拼接，避免编码时丢字节导致爆音
+     */
+    private static class PcmAligner {
+        private byte[] carry = new byte[0];
+
+        byte[] align(byte[] chunk) {
+            byte[] data = chunk;
+            if (carry.length > 0) {
+                data = new byte[carry.length + chunk.length];
+                System.arraycopy(carry, 0, data, 0, carry.length);
+                System.arraycopy(chunk, 0, data, carry.length, chunk.length);
+            }
+            int aligned = data.length & ~1;
+            carry = Arrays.copyOfRange(data, aligned, data.length);
+            return aligned == data.length ? data : Arrays.copyOf(data, aligned);
+        }
+    }
+}
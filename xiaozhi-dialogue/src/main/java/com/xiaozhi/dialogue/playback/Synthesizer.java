@@ -4,6 +4,7 @@ import com.xiaozhi.common.Speech;
 
 import com.xiaozhi.communication.common.ChatSession;
 import com.xiaozhi.ai.tts.TtsService;
+import com.xiaozhi.dialogue.metrics.DialogueMetrics;
 import lombok.Data;
 import reactor.core.publisher.Flux;
 
@@ -23,6 +24,7 @@ import reactor.core.publisher.Flux;
  *
  * 合成模式：
  * text → Path（FileSynthesizer + TtsService）
+ * text → Flux<PCM>（StreamingSynthesizer + StreamingTextToSpeech）
  *
  * 生命周期：Synthesizer 在一轮对话的 AI 响应合成完毕后即可回收，Player 可能仍在播放。
  * 同一个 Synthesizer 可组合不同的 Player，因此 Player 不在 Synthesizer 内部创建。
@@ -36,6 +38,11 @@ public abstract class Synthesizer {
 
     private int firstChatDurationMillis = 0;
 
+    /**
+     * 可选的延迟指标，记录每轮对话第一句的产出时间
+     */
+    private DialogueMetrics dialogueMetrics;
+
     /**
      * @param chatSession  当前会话
      * @param ttsService   底层 TTS Provider（由 TtsServiceFactory 创建）
@@ -1,14 +1,19 @@
 package com.xiaozhi.dialogue.playback;
 
 import com.xiaozhi.communication.common.ChatSession;
+import com.xiaozhi.ai.tts.StreamingTextToSpeech;
 import com.xiaozhi.ai.tts.TtsService;
 
 /**
  * Synthesizer 工厂，创建对应的 Synthesizer 实现。
+ * 支持流式合成的 Provider 使用 StreamingSynthesizer，其余走 FileSynthesizer 文件路径。
  */
 public class SynthesizerFactory {
 
-    public static Synthesizer create(ChatSession session, TtsService ttsService, Player player) {
-        return new FileSynthesizer(session, ttsService, player);
+    public static Synthesizer create(ChatSession session, TtsService ttsService, Player player, SpeechCache speechCache) {
+        if (ttsService instanceof StreamingTextToSpeech streaming && streaming.supportsStreaming()) {
+            return new StreamingSynthesizer(session, ttsService, player, speechCache);
+        }
+        return new FileSynthesizer(session, ttsService, player, speechCache);
     }
 }
@@ -1,6 +1,7 @@
 package com.xiaozhi.dialogue.runtime;
 
 import com.xiaozhi.ai.tool.ToolsSessionHolder;
+import com.xiaozhi.dialogue.metrics.TurnTimings;
 import com.xiaozhi.dialogue.playback.Player;
 import lombok.Getter;
 import lombok.Setter;
@@ -49,6 +50,11 @@ public class DialogueContext {
      */
     private volatile ToolResponseMessage toolResponseMessage;
 
+    /**
+     * 当前对话轮次各阶段的时间点，用于延迟指标
+     */
+    private final TurnTimings turnTimings = new TurnTimings();
+
     /**
      * 工具调用详情
      */
@@ -5,9 +5,12 @@ import com.xiaozhi.communication.common.ChatSession;
 import com.xiaozhi.communication.common.SessionManager;
 import com.xiaozhi.ai.llm.memory.Conversation;
 import com.xiaozhi.ai.llm.memory.ConversationContext;
+import com.xiaozhi.ai.llm.memory.MessageTimeMetadata;
+import com.xiaozhi.dialogue.metrics.DialogueMetrics;
 import com.xiaozhi.dialogue.playback.Player;
 import com.xiaozhi.dialogue.playback.Synthesizer;
 import com.xiaozhi.ai.stt.SttService;
+import com.xiaozhi.ai.tool.selection.ToolPreSelector;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -27,6 +30,7 @@ import reactor.core.publisher.Flux;
 
 import java.nio.file.Path;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -100,6 +104,17 @@ public class Persona {
     @Builder.Default
     private List<ToolCallback> toolCallbacks = new ArrayList<>();
 
+    /**
+     * 工具预筛选器，为空时下发全部工具
+     */
+    private ToolPreSelector toolPreSelector;
+
+    /**
+     * 延迟指标及打标签用的 LLM provider，为空时不记录
+     */
+    private DialogueMetrics dialogueMetrics;
+    private String llmProvider;
+
 
     // PersonaListener 回调实现了核心与辅助的分离：Persona 只通知"发生了什么"，持久化和监控由外部实现。
 
@@ -130,7 +145,10 @@ public class Persona {
         List<ToolCallback> liveTools = getSession().getToolsSessionHolder().getAllFunction();
 
         // Layer 3: Embedding 预筛选工具子集
-        List<ToolCallback> effectiveTools = useFunctionCall ? liveTools : new ArrayList<>();
+        List<ToolCallback> effectiveTools = new ArrayList<>();
+        if (useFunctionCall) {
+            effectiveTools = toolPreSelector != null ? toolPreSelector.select(userMessage.getText(), liveTools) : liveTools;
+        }
 
         ChatOptions chatOptions = ToolCallingChatOptions.builder()
                 .toolCallbacks(effectiveTools)
@@ -139,6 +157,9 @@ public class Persona {
                 .toolContext("conversationTimestamp", now.toEpochMilli())
                 .build();
 
+        // Conversation 在 add 时就装配好带时间前缀的消息，时间戳必须先写入；与 DialogueTurn.injectInstants() 写入的值一致。
+        // 唤醒词、告别语等纯文本消息不带 metadata，只能在这里补上。
+        MessageTimeMetadata.setTimeMillis(userMessage, now.truncatedTo(ChronoUnit.SECONDS));
         conversation.add(userMessage);
 
         // 构建运行时上下文
@@ -156,6 +177,9 @@ public class Persona {
             Instant assistantMessageCreatedAt = Instant.now();
             boolean isFirst = ttft.compareAndSet(null, assistantMessageCreatedAt);
             if (isFirst) {
+                if (dialogueMetrics != null) {
+                    dialogueMetrics.onFirstToken(getSession(), llmProvider);
+                }
                 if (player.getOpusRecorder() != null) {
                     player.getOpusRecorder().setAssistantMessageCreatedAt(assistantMessageCreatedAt);
                 }
@@ -0,0 +1,178 @@
+package com.xiaozhi.communication.common;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceRegistryTest {
+
+    private static final String DIRECTORY_KEY = "xiaozhi:device:instance";
+    private static final String PRESENCE_KEY = "xiaozhi:device:presence:instance-1";
+    private static final long TTL_MILLIS = Duration.ofSeconds(300).toMillis();
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private InstanceIdHolder instanceIdHolder;
+
+    @Mock
+    private RedisOperations<String, String> pipeline;
+
+    @Mock
+    private HashOperations<String, Object, Object> pipelineHash;
+
+    @Mock
+    private ZSetOperations<String, String> pipelineZSet;
+
+    @Mock
+    private ZSetOperations<String, String> zSet;
+
+    @Mock
+    private HashOperations<String, Object, Object> hash;
+
+    @Mock
+    private Cursor<Map.Entry<Object, Object>> cursor;
+
+    private DeviceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new DeviceRegistry();
+        ReflectionTestUtils.setField(registry, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(registry, "instanceIdHolder", instanceIdHolder);
+    }
+
+    @Test
+    void bindWritesDirectoryAndHeartbeatInOnePipeline() {
+        when(instanceIdHolder.getInstanceId()).thenReturn("instance-1");
+        runPipelines();
+        when(pipeline.opsForHash()).thenReturn(pipelineHash);
+        when(pipeline.opsForZSet()).thenReturn(pipelineZSet);
+        long before = System.currentTimeMillis();
+
+        registry.bind("device-1");
+
+        verify(pipelineHash).put(DIRECTORY_KEY, "device-1", "instance-1");
+        ArgumentCaptor<Double> score = ArgumentCaptor.forClass(Double.class);
+        verify(pipelineZSet).add(eq(PRESENCE_KEY), eq("device-1"), score.capture());
+        assertThat(score.getValue()).isBetween((double) before, (double) System.currentTimeMillis());
+        verify(pipeline).expire(PRESENCE_KEY, Duration.ofSeconds(300));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refreshUpdatesHeartbeatsAndPrunesStaleDevices() {
+        when(instanceIdHolder.getInstanceId()).thenReturn("instance-1");
+        runPipelines();
+        when(pipeline.opsForZSet()).thenReturn(pipelineZSet);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSet);
+        when(zSet.rangeByScore(eq(PRESENCE_KEY), eq(Double.NEGATIVE_INFINITY), anyDouble(), eq(0L), anyLong()))
+                .thenReturn(Set.of("device-gone"));
+        long before = System.currentTimeMillis();
+
+        registry.refresh(List.of("device-1", "device-2"));
+
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> tuples = ArgumentCaptor.forClass(Set.class);
+        verify(pipelineZSet).add(eq(PRESENCE_KEY), tuples.capture());
+        assertThat(tuples.getValue().stream().map(ZSetOperations.TypedTuple::getValue).collect(Collectors.toSet()))
+                .containsExactlyInAnyOrder("device-1", "device-2");
+        verify(pipeline).expire(PRESENCE_KEY, Duration.ofSeconds(300));
+
+        // 失效设备连同 Hash 字段一起清理，参数为：实例ID、过期分界、设备ID...
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(DIRECTORY_KEY, PRESENCE_KEY)), args.capture());
+        assertThat(args.getValue()[0]).isEqualTo("instance-1");
+        assertThat(Long.parseLong((String) args.getValue()[1])).isBetween(before - TTL_MILLIS, System.currentTimeMillis() - TTL_MILLIS);
+        assertThat(args.getValue()).hasSize(3).endsWith("device-gone");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refreshSkipsPruneWhenNothingIsStale() {
+        when(instanceIdHolder.getInstanceId()).thenReturn("instance-1");
+        runPipelines();
+        when(pipeline.opsForZSet()).thenReturn(pipelineZSet);
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSet);
+        when(zSet.rangeByScore(eq(PRESENCE_KEY), eq(Double.NEGATIVE_INFINITY), anyDouble(), eq(0L), anyLong()))
+                .thenReturn(Set.of());
+
+        registry.refresh(List.of("device-1"));
+
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getInstanceIgnoresStaleHeartbeat() {
+        long now = System.currentTimeMillis();
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(DIRECTORY_KEY)), any(Object[].class)))
+                .thenReturn(List.of("instance-2", String.valueOf(now - TTL_MILLIS - 60_000)))
+                .thenReturn(List.of("instance-2", String.valueOf(now)))
+                .thenReturn(null);
+
+        assertThat(registry.getInstance("device-1")).isNull();
+        assertThat(registry.getInstance("device-1")).isEqualTo("instance-2");
+        assertThat(registry.getInstance("device-1")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pruneStaleChecksEveryInstanceInTheDirectory() {
+        when(stringRedisTemplate.opsForHash()).thenReturn(hash);
+        when(hash.scan(eq(DIRECTORY_KEY), any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(Map.entry("device-1", "instance-1"), Map.entry("device-2", "instance-old"),
+                Map.entry("device-3", "instance-old"));
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of(DIRECTORY_KEY, PRESENCE_KEY)), any(Object[].class)))
+                .thenReturn(0L);
+        when(stringRedisTemplate.execute(any(RedisScript.class),
+                eq(List.of(DIRECTORY_KEY, "xiaozhi:device:presence:instance-old")), any(Object[].class)))
+                .thenReturn(2L);
+
+        assertThat(registry.pruneStale()).isEqualTo(2);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of(DIRECTORY_KEY, "xiaozhi:device:presence:instance-old")), args.capture());
+        assertThat(args.getValue()).hasSize(4).startsWith("instance-old").endsWith("device-2", "device-3");
+        verify(cursor).close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runPipelines() {
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(pipeline);
+            return List.of();
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.xiaozhi.communication.common;
+
+import com.xiaozhi.common.model.bo.DeviceBO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SessionManagerTest {
+
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        sessionManager = new SessionManager();
+        ReflectionTestUtils.setField(sessionManager, "applicationContext", mock(ApplicationContext.class));
+    }
+
+    @Test
+    void registeredSessionIsFoundByRole() {
+        ChatSession session = register("s1", 1);
+        ChatSession other = register("s2", 2);
+
+        assertThat(sessionManager.getSessionsByRoleId(1)).containsExactly(session);
+        assertThat(sessionManager.getSessionsByRoleId(2)).containsExactly(other);
+        assertThat(sessionManager.getSessionsByRoleId(3)).isEmpty();
+    }
+
+    @Test
+    void updateDeviceMovesSessionToNewRole() {
+        ChatSession session = register("s1", 1);
+
+        sessionManager.updateDevice(session, device(2));
+
+        assertThat(sessionManager.getSessionsByRoleId(1)).isEmpty();
+        assertThat(sessionManager.getSessionsByRoleId(2)).containsExactly(session);
+        assertThat(roleIdToSessionIds()).containsOnlyKeys(2);
+        assertThat(sessionIdToRoleId()).containsExactly(Map.entry("s1", 2));
+    }
+
+    @Test
+    void updateRoleIndexFollowsInPlaceRoleChange() {
+        ChatSession session = register("s1", 1);
+
+        // 语音切换角色时直接修改设备的 roleId
+        session.getDevice().setRoleId(2);
+        sessionManager.updateRoleIndex(session);
+
+        assertThat(sessionManager.getSessionsByRoleId(1)).isEmpty();
+        assertThat(sessionManager.getSessionsByRoleId(2)).containsExactly(session);
+    }
+
+    @Test
+    void removeSessionClearsBothIndexes() {
+        register("s1", 1);
+        ChatSession kept = register("s2", 1);
+
+        sessionManager.removeSession("s1");
+
+        assertThat(sessionManager.getSessionsByRoleId(1)).containsExactly(kept);
+        assertThat(sessionIdToRoleId()).containsOnlyKeys("s2");
+
+        sessionManager.removeSession("s2");
+
+        assertThat(roleIdToSessionIds()).isEmpty();
+        assertThat(sessionIdToRoleId()).isEmpty();
+    }
+
+    @Test
+    void staleIndexEntryIsPrunedOnLookup() {
+        register("s1", 1);
+        ChatSession kept = register("s2", 1);
+        // 会话已从注册表消失但角色索引仍有残留
+        sessions().remove("s1");
+
+        assertThat(sessionManager.getSessionsByRoleId(1)).containsExactly(kept);
+        assertThat(roleIdToSessionIds().get(1)).containsExactly("s2");
+    }
+
+    private ChatSession register(String sessionId, Integer roleId) {
+        ChatSession session = new TestSession(sessionId);
+        session.setDevice(device(roleId));
+        sessionManager.registerSession(sessionId, session);
+        return session;
+    }
+
+    private static DeviceBO device(Integer roleId) {
+        DeviceBO device = new DeviceBO();
+        device.setDeviceId("device-" + roleId);
+        device.setRoleId(roleId);
+        return device;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ChatSession> sessions() {
+        return (Map<String, ChatSession>) ReflectionTestUtils.getField(sessionManager, "sessions");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Set<String>> roleIdToSessionIds() {
+        return (Map<Integer, Set<String>>) ReflectionTestUtils.getField(sessionManager, "roleIdToSessionIds");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Integer> sessionIdToRoleId() {
+        return (Map<String, Integer>) ReflectionTestUtils.getField(sessionManager, "sessionIdToRoleId");
+    }
+
+    private static class TestSession extends ChatSession {
+
+        TestSession(String sessionId) {
+            super(sessionId);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public boolean isAudioChannelOpen() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void sendTextMessage(String message) {
+        }
+
+        @Override
+        public void sendBinaryMessage(byte[] message) {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.xiaozhi.communication.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageSenderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void escapesControlCharactersLikeJackson() throws Exception {
+        StringBuilder controls = new StringBuilder();
+        for (char c = 0; c < 0x20; c++) {
+            controls.append(c);
+        }
+        assertSameAsJackson(controls.toString());
+        assertSameAsJackson("\u007F\u0080\u009F");
+    }
+
+    @Test
+    void escapesQuotesAndBackslashesLikeJackson() throws Exception {
+        assertSameAsJackson("他说：\"你好\"");
+        assertSameAsJackson("C:\\Users\\xiaozhi\\");
+        assertSameAsJackson("\\\"\\\\\"");
+        assertSameAsJackson("/path/</script>");
+    }
+
+    @Test
+    void keepsCjkAndSurrogatePairsLikeJackson() throws Exception {
+        assertSameAsJackson("今天天气怎么样？北京多云转晴，气温12~23℃。");
+        assertSameAsJackson("好的😊🍎👨‍👩‍👧，走吧🎉");
+        assertSameAsJackson("𠀀𪚥");
+        // 孤立代理项
+        assertSameAsJackson("a\uD83Db\uDE0Ac");
+        assertSameAsJackson("\u2028\u2029\uFEFF");
+        assertSameAsJackson("");
+    }
+
+    @Test
+    void matchesJacksonOnRandomStrings() throws Exception {
+        String alphabet = "aZ0 \"\\/\n\r\t\b\f\u0000\u0001\u001F\u007F好的。，😊🍎\u2028";
+        int[] codePoints = alphabet.codePoints().toArray();
+        Random random = new Random(19L);
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+            }
+            assertSameAsJackson(text.toString());
+        }
+    }
+
+    @Test
+    void ttsMessageMatchesObjectNode() {
+        List<String[]> cases = new ArrayList<>();
+        cases.add(new String[]{null, "start"});
+        cases.add(new String[]{null, "stop"});
+        cases.add(new String[]{"今天\"天气\"不错😊\n", "sentence_start"});
+        cases.add(new String[]{null, "sentence_end"});
+        cases.add(new String[]{"\\\u0007", null});
+        for (String[] c : cases) {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("type", "tts");
+            node.put("state", c[1]);
+            if (c[0] != null) {
+                node.put("text", c[0]);
+            }
+            // 原实现通过 ObjectNode.toString() 生成下行文本
+            assertThat(bytes(MessageSender.ttsJson(c[0], c[1])))
+                    .as("text=%s, state=%s", c[0], c[1])
+                    .isEqualTo(bytes(node.toString()));
+        }
+    }
+
+    private void assertSameAsJackson(String value) throws Exception {
+        StringBuilder out = new StringBuilder();
+        MessageSender.appendString(out, value);
+        assertThat(bytes(out.toString())).as(value).isEqualTo(bytes(objectMapper.writeValueAsString(value)));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
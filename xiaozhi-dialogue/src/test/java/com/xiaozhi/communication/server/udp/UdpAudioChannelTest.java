@@ -0,0 +1,102 @@
+package com.xiaozhi.communication.server.udp;
+
+import io.netty.channel.Channel;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UdpAudioChannelTest {
+
+    private static final int CONNECTION_ID = 0x12345678;
+    private static final byte[] KEY = "0123456789abcdef".getBytes();
+
+    private final InetSocketAddress device = new InetSocketAddress("10.0.0.2", 5000);
+    private final InetSocketAddress attacker = new InetSocketAddress("10.0.0.66", 6000);
+    private final List<byte[]> frames = new CopyOnWriteArrayList<>();
+
+    @Mock
+    private Channel channel;
+
+    private UdpAudioChannel udpChannel;
+
+    @BeforeEach
+    void setUp() {
+        udpChannel = new UdpAudioChannel("s1", CONNECTION_ID, KEY, channel, frames::add);
+    }
+
+    @Test
+    void forgedHugeSequenceDoesNotWedgeLaterPackets() throws Exception {
+        deliver(0xFFFFFFFF, new byte[]{9}, attacker);
+        assertThat(udpChannel.getDroppedCount()).isEqualTo(1);
+        assertThat(udpChannel.getReceivedCount()).isZero();
+
+        deliver(1, new byte[]{1}, device);
+        deliver(2, new byte[]{2}, device);
+
+        assertThat(udpChannel.getReceivedCount()).isEqualTo(2);
+        awaitFrames(2);
+        assertThat(frames).containsExactly(new byte[]{1}, new byte[]{2});
+    }
+
+    @Test
+    void rejectedPacketDoesNotMoveRemoteAddress() throws Exception {
+        when(channel.isActive()).thenReturn(true);
+        deliver(1, new byte[]{1}, device);
+        deliver(1 + UdpAudioChannel.MAX_SEQUENCE_GAP + 1, new byte[]{9}, attacker);
+        // 重复序号同样不能改写来源地址
+        deliver(1, new byte[]{9}, attacker);
+
+        udpChannel.send(new byte[]{7});
+
+        ArgumentCaptor<DatagramPacket> sent = ArgumentCaptor.forClass(DatagramPacket.class);
+        verify(channel).writeAndFlush(sent.capture());
+        assertThat(sent.getValue().recipient()).isEqualTo(device);
+        assertThat(udpChannel.getDroppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void countsGapsWithinWindowAsLost() throws Exception {
+        deliver(1, new byte[]{1}, device);
+        deliver(5, new byte[]{5}, device);
+
+        assertThat(udpChannel.getLostCount()).isEqualTo(3);
+        assertThat(udpChannel.getReceivedCount()).isEqualTo(2);
+    }
+
+    private void deliver(long sequence, byte[] opus, InetSocketAddress sender) throws Exception {
+        byte[] header = new byte[UdpAudioChannel.HEADER_SIZE];
+        ByteBuffer.wrap(header)
+                .put(UdpAudioChannel.PACKET_TYPE_AUDIO)
+                .put((byte) 0)
+                .putShort((short) opus.length)
+                .putInt(CONNECTION_ID)
+                .putInt(0)
+                .putInt((int) sequence);
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY, "AES"), new IvParameterSpec(header));
+        udpChannel.onPacket(header, cipher.doFinal(opus), sender);
+    }
+
+    private void awaitFrames(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && frames.size() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
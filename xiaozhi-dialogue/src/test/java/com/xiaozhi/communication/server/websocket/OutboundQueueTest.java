@@ -0,0 +1,188 @@
+package com.xiaozhi.communication.server.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboundQueueTest {
+
+    @Mock
+    private WebSocketSession session;
+
+    private static final int MAX_QUEUE = 4;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboundDispatcher dispatcher;
+    private OutboundQueue queue;
+
+    // 阻塞第一条写出，让后续消息停留在队列里
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new OutboundDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "maxQueue", MAX_QUEUE);
+        ReflectionTestUtils.setField(dispatcher, "overflowCloseMs", 5000L);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", meterRegistry);
+        dispatcher.start();
+        when(session.isOpen()).thenReturn(true);
+        queue = dispatcher.newQueue(session);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void keepsDrainingAfterSendThrowsRuntimeException() throws Exception {
+        doThrow(new IllegalArgumentException("容器包装的异常"))
+                .doNothing()
+                .when(session).sendMessage(any());
+
+        queue.sendText("first");
+        verify(session, timeout(1000)).sendMessage(new TextMessage("first"));
+
+        // 写出任务异常后必须释放单写出者标记，后续消息仍能写出
+        queue.sendText("second");
+        verify(session, timeout(1000)).sendMessage(new TextMessage("second"));
+        assertThat(queue.getDepth()).isZero();
+    }
+
+    @Test
+    void writesMessagesInOrder() throws Exception {
+        doNothing().when(session).sendMessage(any());
+
+        queue.sendText("tts start");
+        queue.sendAudio(new byte[]{1, 2, 3});
+        queue.sendText("tts stop");
+
+        verify(session, timeout(1000)).sendMessage(new TextMessage("tts stop"));
+        InOrder order = inOrder(session);
+        order.verify(session).sendMessage(new TextMessage("tts start"));
+        order.verify(session).sendMessage(any(BinaryMessage.class));
+        order.verify(session).sendMessage(new TextMessage("tts stop"));
+    }
+
+    @Test
+    void skipsStatusSupersededBeforeItWasSent() throws Exception {
+        blockFirstWrite();
+
+        queue.sendStatus("emotion", "happy");
+        queue.sendStatus("emotion", "sad");
+        queue.sendStatus("emotion", "thinking");
+        release.countDown();
+
+        verify(session, timeout(1000)).sendMessage(new TextMessage("thinking"));
+        verify(session, never()).sendMessage(new TextMessage("happy"));
+        verify(session, never()).sendMessage(new TextMessage("sad"));
+        assertThat(dropped("text")).isEqualTo(2);
+    }
+
+    @Test
+    void dropsAudioAndStatusWhenFullButKeepsText() throws Exception {
+        blockFirstWrite();
+
+        for (int i = 0; i < MAX_QUEUE; i++) {
+            queue.sendAudio(new byte[]{(byte) i});
+        }
+        assertThat(queue.getDepth()).isEqualTo(MAX_QUEUE);
+        queue.sendAudio(new byte[]{9});
+        queue.sendStatus("emotion", "happy");
+        // 控制消息不受队列上限约束
+        queue.sendText("tts stop");
+        assertThat(queue.getDepth()).isEqualTo(MAX_QUEUE + 1);
+        release.countDown();
+
+        verify(session, timeout(1000)).sendMessage(new TextMessage("tts stop"));
+        verify(session, times(MAX_QUEUE)).sendMessage(any(BinaryMessage.class));
+        verify(session, never()).sendMessage(new TextMessage("happy"));
+        assertThat(dropped("audio")).isEqualTo(1);
+        assertThat(dropped("text")).isEqualTo(1);
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void closesSessionWhenOverflowPersists() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "overflowCloseMs", 0L);
+        queue = dispatcher.newQueue(session);
+        blockFirstWrite();
+
+        for (int i = 0; i < MAX_QUEUE; i++) {
+            queue.sendAudio(new byte[]{(byte) i});
+        }
+        // 第一次丢弃开始计时，超过 overflow-close-ms 后的下一次丢弃关闭连接
+        queue.sendAudio(new byte[]{9});
+        verify(session, never()).close(any());
+        TimeUnit.MILLISECONDS.sleep(5);
+        queue.sendAudio(new byte[]{10});
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(meterRegistry.get("xiaozhi.websocket.outbound.overflow-closed").counter().count()).isEqualTo(1);
+        // 关闭时清空队列，之后不再入队
+        assertThat(queue.getDepth()).isZero();
+        queue.sendText("tts stop");
+        assertThat(queue.getDepth()).isZero();
+        release.countDown();
+        verify(session, never()).sendMessage(any(BinaryMessage.class));
+    }
+
+    @Test
+    void isIdleOnlyAfterInFlightWriteCompletes() throws Exception {
+        assertThat(queue.isIdle()).isTrue();
+        blockFirstWrite();
+
+        // 唯一的一条已出队但还在写，仍不算空闲
+        assertThat(queue.getDepth()).isZero();
+        assertThat(queue.isIdle()).isFalse();
+        release.countDown();
+
+        verify(session, timeout(1000)).sendMessage(new TextMessage("tts start"));
+        for (int i = 0; i < 100 && !queue.isIdle(); i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(queue.isIdle()).isTrue();
+    }
+
+    private void blockFirstWrite() throws Exception {
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).doNothing().when(session).sendMessage(any());
+        queue.sendText("tts start");
+        assertThat(writing.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private double dropped(String kind) {
+        return meterRegistry.get("xiaozhi.websocket.outbound.dropped").tag("kind", kind).counter().count();
+    }
+}
@@ -0,0 +1,217 @@
+package com.xiaozhi.dialogue.audio.vad;
+
+import com.xiaozhi.dialogue.audio.vad.VadModel.InferenceResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SileroVadBatcherTest {
+
+    // 模型位于仓库根目录，兼容在模块目录或根目录下运行测试
+    private static final Path MODEL = Files.exists(Path.of("models", "silero_vad.onnx"))
+            ? Path.of("models", "silero_vad.onnx")
+            : Path.of("..", "models", "silero_vad.onnx");
+
+    private final ExecutorService sessions = Executors.newCachedThreadPool();
+    private SileroVadBatcher batcher;
+    private SileroVadModel model;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.stop();
+        }
+        if (model != null) {
+            model.close();
+        }
+        sessions.shutdownNow();
+    }
+
+    @Test
+    void batchedResultsAreBitIdenticalToSingleInference() throws Exception {
+        assumeTrue(Files.exists(MODEL), "缺少 Silero VAD 模型文件");
+        model = new SileroVadModel();
+        ReflectionTestUtils.setField(model, "modelPath", MODEL.toString());
+        model.initialize();
+        int sessionCount = 6;
+        // 等待时间远大于凑批所需，只有凑满 max-size 才会触发推理
+        batcher = newBatcher(model, sessionCount, 500_000);
+
+        Random random = new Random(7);
+        float[][][][] states = new float[sessionCount][][][];
+        for (int step = 0; step < 4; step++) {
+            float[][] samples = new float[sessionCount][SileroVadModel.WINDOW_SIZE];
+            float[][] contexts = new float[sessionCount][SileroVadModel.CONTEXT_SIZE];
+            for (int i = 0; i < sessionCount; i++) {
+                fill(random, samples[i]);
+                fill(random, contexts[i]);
+            }
+            InferenceResult[] batched = inferConcurrently(samples, contexts, states);
+            for (int i = 0; i < sessionCount; i++) {
+                InferenceResult single = model.infer(samples[i], contexts[i], states[i]);
+                assertSameBits(single, batched[i]);
+                // 下一步沿用各会话自己的隐状态
+                states[i] = batched[i].state;
+            }
+        }
+        assertThat(batcher.getAverageBatchSize()).isEqualTo(sessionCount);
+    }
+
+    @Test
+    void flushesAsSoonAsBatchIsFull() throws Exception {
+        FakeVadModel fake = new FakeVadModel();
+        // 等待上限 10s，远超单次结果超时，结果只可能来自凑满批次
+        batcher = newBatcher(fake, 4, 10_000_000);
+        fake.batchSizes.clear();
+        fake.singleCalls = 0;
+
+        InferenceResult[] results = inferConcurrently(randomSamples(4), randomContexts(4), new float[4][][][]);
+
+        assertThat(fake.batchSizes).containsExactly(4);
+        assertThat(fake.singleCalls).isZero();
+        assertThat(results).allSatisfy(r -> assertThat(r).isNotNull());
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxWait() {
+        FakeVadModel fake = new FakeVadModel();
+        long maxWaitMicros = 20_000;
+        batcher = newBatcher(fake, 32, maxWaitMicros);
+        fake.batchSizes.clear();
+        fake.singleCalls = 0;
+
+        float[] samples = randomSamples(1)[0];
+        float[] context = randomContexts(1)[0];
+        long start = System.nanoTime();
+        InferenceResult result = batcher.infer(samples, context, null);
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        // 凑不满批次时等到截止时间再以 batch=1 推理
+        assertThat(elapsedMicros).isGreaterThanOrEqualTo(maxWaitMicros);
+        assertThat(fake.singleCalls).isEqualTo(1);
+        assertThat(fake.batchSizes).isEmpty();
+        assertThat(result.probability).isEqualTo(fake.infer(samples, context, null).probability);
+    }
+
+    private SileroVadBatcher newBatcher(SileroVadModel vadModel, int maxBatchSize, long maxWaitMicros) {
+        SileroVadBatcher created = new SileroVadBatcher();
+        ReflectionTestUtils.setField(created, "enabled", true);
+        ReflectionTestUtils.setField(created, "maxBatchSize", maxBatchSize);
+        ReflectionTestUtils.setField(created, "maxWaitMicros", maxWaitMicros);
+        ReflectionTestUtils.setField(created, "workers", 1);
+        ReflectionTestUtils.setField(created, "vadModel", vadModel);
+        created.start();
+        assertThat(ReflectionTestUtils.getField(created, "running")).isEqualTo(true);
+        return created;
+    }
+
+    private InferenceResult[] inferConcurrently(float[][] samples, float[][] contexts, float[][][][] states)
+            throws Exception {
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<InferenceResult>> futures = new ArrayList<>();
+        for (int i = 0; i < samples.length; i++) {
+            int index = i;
+            Callable<InferenceResult> call = () -> {
+                ready.await();
+                return batcher.infer(samples[index], contexts[index], states[index]);
+            };
+            futures.add(sessions.submit(call));
+        }
+        ready.countDown();
+        InferenceResult[] results = new InferenceResult[samples.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = futures.get(i).get(5, TimeUnit.SECONDS);
+        }
+        return results;
+    }
+
+    private static float[][] randomSamples(int count) {
+        float[][] samples = new float[count][SileroVadModel.WINDOW_SIZE];
+        Random random = new Random(count);
+        for (float[] window : samples) {
+            fill(random, window);
+        }
+        return samples;
+    }
+
+    private static float[][] randomContexts(int count) {
+        float[][] contexts = new float[count][SileroVadModel.CONTEXT_SIZE];
+        Random random = new Random(-count);
+        for (float[] context : contexts) {
+            fill(random, context);
+        }
+        return contexts;
+    }
+
+    private static void fill(Random random, float[] target) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = random.nextFloat() * 2 - 1;
+        }
+    }
+
+    private static void assertSameBits(InferenceResult expected, InferenceResult actual) {
+        assertThat(Float.floatToRawIntBits(actual.probability)).isEqualTo(Float.floatToRawIntBits(expected.probability));
+        for (int layer = 0; layer < 2; layer++) {
+            float[] x = expected.state[layer][0];
+            float[] y = actual.state[layer][0];
+            assertThat(y).hasSameSizeAs(x);
+            for (int i = 0; i < x.length; i++) {
+                assertThat(Float.floatToRawIntBits(y[i])).as("layer %d, index %d", layer, i)
+                        .isEqualTo(Float.floatToRawIntBits(x[i]));
+            }
+        }
+    }
+
+    /**
+     * 确定性的假模型，记录每次批量推理的大小
+     */
+    private static class FakeVadModel extends SileroVadModel {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        volatile int singleCalls;
+
+        @Override
+        public InferenceResult infer(float[] samples, float[] context, float[][][] prevState) {
+            singleCalls++;
+            return compute(samples, context, prevState);
+        }
+
+        @Override
+        public InferenceResult[] inferBatch(float[][] samples, float[][] contexts, float[][][][] prevStates) {
+            batchSizes.add(samples.length);
+            InferenceResult[] results = new InferenceResult[samples.length];
+            for (int i = 0; i < samples.length; i++) {
+                results[i] = compute(samples[i], contexts[i], prevStates[i]);
+            }
+            return results;
+        }
+
+        private static InferenceResult compute(float[] samples, float[] context, float[][][] prevState) {
+            float sum = prevState == null ? 0 : prevState[0][0][0];
+            for (float s : samples) {
+                sum += s;
+            }
+            for (float c : context) {
+                sum += c;
+            }
+            float[][][] state = new float[2][1][128];
+            state[0][0][0] = sum;
+            return new InferenceResult(sum, state);
+        }
+    }
+}
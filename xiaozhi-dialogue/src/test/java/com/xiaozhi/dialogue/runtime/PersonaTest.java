@@ -0,0 +1,83 @@
+package com.xiaozhi.dialogue.runtime;
+
+import com.xiaozhi.ai.llm.memory.ChatMemory;
+import com.xiaozhi.ai.llm.memory.MessageWindowConversation;
+import com.xiaozhi.communication.common.ChatSession;
+import com.xiaozhi.communication.common.SessionManager;
+import com.xiaozhi.dialogue.playback.Synthesizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonaTest {
+
+    @Mock
+    private SessionManager sessionManager;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private ChatSession session;
+
+    @Mock
+    private ChatModel chatModel;
+
+    @Mock
+    private ChatMemory chatMemory;
+
+    @Mock
+    private Synthesizer synthesizer;
+
+    private MessageWindowConversation conversation;
+    private Persona persona;
+
+    @BeforeEach
+    void setUp() {
+        when(sessionManager.getSession("session-1")).thenReturn(session);
+        when(chatMemory.find("device-1", 1, 4)).thenReturn(List.of());
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.empty());
+        conversation = MessageWindowConversation.builder()
+                .ownerId("device-1")
+                .roleId(1)
+                .sessionId("session-1")
+                .roleDesc("一个温柔的助手")
+                .maxMessages(4)
+                .chatMemory(chatMemory)
+                .build();
+        persona = Persona.builder()
+                .sessionManager(sessionManager)
+                .sessionId("session-1")
+                .chatModel(chatModel)
+                .synthesizer(synthesizer)
+                .conversation(conversation)
+                .build();
+    }
+
+    @Test
+    void wakeWordPromptCarriesTimestamp() {
+        // 唤醒词走纯文本入口，UserMessage 不带任何 metadata
+        persona.chat("你好小智", false);
+
+        ArgumentCaptor<Prompt> prompt = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).stream(prompt.capture());
+        List<Message> messages = prompt.getValue().getInstructions();
+        assertThat(messages.getLast().getText()).matches("\\[\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}] 你好小智");
+        // 后续轮次复用同一个装配结果，时间前缀不丢
+        assertThat(conversation.messages().getLast()).isSameAs(messages.getLast());
+        assertThat(conversation.rawMessages().getLast().getText()).isEqualTo("你好小智");
+    }
+}
@@ -1,6 +1,7 @@
 package com.xiaozhi.config.infrastructure;
 
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.xiaozhi.common.CacheHelper;
 import com.xiaozhi.config.dal.mysql.dataobject.ConfigDO;
 import com.xiaozhi.config.dal.mysql.mapper.ConfigMapper;
 import com.xiaozhi.config.domain.AiConfig;
@@ -35,6 +36,9 @@ public class ConfigRepositoryImpl implements ConfigRepository {
     @Resource
     private CacheManager cacheManager;
 
+    @Resource
+    private CacheHelper cacheHelper;
+
     @Resource
     private ApplicationEventPublisher eventPublisher;
 
@@ -101,6 +105,12 @@ public class ConfigRepositoryImpl implements ConfigRepository {
     }
 
     private void evictCache(AiConfig config) {
+        if (config.getConfigId() != null) {
+            cacheHelper.evictLocal("config:" + config.getConfigId());
+        }
+        // 默认配置可能因 resetDefault 切换到其他记录，本地 L1 一并失效
+        cacheHelper.evictLocalByPrefix("config:default:");
+
         Cache cache = cacheManager.getCache(ConfigService.CACHE_NAME);
         if (cache == null) return;
         if (config.getConfigId() != null) {
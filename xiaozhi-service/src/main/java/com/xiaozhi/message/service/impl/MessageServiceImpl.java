@@ -50,6 +50,9 @@ public class MessageServiceImpl implements MessageService {
     @Resource
     private ConversationMapper conversationMapper;
 
+    @Resource
+    private MessageWriteBuffer messageWriteBuffer;
+
     @Override
     public PageResp<MessageResp> page(int pageNo, int pageSize, String deviceId, String deviceName,
                                       String sender, String messageType, Integer roleId,
@@ -134,7 +137,7 @@ public class MessageServiceImpl implements MessageService {
 
         LocalDateTime now = LocalDateTime.now();
         LocalDate today = LocalDate.now();
-        int rows = 0;
+        List<MessageDO> rows = new ArrayList<>(messages.size());
         for (MessageBO message : messages) {
             MessageDO messageDO = messageConvert.toDO(message);
             if (!StringUtils.hasText(messageDO.getState())) {
@@ -152,11 +155,21 @@ public class MessageServiceImpl implements MessageService {
             if (messageDO.getStatDate() == null) {
                 messageDO.setStatDate(today);
             }
+            rows.add(messageDO);
+        }
+
+        // 写后缓冲：对话流程只负责入队，由后台线程批量落库
+        if (isWriteBehind()) {
+            messageWriteBuffer.enqueueInserts(rows);
+            return rows.size();
+        }
+        int inserted = 0;
+        for (MessageDO messageDO : rows) {
             if (messageMapper.insert(messageDO) > 0) {
-                rows++;
+                inserted++;
             }
         }
-        return rows;
+        return inserted;
     }
 
     @Override
@@ -164,6 +177,7 @@ public class MessageServiceImpl implements MessageService {
         if (!StringUtils.hasText(deviceId) || roleId == null || limit <= 0) {
             return Collections.emptyList();
         }
+        flushPending(deviceId, roleId);
         List<MessageBO> desc = messageMapper.selectList(new LambdaQueryWrapper<MessageDO>()
                 .eq(MessageDO::getState, MessageBO.STATE_ENABLED)
                 .eq(MessageDO::getDeviceId, deviceId)
@@ -183,6 +197,9 @@ public class MessageServiceImpl implements MessageService {
         if (!StringUtils.hasText(sessionId) || limit <= 0) {
             return Collections.emptyList();
         }
+        if (isWriteBehind()) {
+            messageWriteBuffer.flushIf(message -> sessionId.equals(message.getSessionId()));
+        }
         List<MessageBO> desc = messageMapper.selectList(new LambdaQueryWrapper<MessageDO>()
                 .eq(MessageDO::getState, MessageBO.STATE_ENABLED)
                 .eq(MessageDO::getSessionId, sessionId)
@@ -201,6 +218,7 @@ public class MessageServiceImpl implements MessageService {
         if (!StringUtils.hasText(deviceId) || roleId == null || time == null) {
             return Collections.emptyList();
         }
+        flushPending(deviceId, roleId);
         LocalDateTime createTime = LocalDateTime.ofInstant(time, ZoneId.systemDefault());
         return messageMapper.selectList(new LambdaQueryWrapper<MessageDO>()
                 .eq(MessageDO::getState, MessageBO.STATE_ENABLED)
@@ -223,6 +241,14 @@ public class MessageServiceImpl implements MessageService {
             return;
         }
 
+        if (!StringUtils.hasText(audioPath)) {
+            return;
+        }
+        if (isWriteBehind()) {
+            messageWriteBuffer.enqueueAudioUpdate(deviceId, roleId, createTime, audioPath);
+            return;
+        }
+
         // 1. 找到 assistant 消息的 messageId
         LambdaQueryWrapper<MessageDO> query = new LambdaQueryWrapper<MessageDO>()
             .eq(MessageDO::getDeviceId, deviceId)
@@ -237,13 +263,24 @@ public class MessageServiceImpl implements MessageService {
         }
 
         // 2. 更新 audioPath
-        if (StringUtils.hasText(audioPath)) {
-            LambdaUpdateWrapper<MessageDO> msgUpdate = new LambdaUpdateWrapper<MessageDO>()
-                .eq(MessageDO::getMessageId, messageDO.getMessageId())
-                .set(MessageDO::getAudioPath, audioPath)
-                .set(MessageDO::getUpdateTime, LocalDateTime.now());
-            messageMapper.update(null, msgUpdate);
-        }
+        LambdaUpdateWrapper<MessageDO> msgUpdate = new LambdaUpdateWrapper<MessageDO>()
+            .eq(MessageDO::getMessageId, messageDO.getMessageId())
+            .set(MessageDO::getAudioPath, audioPath)
+            .set(MessageDO::getUpdateTime, LocalDateTime.now());
+        messageMapper.update(null, msgUpdate);
     }
 
+    private boolean isWriteBehind() {
+        return messageWriteBuffer != null && messageWriteBuffer.isEnabled();
+    }
+
+    /**
+     * 读历史前先把该设备+角色还在缓冲中的消息落库，保证读到刚结束的轮次
+     */
+    private void flushPending(String deviceId, Integer roleId) {
+        if (isWriteBehind()) {
+            messageWriteBuffer.flushIf(message -> deviceId.equals(message.getDeviceId())
+                    && roleId.equals(message.getRoleId()));
+        }
+    }
 }
@@ -0,0 +1,297 @@
+package com.xiaozhi.message.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xiaozhi.common.model.bo.MessageBO;
+import com.xiaozhi.message.dal.mysql.dataobject.MessageDO;
+import com.xiaozhi.message.dal.mysql.mapper.MessageMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 对话消息的异步写后（write-behind）缓冲。
+ *
+ * 对话轮次结束时的消息插入、OpusRecorder 录音完成后的音频路径回填都在延迟敏感的对话流程里，
+ * 这里只把数据放进内存队列就返回，由后台线程每 flush-interval-ms 或攒够 batch-size 行时
+ * 合并成一次 JDBC 批量 insert / update。
+ *
+ * 一致性：
+ * - 读历史前调用 {@link #flushIf}，队列中有该设备/会话的待写数据时先同步落库，保证读到刚结束的轮次
+ * - 音频路径回填时对应消息还在队列中，直接改写待插入的行，不再额外 update
+ * - 应用关闭时同步刷盘
+ */
+@Slf4j
+@Component
+public class MessageWriteBuffer {
+
+    /** 记住最近落库的 assistant 消息 ID，音频回填时免去按时间反查 */
+    private static final int RECENT_ASSISTANT_IDS = 1024;
+
+    @Value("${xiaozhi.message.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${xiaozhi.message.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${xiaozhi.message.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Resource
+    private MessageMapper messageMapper;
+
+    private final List<MessageDO> pendingInserts = new ArrayList<>();
+    private final List<AudioUpdate> pendingUpdates = new ArrayList<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Map<String, Long> recentAssistantIds = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > RECENT_ASSISTANT_IDS;
+        }
+    };
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong insertedRows = new AtomicLong();
+    private final AtomicLong updatedRows = new AtomicLong();
+
+    private record AudioUpdate(String deviceId, Integer roleId, LocalDateTime createTime, String audioPath) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("message-writer").daemon(true).factory());
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("消息异步批量写入已启用 - flushInterval: {}ms, batchSize: {}", flushIntervalMs, batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 加入待插入队列，达到批大小时立即触发一次后台刷盘
+     */
+    public void enqueueInserts(List<MessageDO> messages) {
+        int size;
+        synchronized (this) {
+            pendingInserts.addAll(messages);
+            size = pendingInserts.size();
+        }
+        if (size >= batchSize) {
+            triggerFlush();
+        }
+    }
+
+    /**
+     * 加入音频路径回填。对应消息仍在队列中时直接改写待插入的行
+     */
+    public void enqueueAudioUpdate(String deviceId, Integer roleId, LocalDateTime createTime, String audioPath) {
+        LocalDateTime second = createTime.truncatedTo(ChronoUnit.SECONDS);
+        synchronized (this) {
+            for (MessageDO pending : pendingInserts) {
+                if (isAssistantRow(pending, deviceId, roleId, second)) {
+                    pending.setAudioPath(audioPath);
+                    return;
+                }
+            }
+            pendingUpdates.add(new AudioUpdate(deviceId, roleId, second, audioPath));
+        }
+    }
+
+    /**
+     * 队列中存在满足条件的待写消息时同步刷盘，用于读历史前保证读己之写
+     */
+    public void flushIf(Predicate<MessageDO> matcher) {
+        boolean pending;
+        synchronized (this) {
+            pending = pendingInserts.stream().anyMatch(matcher);
+        }
+        // 后台线程可能正在写入已取走的批次，拿到锁即说明该批次已落库
+        if (pending || flushLock.isLocked()) {
+            flush();
+        }
+    }
+
+    /**
+     * 把当前队列中的插入和回填写入数据库
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<MessageDO> inserts;
+            List<AudioUpdate> updates;
+            synchronized (this) {
+                if (pendingInserts.isEmpty() && pendingUpdates.isEmpty()) {
+                    return;
+                }
+                inserts = new ArrayList<>(pendingInserts);
+                updates = new ArrayList<>(pendingUpdates);
+                pendingInserts.clear();
+                pendingUpdates.clear();
+            }
+            if (!inserts.isEmpty()) {
+                insertBatch(inserts);
+            }
+            if (!updates.isEmpty()) {
+                updateBatch(updates);
+            }
+            flushes.incrementAndGet();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getInsertedRows() {
+        return insertedRows.get();
+    }
+
+    public long getUpdatedRows() {
+        return updatedRows.get();
+    }
+
+    private void insertBatch(List<MessageDO> inserts) {
+        try {
+            messageMapper.insert(inserts);
+            insertedRows.addAndGet(inserts.size());
+        } catch (Exception e) {
+            // 批量失败时逐条重试，避免一行脏数据拖累整批消息
+            log.warn("批量写入消息失败，逐条重试 - 行数: {}, 原因: {}", inserts.size(), e.getMessage());
+            for (MessageDO message : inserts) {
+                try {
+                    if (messageMapper.insert(message) > 0) {
+                        insertedRows.incrementAndGet();
+                    }
+                } catch (Exception ex) {
+                    log.error("写入消息失败 - deviceId: {}, sender: {}", message.getDeviceId(), message.getSender(), ex);
+                }
+            }
+        }
+        synchronized (recentAssistantIds) {
+            for (MessageDO message : inserts) {
+                if (message.getMessageId() != null && MessageBO.SENDER_ASSISTANT.equals(message.getSender())
+                        && MessageBO.MESSAGE_TYPE_NORMAL.equals(message.getMessageType())
+                        && message.getCreateTime() != null) {
+                    recentAssistantIds.put(assistantKey(message.getDeviceId(), message.getRoleId(),
+                            message.getCreateTime().truncatedTo(ChronoUnit.SECONDS)), message.getMessageId());
+                }
+            }
+        }
+    }
+
+    private void updateBatch(List<AudioUpdate> updates) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MessageDO> rows = new ArrayList<>(updates.size());
+        for (AudioUpdate update : updates) {
+            Long messageId = findAssistantId(update);
+            if (messageId == null) {
+                continue;
+            }
+            MessageDO row = new MessageDO();
+            row.setMessageId(messageId);
+            row.setAudioPath(update.audioPath());
+            row.setUpdateTime(now);
+            rows.add(row);
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            messageMapper.updateById(rows);
+            updatedRows.addAndGet(rows.size());
+        } catch (Exception e) {
+            log.error("批量回填消息音频失败 - 行数: {}", rows.size(), e);
+        }
+    }
+
+    private Long findAssistantId(AudioUpdate update) {
+        synchronized (recentAssistantIds) {
+            Long messageId = recentAssistantIds.get(assistantKey(update.deviceId(), update.roleId(), update.createTime()));
+            if (messageId != null) {
+                return messageId;
+            }
+        }
+        // 不在最近写入记录中（如关闭写后缓冲前写入的消息），按原条件查询
+        MessageDO messageDO = messageMapper.selectOne(new LambdaQueryWrapper<MessageDO>()
+                .eq(MessageDO::getDeviceId, update.deviceId())
+                .eq(MessageDO::getRoleId, update.roleId())
+                .eq(MessageDO::getSender, MessageBO.SENDER_ASSISTANT)
+                .eq(MessageDO::getMessageType, MessageBO.MESSAGE_TYPE_NORMAL)
+                .eq(MessageDO::getCreateTime, update.createTime())
+                .select(MessageDO::getMessageId));
+        return messageDO == null ? null : messageDO.getMessageId();
+    }
+
+    private static boolean isAssistantRow(MessageDO message, String deviceId, Integer roleId, LocalDateTime second) {
+        return MessageBO.SENDER_ASSISTANT.equals(message.getSender())
+                && MessageBO.MESSAGE_TYPE_NORMAL.equals(message.getMessageType())
+                && Objects.equals(deviceId, message.getDeviceId())
+                && Objects.equals(roleId, message.getRoleId())
+                && message.getCreateTime() != null
+                && second.equals(message.getCreateTime().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private static String assistantKey(String deviceId, Integer roleId, LocalDateTime second) {
+        return deviceId + '|' + roleId + '|' + second;
+    }
+
+    private void triggerFlush() {
+        if (scheduler != null && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("消息批量写入失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭前把剩余消息同步写入
+        flushQuietly();
+        log.info("消息异步批量写入已停止 - 刷盘次数: {}, 写入: {}, 回填: {}",
+                flushes.get(), insertedRows.get(), updatedRows.get());
+    }
+}
@@ -111,6 +111,7 @@ public class RoleRepositoryImpl implements RoleRepository {
         if (roleId == null) return;
         Cache cache = cacheManager.getCache(RoleService.CACHE_NAME);
         if (cache != null) cache.evict(String.valueOf(roleId));
+        cacheHelper.evictLocal("role:" + roleId);
     }
 
     private Role toRole(RoleDO d) {
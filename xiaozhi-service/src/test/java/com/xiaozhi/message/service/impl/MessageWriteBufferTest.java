@@ -0,0 +1,111 @@
+package com.xiaozhi.message.service.impl;
+
+import com.xiaozhi.common.model.bo.MessageBO;
+import com.xiaozhi.message.dal.mysql.dataobject.MessageDO;
+import com.xiaozhi.message.dal.mysql.mapper.MessageMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriteBufferTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 1, 1, 12, 0, 0);
+
+    @Mock
+    private MessageMapper messageMapper;
+
+    @InjectMocks
+    private MessageWriteBuffer messageWriteBuffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(messageWriteBuffer, "enabled", true);
+        ReflectionTestUtils.setField(messageWriteBuffer, "batchSize", 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushInsertsQueuedRowsInOneBatch() {
+        messageWriteBuffer.enqueueInserts(List.of(row(MessageBO.SENDER_USER), row(MessageBO.SENDER_ASSISTANT)));
+        verifyNoInteractions(messageMapper);
+
+        messageWriteBuffer.flush();
+
+        ArgumentCaptor<Collection<MessageDO>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(messageMapper, times(1)).insert(captor.capture());
+        assertThat(captor.getValue()).hasSize(2);
+        assertThat(messageWriteBuffer.getInsertedRows()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void audioUpdateForQueuedRowIsMergedIntoInsert() {
+        MessageDO assistant = row(MessageBO.SENDER_ASSISTANT);
+        messageWriteBuffer.enqueueInserts(List.of(assistant));
+
+        messageWriteBuffer.enqueueAudioUpdate("dev-1", 1, CREATED.plusNanos(500_000_000), "audio/a.opus");
+        messageWriteBuffer.flush();
+
+        assertThat(assistant.getAudioPath()).isEqualTo("audio/a.opus");
+        verify(messageMapper, never()).updateById(any(Collection.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void audioUpdateAfterFlushUsesRecentMessageId() {
+        doAnswer(invocation -> {
+            Collection<MessageDO> rows = invocation.getArgument(0);
+            rows.forEach(row -> row.setMessageId(42L));
+            return List.of();
+        }).when(messageMapper).insert(anyList());
+        messageWriteBuffer.enqueueInserts(List.of(row(MessageBO.SENDER_ASSISTANT)));
+        messageWriteBuffer.flush();
+
+        messageWriteBuffer.enqueueAudioUpdate("dev-1", 1, CREATED, "audio/b.opus");
+        messageWriteBuffer.flush();
+
+        ArgumentCaptor<Collection<MessageDO>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(messageMapper).updateById(captor.capture());
+        MessageDO updated = captor.getValue().iterator().next();
+        assertThat(updated.getMessageId()).isEqualTo(42L);
+        assertThat(updated.getAudioPath()).isEqualTo("audio/b.opus");
+    }
+
+    @Test
+    void flushIfSkipsWhenNothingMatches() {
+        messageWriteBuffer.enqueueInserts(List.of(row(MessageBO.SENDER_USER)));
+
+        messageWriteBuffer.flushIf(message -> "other".equals(message.getDeviceId()));
+
+        verifyNoInteractions(messageMapper);
+    }
+
+    private static MessageDO row(String sender) {
+        MessageDO row = new MessageDO();
+        row.setDeviceId("dev-1");
+        row.setRoleId(1);
+        row.setSender(sender);
+        row.setMessageType(MessageBO.MESSAGE_TYPE_NORMAL);
+        row.setCreateTime(CREATED);
+        return row;
+    }
+}